@@ -0,0 +1,266 @@
+// Minimal CBOR (RFC 8949) codec for API responses.
+//
+// Responses are wrapped in a stringref namespace (tags 256/25), so a string that repeats
+// (every column name of every row, repeated event types and locations) is sent once and
+// then referenced by index. That removes most of the per-row key overhead that makes
+// the JSON lists large. The Android client decodes the same subset.
+
+const CONTENT_TYPE = 'application/cbor';
+
+const TAG_STRINGREF = 25;
+const TAG_STRINGREF_NAMESPACE = 256;
+
+// A string only enters the table when a reference to it would be shorter than the string
+function minStringRefLength(tableSize) {
+    if (tableSize < 24) return 3;
+    if (tableSize < 256) return 4;
+    if (tableSize < 65536) return 5;
+    if (tableSize < 4294967296) return 7;
+    return 11;
+}
+
+class Writer {
+    constructor() {
+        this.buffer = Buffer.alloc(4096);
+        this.length = 0;
+    }
+
+    ensure(extra) {
+        if (this.length + extra <= this.buffer.length) return;
+        let size = this.buffer.length * 2;
+        while (size < this.length + extra) size *= 2;
+        const next = Buffer.alloc(size);
+        this.buffer.copy(next, 0, 0, this.length);
+        this.buffer = next;
+    }
+
+    byte(b) {
+        this.ensure(1);
+        this.buffer[this.length++] = b;
+    }
+
+    head(major, value) {
+        const m = major << 5;
+        if (value < 24) {
+            this.byte(m | value);
+        } else if (value < 0x100) {
+            this.ensure(2);
+            this.buffer[this.length++] = m | 24;
+            this.buffer[this.length++] = value;
+        } else if (value < 0x10000) {
+            this.ensure(3);
+            this.buffer[this.length++] = m | 25;
+            this.buffer.writeUInt16BE(value, this.length);
+            this.length += 2;
+        } else if (value < 0x100000000) {
+            this.ensure(5);
+            this.buffer[this.length++] = m | 26;
+            this.buffer.writeUInt32BE(value, this.length);
+            this.length += 4;
+        } else {
+            this.ensure(9);
+            this.buffer[this.length++] = m | 27;
+            this.buffer.writeBigUInt64BE(BigInt(value), this.length);
+            this.length += 8;
+        }
+    }
+
+    bytes(buf) {
+        this.ensure(buf.length);
+        buf.copy(this.buffer, this.length);
+        this.length += buf.length;
+    }
+
+    float64(value) {
+        this.ensure(9);
+        this.buffer[this.length++] = 0xfb;
+        this.buffer.writeDoubleBE(value, this.length);
+        this.length += 8;
+    }
+
+    result() {
+        return this.buffer.subarray(0, this.length);
+    }
+}
+
+function encode(value) {
+    const writer = new Writer();
+    // Byte strings take table slots too (they are never referenced here), hence the counter
+    const table = { indexes: new Map(), size: 0 };
+    writer.head(6, TAG_STRINGREF_NAMESPACE);
+    encodeValue(writer, value, table);
+    return writer.result();
+}
+
+function encodeValue(writer, value, table) {
+    if (value === null || value === undefined) {
+        writer.byte(0xf6);
+    } else if (value === true) {
+        writer.byte(0xf5);
+    } else if (value === false) {
+        writer.byte(0xf4);
+    } else if (typeof value === 'number') {
+        if (Number.isSafeInteger(value)) {
+            if (value >= 0) writer.head(0, value);
+            else writer.head(1, -1 - value);
+        } else {
+            writer.float64(value);
+        }
+    } else if (typeof value === 'string') {
+        encodeString(writer, value, table);
+    } else if (Buffer.isBuffer(value)) {
+        if (value.length >= minStringRefLength(table.size)) table.size++;
+        writer.head(2, value.length);
+        writer.bytes(value);
+    } else if (value instanceof Date) {
+        encodeString(writer, value.toISOString(), table);
+    } else if (Array.isArray(value)) {
+        writer.head(4, value.length);
+        for (const item of value) encodeValue(writer, item, table);
+    } else if (typeof value === 'object') {
+        if (typeof value.toJSON === 'function') {
+            encodeValue(writer, value.toJSON(), table);
+            return;
+        }
+        const keys = Object.keys(value).filter((k) => value[k] !== undefined);
+        writer.head(5, keys.length);
+        for (const key of keys) {
+            encodeString(writer, key, table);
+            encodeValue(writer, value[key], table);
+        }
+    } else {
+        throw new TypeError(`Cannot CBOR-encode ${typeof value}`);
+    }
+}
+
+function encodeString(writer, value, table) {
+    const index = table.indexes.get(value);
+    if (index !== undefined) {
+        writer.head(6, TAG_STRINGREF);
+        writer.head(0, index);
+        return;
+    }
+    const utf8 = Buffer.from(value, 'utf8');
+    if (utf8.length >= minStringRefLength(table.size)) {
+        table.indexes.set(value, table.size++);
+    }
+    writer.head(3, utf8.length);
+    writer.bytes(utf8);
+}
+
+// Decoder for the same subset, used by the wire format comparison script
+function decode(buf) {
+    const state = { buf, pos: 0, tables: [] };
+    const value = decodeValue(state);
+    if (state.pos !== buf.length) {
+        throw new Error(`Trailing bytes after CBOR item at ${state.pos}`);
+    }
+    return value;
+}
+
+function readArgument(state, info) {
+    const { buf } = state;
+    if (info < 24) return info;
+    if (info === 24) return buf[state.pos++];
+    if (info === 25) {
+        const v = buf.readUInt16BE(state.pos);
+        state.pos += 2;
+        return v;
+    }
+    if (info === 26) {
+        const v = buf.readUInt32BE(state.pos);
+        state.pos += 4;
+        return v;
+    }
+    if (info === 27) {
+        const v = Number(buf.readBigUInt64BE(state.pos));
+        state.pos += 8;
+        return v;
+    }
+    throw new Error(`Unsupported CBOR length encoding ${info}`);
+}
+
+function decodeValue(state) {
+    const initial = state.buf[state.pos++];
+    const major = initial >> 5;
+    const info = initial & 0x1f;
+
+    switch (major) {
+        case 0:
+            return readArgument(state, info);
+        case 1:
+            return -1 - readArgument(state, info);
+        case 2: {
+            const length = readArgument(state, info);
+            const bytes = Buffer.from(state.buf.subarray(state.pos, state.pos + length));
+            state.pos += length;
+            const table = state.tables[state.tables.length - 1];
+            if (table && length >= minStringRefLength(table.length)) {
+                table.push(bytes);
+            }
+            return bytes;
+        }
+        case 3: {
+            const length = readArgument(state, info);
+            const value = state.buf.toString('utf8', state.pos, state.pos + length);
+            state.pos += length;
+            const table = state.tables[state.tables.length - 1];
+            if (table && length >= minStringRefLength(table.length)) {
+                table.push(value);
+            }
+            return value;
+        }
+        case 4: {
+            const length = readArgument(state, info);
+            const items = new Array(length);
+            for (let i = 0; i < length; i++) items[i] = decodeValue(state);
+            return items;
+        }
+        case 5: {
+            const length = readArgument(state, info);
+            const object = {};
+            for (let i = 0; i < length; i++) {
+                const key = decodeValue(state);
+                object[key] = decodeValue(state);
+            }
+            return object;
+        }
+        case 6: {
+            const tag = readArgument(state, info);
+            if (tag === TAG_STRINGREF_NAMESPACE) {
+                state.tables.push([]);
+                const value = decodeValue(state);
+                state.tables.pop();
+                return value;
+            }
+            if (tag === TAG_STRINGREF) {
+                const index = decodeValue(state);
+                const table = state.tables[state.tables.length - 1];
+                if (!table || index >= table.length) {
+                    throw new Error(`Unknown stringref ${index}`);
+                }
+                return table[index];
+            }
+            return decodeValue(state);
+        }
+        case 7:
+            if (info === 20) return false;
+            if (info === 21) return true;
+            if (info === 22 || info === 23) return null;
+            if (info === 27) {
+                const v = state.buf.readDoubleBE(state.pos);
+                state.pos += 8;
+                return v;
+            }
+            if (info === 26) {
+                const v = state.buf.readFloatBE(state.pos);
+                state.pos += 4;
+                return v;
+            }
+            throw new Error(`Unsupported CBOR simple value ${info}`);
+        default:
+            throw new Error(`Unsupported CBOR major type ${major}`);
+    }
+}
+
+module.exports = { CONTENT_TYPE, encode, decode };
@@ -0,0 +1,96 @@
+// Compares the JSON and CBOR encodings of the list responses: bytes on the wire (raw and
+// gzipped) and decode time. Reads real rows from the database and pads them out with
+// synthetic copies so the numbers are meaningful on a small dev database.
+//
+//   node scripts/compare-wire-formats.js [rows] [iterations]
+
+const sqlite3 = require('sqlite3').verbose();
+const zlib = require('zlib');
+const cbor = require('../cbor');
+require('dotenv').config();
+
+const DB_PATH = process.env.DATABASE_PATH || './database/events.db';
+const ROWS = parseInt(process.argv[2], 10) || 1000;
+const ITERATIONS = parseInt(process.argv[3], 10) || 200;
+
+const db = new sqlite3.Database(DB_PATH, sqlite3.OPEN_READONLY);
+
+function all(sql) {
+    return new Promise((resolve, reject) => {
+        db.all(sql, (err, rows) => (err ? reject(err) : resolve(rows)));
+    });
+}
+
+function padRows(rows, count) {
+    if (rows.length === 0) return rows;
+    const padded = [];
+    for (let i = 0; i < count; i++) {
+        padded.push({ ...rows[i % rows.length], id: i + 1 });
+    }
+    return padded;
+}
+
+function medianMs(fn) {
+    const samples = [];
+    for (let i = 0; i < ITERATIONS; i++) {
+        const start = process.hrtime.bigint();
+        fn();
+        samples.push(Number(process.hrtime.bigint() - start) / 1e6);
+    }
+    samples.sort((a, b) => a - b);
+    return samples[Math.floor(samples.length / 2)];
+}
+
+function compare(name, body) {
+    const json = Buffer.from(JSON.stringify(body));
+    const binary = cbor.encode(body);
+
+    if (JSON.stringify(cbor.decode(binary)) !== JSON.stringify(JSON.parse(json))) {
+        throw new Error(`${name}: CBOR round trip does not match JSON`);
+    }
+
+    const jsonMs = medianMs(() => JSON.parse(json.toString('utf8')));
+    const cborMs = medianMs(() => cbor.decode(binary));
+
+    return {
+        payload: name,
+        'json bytes': json.length,
+        'cbor bytes': binary.length,
+        'json gzip': zlib.gzipSync(json).length,
+        'cbor gzip': zlib.gzipSync(binary).length,
+        'cbor/json': (binary.length / json.length).toFixed(2),
+        'json decode ms': jsonMs.toFixed(3),
+        'cbor decode ms': cborMs.toFixed(3),
+    };
+}
+
+async function main() {
+    const events = padRows(await all('SELECT * FROM events'), ROWS);
+    const messages = padRows(await all(
+        `SELECT m.*, e.title as event_title, e.time as event_time,
+                e.location as event_location, e.eventType as event_type,
+                e.currentParticipants as current_participants,
+                e.maxParticipants as max_participants
+         FROM messages m
+         LEFT JOIN events e ON m.event_id = e.id`), ROWS);
+
+    const results = [
+        compare('EventsResponse', { success: true, count: events.length, events }),
+        compare('UserEventsResponse', { success: true, events: events.slice(0, Math.ceil(ROWS / 10)) }),
+    ];
+    if (messages.length > 0) {
+        results.push(compare('MessagesResponse', { success: true, messages }));
+    } else {
+        console.log('No messages in the database, skipping MessagesResponse');
+    }
+
+    console.log(`${ROWS} rows, median of ${ITERATIONS} decodes (Node; on-device times differ)`);
+    console.table(results);
+    db.close();
+}
+
+main().catch((err) => {
+    console.error(err);
+    db.close();
+    process.exit(1);
+});
@@ -8,6 +8,7 @@ const bcrypt = require('bcrypt');
 const multer = require('multer');
 require('dotenv').config();
 
+const cbor = require('./cbor');
 const { initializeVectorStore, reindexEvents } = require('./chatbot/vectorStore');
 const { createChatbotGraph } = require('./chatbot/graph');
 
@@ -21,6 +22,77 @@ app.use(cors());
 app.use(bodyParser.json());
 app.use(bodyParser.urlencoded({ extended: true }));
 
+// Event reads are cacheable but must be revalidated on every use. Express attaches an ETag
+// to every res.json body and answers If-None-Match with a 304, so repeat loads skip the body.
+app.set('etag', 'strong');
+app.get(['/api/events', '/api/events/:id', '/api/users/:userId/events',
+         '/api/users/:userId/attended-galleries'], (req, res, next) => {
+    res.set('Cache-Control', 'private, max-age=0');
+    next();
+});
+
+// List endpoints can answer in CBOR instead of JSON when the client asks for it in Accept.
+// Clients that don't ask keep getting JSON, and error bodies always stay JSON.
+app.get(['/api/events', '/api/events/bbox', '/api/users/:userId/events',
+         '/api/messages/:userId/:otherUserId'], (req, res, next) => {
+    res.vary('Accept');
+    if (req.accepts(['application/json', cbor.CONTENT_TYPE]) === cbor.CONTENT_TYPE) {
+        const sendJson = res.json.bind(res);
+        res.json = (body) => {
+            if (res.statusCode >= 400) return sendJson(body);
+            return res.type(cbor.CONTENT_TYPE).send(cbor.encode(body));
+        };
+    }
+    next();
+});
+
+// Writes that carry an Idempotency-Key run once. The first response is stored and replayed
+// for any retry with the same key, so a client can resend after a timeout without
+// duplicating a join, an interaction or a message. A retry that arrives while the first
+// attempt is still running gets a 409 and tries again later.
+const idempotencyInFlight = new Set();
+
+function storeIdempotentResponse(key, status, body, done) {
+    db.run('INSERT OR IGNORE INTO idempotency_keys (key, status, body) VALUES (?, ?, ?)',
+        [key, status, JSON.stringify(body)], (err) => {
+            if (err) console.error('Error storing idempotency key:', err);
+            if (done) done();
+        });
+}
+
+app.use('/api', (req, res, next) => {
+    const key = req.get('Idempotency-Key');
+    if (!key || !['POST', 'PUT', 'DELETE'].includes(req.method)) return next();
+
+    db.get('SELECT status, body FROM idempotency_keys WHERE key = ?', [key], (err, row) => {
+        if (err) {
+            console.error('Error reading idempotency key:', err);
+            return res.status(500).json({ error: 'Failed to check idempotency key' });
+        }
+        if (row) {
+            res.set('Idempotent-Replayed', 'true');
+            return res.status(row.status).type('application/json').send(row.body);
+        }
+        if (idempotencyInFlight.has(key)) {
+            return res.status(409).json({ error: 'A request with this Idempotency-Key is in progress' });
+        }
+
+        idempotencyInFlight.add(key);
+        res.on('finish', () => idempotencyInFlight.delete(key));
+        res.on('close', () => idempotencyInFlight.delete(key));
+
+        const sendJson = res.json.bind(res);
+        res.json = (body) => {
+            // Server errors are not stored, so the retry gets a real second attempt
+            if (res.statusCode < 500) {
+                storeIdempotentResponse(key, res.statusCode, body);
+            }
+            return sendJson(body);
+        };
+        next();
+    });
+});
+
 // Serve uploaded photos as static files
 const uploadsDir = path.join(__dirname, 'public', 'uploads');
 if (!fs.existsSync(uploadsDir)) {
@@ -89,6 +161,46 @@ function initializeDatabase() {
         }
     });
 
+    // Bounding-box reads filter on both coordinates
+    db.run('CREATE INDEX IF NOT EXISTS idx_events_location ON events(latitude, longitude)', (err) => {
+        if (err) {
+            console.error('Error creating events location index:', err);
+        }
+    });
+
+    // Change version for delta sync (ignore error if already exists). Rows written before
+    // versioning existed, or by init-database.js, get distinct versions above the current max
+    // of events and tombstones, so none reuses a version a client has already synced past.
+    // Serialized so the tombstones table exists before the backfill reads it.
+    db.serialize(() => {
+        db.run(`
+            CREATE TABLE IF NOT EXISTS event_tombstones (
+                event_id INTEGER PRIMARY KEY,
+                version INTEGER NOT NULL,
+                deletedAt DATETIME DEFAULT CURRENT_TIMESTAMP
+            )
+        `, (err) => {
+            if (err) {
+                console.error('Error creating event_tombstones table:', err);
+            } else {
+                console.log('Event tombstones table ready');
+            }
+        });
+
+        db.run('ALTER TABLE events ADD COLUMN version INTEGER DEFAULT 0', (err) => {
+            if (err && !err.message.includes('duplicate column')) {
+                console.error('Error adding version column:', err);
+                return;
+            }
+            db.run(`UPDATE events SET version = id + ${LATEST_EVENT_VERSION}
+                    WHERE version IS NULL OR version = 0`, (err) => {
+                if (err) {
+                    console.error('Error backfilling event versions:', err);
+                }
+            });
+        });
+    });
+
     db.run(`
         CREATE TABLE IF NOT EXISTS users (
             id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -189,6 +301,23 @@ function initializeDatabase() {
         }
     });
 
+    db.run(`
+        CREATE TABLE IF NOT EXISTS idempotency_keys (
+            key TEXT PRIMARY KEY,
+            status INTEGER NOT NULL,
+            body TEXT,
+            created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+        )
+    `, (err) => {
+        if (err) {
+            console.error('Error creating idempotency_keys table:', err);
+            return;
+        }
+        console.log('Idempotency keys table ready');
+        // Keys only need to outlive the client's retry window
+        db.run("DELETE FROM idempotency_keys WHERE created_at < datetime('now', '-7 days')");
+    });
+
     db.run(`
         CREATE TABLE IF NOT EXISTS event_photos (
             id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -208,6 +337,15 @@ function initializeDatabase() {
     });
 }
 
+// Latest and next change version, shared by event writes and tombstones so one cursor
+// orders both
+const LATEST_EVENT_VERSION = `(SELECT COALESCE(MAX(v), 0) FROM (
+    SELECT MAX(version) AS v FROM events
+    UNION ALL
+    SELECT MAX(version) FROM event_tombstones
+))`;
+const NEXT_EVENT_VERSION = `(${LATEST_EVENT_VERSION} + 1)`;
+
 // ==================== API ROUTES ====================
 
 // Health check
@@ -219,9 +357,11 @@ app.get('/api/health', (req, res) => {
     });
 });
 
-// Get all events
+// Get all events. With `cursor` (the last id of the previous page) the list is keyset
+// paginated newest-first by id and the response carries `nextCursor` while more remain.
 app.get('/api/events', (req, res) => {
-    const { eventType, limit } = req.query;
+    const { eventType, limit, cursor } = req.query;
+    const paginated = cursor !== undefined;
 
     let query = 'SELECT * FROM events WHERE 1=1';
     const params = [];
@@ -231,7 +371,12 @@ app.get('/api/events', (req, res) => {
         params.push(eventType);
     }
 
-    query += ' ORDER BY createdAt DESC';
+    if (paginated && parseInt(cursor) > 0) {
+        query += ' AND id < ?';
+        params.push(parseInt(cursor));
+    }
+
+    query += paginated ? ' ORDER BY id DESC' : ' ORDER BY createdAt DESC';
 
     if (limit) {
         query += ' LIMIT ?';
@@ -243,34 +388,134 @@ app.get('/api/events', (req, res) => {
             console.error('Error fetching events:', err);
             res.status(500).json({ error: 'Failed to fetch events' });
         } else {
-            res.json({
+            const response = {
                 success: true,
                 count: rows.length,
                 events: rows
-            });
+            };
+            if (paginated) {
+                const full = limit && rows.length === parseInt(limit);
+                response.nextCursor = full ? rows[rows.length - 1].id : null;
+            }
+            res.json(response);
         }
     });
 });
 
-// Get event by ID
-app.get('/api/events/:id', (req, res) => {
-    const { id } = req.params;
+// Delta sync: events changed and deleted since a cursor. The cursor is the highest change
+// version the client has applied; 0 means a full sync.
+app.get('/api/events/sync', (req, res) => {
+    const since = parseInt(req.query.since) || 0;
+    const limit = Math.min(parseInt(req.query.limit) || 500, 2000);
+
+    db.all(
+        'SELECT * FROM events WHERE version > ? OR ? = 0 ORDER BY version ASC LIMIT ?',
+        [since, since, limit + 1],
+        (err, events) => {
+            if (err) {
+                console.error('Error fetching event changes:', err);
+                return res.status(500).json({ error: 'Failed to fetch event changes' });
+            }
+
+            db.all(
+                'SELECT event_id, version FROM event_tombstones WHERE version > ? ORDER BY version ASC LIMIT ?',
+                [since, limit + 1],
+                (err, tombstones) => {
+                    if (err) {
+                        console.error('Error fetching event tombstones:', err);
+                        return res.status(500).json({ error: 'Failed to fetch event changes' });
+                    }
+
+                    // Merge both change streams by version and cut at the page size, so the
+                    // cursor never skips past a change that was left out of this page
+                    const changes = events.map(e => ({ version: e.version || 0, event: e }))
+                        .concat(tombstones.map(t => ({ version: t.version, deletedId: t.event_id })))
+                        .sort((a, b) => a.version - b.version);
+                    const page = changes.slice(0, limit);
+                    const cursor = page.length > 0
+                        ? Math.max(since, page[page.length - 1].version)
+                        : since;
+
+                    res.json({
+                        success: true,
+                        cursor,
+                        hasMore: changes.length > limit,
+                        events: page.filter(c => c.event).map(c => c.event),
+                        deleted: page.filter(c => c.deletedId !== undefined).map(c => c.deletedId)
+                    });
+                }
+            );
+        }
+    );
+});
+
+// Events inside a bounding box, for maps that load what is on screen. A box whose west edge
+// is east of its east edge crosses the antimeridian. With `unlocated=1` events that have no
+// coordinates yet are included too, so the client can geocode them.
+app.get('/api/events/bbox', (req, res) => {
+    const south = parseFloat(req.query.south);
+    const west = parseFloat(req.query.west);
+    const north = parseFloat(req.query.north);
+    const east = parseFloat(req.query.east);
+
+    if ([south, west, north, east].some(isNaN) || south > north) {
+        return res.status(400).json({ error: 'south, west, north and east required' });
+    }
+
+    const longitudeClause = west <= east
+        ? 'longitude BETWEEN ? AND ?'
+        : '(longitude >= ? OR longitude <= ?)';
+    let query = `SELECT * FROM events WHERE (latitude BETWEEN ? AND ? AND ${longitudeClause})`;
+    if (req.query.unlocated === '1' || req.query.unlocated === 'true') {
+        query += ' OR latitude IS NULL OR longitude IS NULL';
+    }
 
-    db.get('SELECT * FROM events WHERE id = ?', [id], (err, row) => {
+    db.all(query, [south, north, west, east], (err, rows) => {
         if (err) {
-            console.error('Error fetching event:', err);
-            res.status(500).json({ error: 'Failed to fetch event' });
-        } else if (!row) {
-            res.status(404).json({ error: 'Event not found' });
+            console.error('Error fetching events in bounds:', err);
+            res.status(500).json({ error: 'Failed to fetch events' });
         } else {
             res.json({
                 success: true,
-                event: row
+                count: rows.length,
+                events: rows
             });
         }
     });
 });
 
+// Route logic that batch endpoints reuse is written as a plain function of the request's
+// params and body, resolving to { status, body }; the route itself only sends the result.
+function sendResult(res, result) {
+    res.status(result.status).json(result.body);
+}
+
+// Get event by ID
+function getEvent(id) {
+    return new Promise((resolve) => {
+        db.get('SELECT * FROM events WHERE id = ?', [id], (err, row) => {
+            if (err) {
+                console.error('Error fetching event:', err);
+                resolve({ status: 500, body: { error: 'Failed to fetch event' } });
+            } else if (!row) {
+                resolve({ status: 404, body: { error: 'Event not found' } });
+            } else {
+                resolve({
+                    status: 200,
+                    body: {
+                        success: true,
+                        event: row
+                    }
+                });
+            }
+        });
+    });
+}
+
+app.get('/api/events/:id', (req, res) => {
+    getEvent(req.params.id).then((result) => sendResult(res, result));
+});
+
 // Get events by location (within radius)
 app.get('/api/events/nearby', (req, res) => {
     const { latitude, longitude, radius = 50 } = req.query;
@@ -332,8 +577,8 @@ app.post('/api/events', (req, res) => {
         INSERT INTO events (
             title, location, description, time,
             currentParticipants, maxParticipants, eventType,
-            latitude, longitude, creatorUserId
-        ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            latitude, longitude, creatorUserId, version
+        ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ${NEXT_EVENT_VERSION})
     `;
 
     db.run(
@@ -357,8 +602,7 @@ app.post('/api/events', (req, res) => {
 });
 
 // Update event
-app.put('/api/events/:id', (req, res) => {
-    const { id } = req.params;
+function updateEvent(id, fields) {
     const {
         title,
         location,
@@ -369,7 +613,7 @@ app.put('/api/events/:id', (req, res) => {
         eventType,
         latitude,
         longitude
-    } = req.body;
+    } = fields || {};
 
     const query = `
         UPDATE events SET
@@ -381,49 +625,112 @@ app.put('/api/events/:id', (req, res) => {
             maxParticipants = COALESCE(?, maxParticipants),
             eventType = COALESCE(?, eventType),
             latitude = COALESCE(?, latitude),
-            longitude = COALESCE(?, longitude)
+            longitude = COALESCE(?, longitude),
+            version = ${NEXT_EVENT_VERSION}
         WHERE id = ?
     `;
 
-    db.run(
-        query,
-        [title, location, description, time, currentParticipants,
-         maxParticipants, eventType, latitude, longitude, id],
-        function(err) {
+    return new Promise((resolve) => {
+        db.run(
+            query,
+            [title, location, description, time, currentParticipants,
+             maxParticipants, eventType, latitude, longitude, id],
+            function(err) {
+                if (err) {
+                    console.error('Error updating event:', err);
+                    resolve({ status: 500, body: { error: 'Failed to update event' } });
+                } else if (this.changes === 0) {
+                    resolve({ status: 404, body: { error: 'Event not found' } });
+                } else {
+                    resolve({
+                        status: 200,
+                        body: {
+                            success: true,
+                            message: 'Event updated successfully'
+                        }
+                    });
+                    reindexEvents(db);
+                }
+            }
+        );
+    });
+}
+
+app.put('/api/events/:id', (req, res) => {
+    updateEvent(req.params.id, req.body).then((result) => sendResult(res, result));
+});
+
+// Join (delta 1) or leave (delta -1) an event. The count is changed in place rather than
+// written back from the client's copy, so concurrent joins and other edits are not lost
+function changeParticipants(id, fields) {
+    const { delta } = fields || {};
+
+    if (!Number.isInteger(delta) || delta === 0) {
+        return Promise.resolve({ status: 400, body: { error: 'delta must be a non-zero integer' } });
+    }
+
+    const query = `
+        UPDATE events SET
+            currentParticipants = MAX(0, MIN(maxParticipants, currentParticipants + ?)),
+            version = ${NEXT_EVENT_VERSION}
+        WHERE id = ?
+    `;
+
+    return new Promise((resolve) => {
+        db.run(query, [delta, id], function(err) {
             if (err) {
-                console.error('Error updating event:', err);
-                res.status(500).json({ error: 'Failed to update event' });
+                console.error('Error changing participants:', err);
+                resolve({ status: 500, body: { error: 'Failed to change participants' } });
             } else if (this.changes === 0) {
-                res.status(404).json({ error: 'Event not found' });
+                resolve({ status: 404, body: { error: 'Event not found' } });
             } else {
-                res.json({
-                    success: true,
-                    message: 'Event updated successfully'
+                resolve({
+                    status: 200,
+                    body: {
+                        success: true,
+                        message: 'Participants updated successfully'
+                    }
                 });
-                reindexEvents(db);
             }
-        }
-    );
+        });
+    });
+}
+
+app.post('/api/events/:id/participants', (req, res) => {
+    changeParticipants(req.params.id, req.body).then((result) => sendResult(res, result));
 });
 
 // Delete event
 app.delete('/api/events/:id', (req, res) => {
     const { id } = req.params;
 
-    db.run('DELETE FROM events WHERE id = ?', [id], function(err) {
-        if (err) {
-            console.error('Error deleting event:', err);
-            res.status(500).json({ error: 'Failed to delete event' });
-        } else if (this.changes === 0) {
-            res.status(404).json({ error: 'Event not found' });
-        } else {
-            res.json({
-                success: true,
-                message: 'Event deleted successfully'
+    // Record the tombstone before the row goes, so its version is computed while the
+    // deleted row still counts towards MAX(version) and can never reuse a seen version
+    db.run(
+        `INSERT OR REPLACE INTO event_tombstones (event_id, version)
+         SELECT ?, ${NEXT_EVENT_VERSION} WHERE EXISTS (SELECT 1 FROM events WHERE id = ?)`,
+        [id, id],
+        (err) => {
+            if (err) {
+                console.error('Error recording event tombstone:', err);
+            }
+
+            db.run('DELETE FROM events WHERE id = ?', [id], function(err) {
+                if (err) {
+                    console.error('Error deleting event:', err);
+                    res.status(500).json({ error: 'Failed to delete event' });
+                } else if (this.changes === 0) {
+                    res.status(404).json({ error: 'Event not found' });
+                } else {
+                    res.json({
+                        success: true,
+                        message: 'Event deleted successfully'
+                    });
+                    reindexEvents(db);
+                }
             });
-            reindexEvents(db);
         }
-    });
+    );
 });
 
 // ==================== CHATBOT ROUTES ====================
@@ -560,21 +867,25 @@ app.post('/api/users/login', (req, res) => {
 });
 
 // Get user by ID
-app.get('/api/users/:id', (req, res) => {
-    const { id } = req.params;
-
-    db.get('SELECT * FROM users WHERE id = ?', [id], (err, user) => {
-        if (err) {
-            console.error('Error fetching user:', err);
-            return res.status(500).json({ error: 'Failed to fetch user' });
-        }
+function getUser(id) {
+    return new Promise((resolve) => {
+        db.get('SELECT * FROM users WHERE id = ?', [id], (err, user) => {
+            if (err) {
+                console.error('Error fetching user:', err);
+                return resolve({ status: 500, body: { error: 'Failed to fetch user' } });
+            }
 
-        if (!user) {
-            return res.status(404).json({ error: 'User not found' });
-        }
+            if (!user) {
+                return resolve({ status: 404, body: { error: 'User not found' } });
+            }
 
-        res.json({ success: true, user });
+            resolve({ status: 200, body: { success: true, user } });
+        });
     });
+}
+
+app.get('/api/users/:id', (req, res) => {
+    getUser(req.params.id).then((result) => sendResult(res, result));
 });
 
 // Update user profile
@@ -614,83 +925,161 @@ app.put('/api/users/:id', (req, res) => {
 });
 
 // Get user's events (created and joined, excluding left/attended/not_attended events)
-app.get('/api/users/:userId/events', (req, res) => {
-    const { userId } = req.params;
+function getUserEvents(userId) {
+    return new Promise((resolve) => {
+        db.all(
+            `SELECT DISTINCT e.*, ui.interaction_type
+             FROM user_interactions ui
+             JOIN events e ON ui.event_id = e.id
+             WHERE ui.user_id = ?
+               AND ui.interaction_type IN ('created', 'joined')
+               AND NOT EXISTS (
+                   SELECT 1 FROM user_interactions ui_done
+                   WHERE ui_done.user_id = ?
+                     AND ui_done.event_id = e.id
+                     AND ui_done.interaction_type IN ('left', 'attended', 'not_attended')
+                     AND ui_done.created_at > ui.created_at
+               )
+             ORDER BY e.createdAt DESC`,
+            [userId, userId],
+            (err, rows) => {
+                if (err) {
+                    console.error('Error fetching user events:', err);
+                    return resolve({ status: 500, body: { error: 'Failed to fetch user events' } });
+                }
 
-    db.all(
-        `SELECT DISTINCT e.*, ui.interaction_type
-         FROM user_interactions ui
-         JOIN events e ON ui.event_id = e.id
-         WHERE ui.user_id = ?
-           AND ui.interaction_type IN ('created', 'joined')
-           AND NOT EXISTS (
-               SELECT 1 FROM user_interactions ui_done
-               WHERE ui_done.user_id = ?
-                 AND ui_done.event_id = e.id
-                 AND ui_done.interaction_type IN ('left', 'attended', 'not_attended')
-                 AND ui_done.created_at > ui.created_at
-           )
-         ORDER BY e.createdAt DESC`,
-        [userId, userId],
-        (err, rows) => {
-            if (err) {
-                console.error('Error fetching user events:', err);
-                return res.status(500).json({ error: 'Failed to fetch user events' });
+                resolve({ status: 200, body: { success: true, events: rows } });
             }
+        );
+    });
+}
 
-            res.json({ success: true, events: rows });
-        }
-    );
+app.get('/api/users/:userId/events', (req, res) => {
+    getUserEvents(req.params.userId).then((result) => sendResult(res, result));
 });
 
 // ==================== INTERACTION ROUTES ====================
 
 // Track user-event interaction
-app.post('/api/interactions', (req, res) => {
-    const { user_id, event_id, interaction_type } = req.body;
+function createInteraction(fields) {
+    const { user_id, event_id, interaction_type } = fields || {};
 
     if (!user_id || !event_id || !interaction_type) {
-        return res.status(400).json({ error: 'user_id, event_id, and interaction_type are required' });
+        return Promise.resolve({
+            status: 400,
+            body: { error: 'user_id, event_id, and interaction_type are required' }
+        });
     }
 
-    db.run(
-        'INSERT INTO user_interactions (user_id, event_id, interaction_type) VALUES (?, ?, ?)',
-        [user_id, event_id, interaction_type],
-        function(err) {
-            if (err) {
-                console.error('Error creating interaction:', err);
-                return res.status(500).json({ error: 'Failed to create interaction' });
+    return new Promise((resolve) => {
+        db.run(
+            'INSERT INTO user_interactions (user_id, event_id, interaction_type) VALUES (?, ?, ?)',
+            [user_id, event_id, interaction_type],
+            function(err) {
+                if (err) {
+                    console.error('Error creating interaction:', err);
+                    return resolve({ status: 500, body: { error: 'Failed to create interaction' } });
+                }
+
+                resolve({
+                    status: 201,
+                    body: {
+                        success: true,
+                        interactionId: this.lastID
+                    }
+                });
             }
+        );
+    });
+}
 
-            res.status(201).json({
-                success: true,
-                interactionId: this.lastID
-            });
-        }
-    );
+app.post('/api/interactions', (req, res) => {
+    createInteraction(req.body).then((result) => sendResult(res, result));
+});
+
+// Record several interactions in one request and one INSERT. Clients send them some time
+// after they happen, so each carries occurred_at (epoch ms) to keep its real order; it is
+// clamped to now so a skewed clock can't push an interaction into the future.
+// 100 rows of 4 values stay well under SQLite's limit on bound parameters.
+const MAX_INTERACTION_BATCH = 100;
+
+function toSqliteTimestamp(ms) {
+    return new Date(ms).toISOString().replace('T', ' ').slice(0, 19);
+}
+
+function createInteractions(fields) {
+    const interactions = (fields || {}).interactions;
+    if (!Array.isArray(interactions) || interactions.length === 0) {
+        return Promise.resolve({ status: 400, body: { error: 'interactions must be a non-empty array' } });
+    }
+    if (interactions.length > MAX_INTERACTION_BATCH) {
+        return Promise.resolve({
+            status: 400,
+            body: { error: `At most ${MAX_INTERACTION_BATCH} interactions per batch` }
+        });
+    }
+    const invalid = interactions.findIndex((i) => !i || !i.user_id || !i.event_id || !i.interaction_type);
+    if (invalid !== -1) {
+        return Promise.resolve({
+            status: 400,
+            body: { error: `interactions[${invalid}]: user_id, event_id, and interaction_type are required` }
+        });
+    }
+
+    // A single statement is atomic by itself, so no transaction is opened on the shared
+    // connection, where other requests' statements could land inside it
+    const now = Date.now();
+    const params = [];
+    for (const i of interactions) {
+        const occurredAt = Number.isFinite(i.occurred_at) ? Math.min(i.occurred_at, now) : now;
+        params.push(i.user_id, i.event_id, i.interaction_type, toSqliteTimestamp(occurredAt));
+    }
+    const rows = interactions.map(() => '(?, ?, ?, ?)').join(', ');
+
+    return new Promise((resolve) => {
+        db.run(
+            `INSERT INTO user_interactions (user_id, event_id, interaction_type, created_at) VALUES ${rows}`,
+            params,
+            (err) => {
+                if (err) {
+                    console.error('Error creating interactions:', err);
+                    return resolve({ status: 500, body: { error: 'Failed to create interactions' } });
+                }
+                resolve({ status: 201, body: { success: true, count: interactions.length } });
+            }
+        );
+    });
+}
+
+app.post('/api/interactions/batch', (req, res) => {
+    createInteractions(req.body).then((result) => sendResult(res, result));
 });
 
 // Get user's interaction history
-app.get('/api/interactions/:userId', (req, res) => {
-    const { userId } = req.params;
+function getInteractions(userId) {
+    return new Promise((resolve) => {
+        db.all(
+            `SELECT ui.id, ui.user_id, ui.event_id, ui.interaction_type, ui.created_at,
+                    e.title, e.eventType
+             FROM user_interactions ui
+             LEFT JOIN events e ON ui.event_id = e.id
+             WHERE ui.user_id = ?
+             ORDER BY ui.created_at DESC`,
+            [userId],
+            (err, rows) => {
+                if (err) {
+                    console.error('Error fetching interactions:', err);
+                    return resolve({ status: 500, body: { error: 'Failed to fetch interactions' } });
+                }
 
-    db.all(
-        `SELECT ui.id, ui.user_id, ui.event_id, ui.interaction_type, ui.created_at,
-                e.title, e.eventType
-         FROM user_interactions ui
-         LEFT JOIN events e ON ui.event_id = e.id
-         WHERE ui.user_id = ?
-         ORDER BY ui.created_at DESC`,
-        [userId],
-        (err, rows) => {
-            if (err) {
-                console.error('Error fetching interactions:', err);
-                return res.status(500).json({ error: 'Failed to fetch interactions' });
+                resolve({ status: 200, body: { success: true, interactions: rows } });
             }
+        );
+    });
+}
 
-            res.json({ success: true, interactions: rows });
-        }
-    );
+app.get('/api/interactions/:userId', (req, res) => {
+    getInteractions(req.params.userId).then((result) => sendResult(res, result));
 });
 
 // ==================== EVENT PHOTOS ROUTES ====================
@@ -730,88 +1119,99 @@ app.post('/api/events/:id/photos', upload.single('photo'), (req, res) => {
 });
 
 // Get photos for a specific event
-app.get('/api/events/:id/photos', (req, res) => {
-    const eventId = req.params.id;
+function getEventPhotos(eventId) {
+    return new Promise((resolve) => {
+        db.all(
+            'SELECT * FROM event_photos WHERE event_id = ? ORDER BY created_at DESC',
+            [eventId],
+            (err, rows) => {
+                if (err) {
+                    console.error('Error fetching event photos:', err);
+                    return resolve({ status: 500, body: { error: 'Failed to fetch photos' } });
+                }
 
-    db.all(
-        'SELECT * FROM event_photos WHERE event_id = ? ORDER BY created_at DESC',
-        [eventId],
-        (err, rows) => {
-            if (err) {
-                console.error('Error fetching event photos:', err);
-                return res.status(500).json({ error: 'Failed to fetch photos' });
+                resolve({
+                    status: 200,
+                    body: {
+                        success: true,
+                        photos: rows
+                    }
+                });
             }
+        );
+    });
+}
 
-            res.json({
-                success: true,
-                photos: rows
-            });
-        }
-    );
+app.get('/api/events/:id/photos', (req, res) => {
+    getEventPhotos(req.params.id).then((result) => sendResult(res, result));
 });
 
 // Get attended event galleries for a user (profile grid)
-app.get('/api/users/:userId/attended-galleries', (req, res) => {
-    const { userId } = req.params;
-
-    // Find events the user attended that have at least one photo
-    db.all(
-        `SELECT DISTINCT e.id, e.title, e.eventType, e.time, e.location
-         FROM user_interactions ui
-         JOIN events e ON ui.event_id = e.id
-         WHERE ui.user_id = ?
-           AND ui.interaction_type = 'attended'
-         ORDER BY ui.created_at DESC`,
-        [userId],
-        (err, events) => {
-            if (err) {
-                console.error('Error fetching attended galleries:', err);
-                return res.status(500).json({ error: 'Failed to fetch galleries' });
-            }
-
-            if (events.length === 0) {
-                return res.json({ success: true, galleries: [] });
-            }
+function getAttendedGalleries(userId) {
+    return new Promise((resolve) => {
+        // Find events the user attended that have at least one photo
+        db.all(
+            `SELECT DISTINCT e.id, e.title, e.eventType, e.time, e.location
+             FROM user_interactions ui
+             JOIN events e ON ui.event_id = e.id
+             WHERE ui.user_id = ?
+               AND ui.interaction_type = 'attended'
+             ORDER BY ui.created_at DESC`,
+            [userId],
+            (err, events) => {
+                if (err) {
+                    console.error('Error fetching attended galleries:', err);
+                    return resolve({ status: 500, body: { error: 'Failed to fetch galleries' } });
+                }
 
-            // For each attended event, fetch all photos
-            const eventIds = events.map(e => e.id);
-            const placeholders = eventIds.map(() => '?').join(',');
+                if (events.length === 0) {
+                    return resolve({ status: 200, body: { success: true, galleries: [] } });
+                }
 
-            db.all(
-                `SELECT event_id, image_url FROM event_photos
-                 WHERE event_id IN (${placeholders})
-                 ORDER BY created_at ASC`,
-                eventIds,
-                (err, photos) => {
-                    if (err) {
-                        console.error('Error fetching gallery photos:', err);
-                        return res.status(500).json({ error: 'Failed to fetch gallery photos' });
-                    }
+                // For each attended event, fetch all photos
+                const eventIds = events.map(e => e.id);
+                const placeholders = eventIds.map(() => '?').join(',');
+
+                db.all(
+                    `SELECT event_id, image_url FROM event_photos
+                     WHERE event_id IN (${placeholders})
+                     ORDER BY created_at ASC`,
+                    eventIds,
+                    (err, photos) => {
+                        if (err) {
+                            console.error('Error fetching gallery photos:', err);
+                            return resolve({ status: 500, body: { error: 'Failed to fetch gallery photos' } });
+                        }
 
-                    // Group photos by event_id
-                    const photosByEvent = {};
-                    for (const photo of photos) {
-                        if (!photosByEvent[photo.event_id]) {
-                            photosByEvent[photo.event_id] = [];
+                        // Group photos by event_id
+                        const photosByEvent = {};
+                        for (const photo of photos) {
+                            if (!photosByEvent[photo.event_id]) {
+                                photosByEvent[photo.event_id] = [];
+                            }
+                            photosByEvent[photo.event_id].push(photo.image_url);
                         }
-                        photosByEvent[photo.event_id].push(photo.image_url);
+
+                        // Build gallery response — include events even if they have no photos yet
+                        const galleries = events.map(event => ({
+                            eventId: event.id,
+                            title: event.title,
+                            eventType: event.eventType,
+                            time: event.time,
+                            location: event.location,
+                            imageUrls: photosByEvent[event.id] || []
+                        }));
+
+                        resolve({ status: 200, body: { success: true, galleries } });
                     }
+                );
+            }
+        );
+    });
+}
 
-                    // Build gallery response — include events even if they have no photos yet
-                    const galleries = events.map(event => ({
-                        eventId: event.id,
-                        title: event.title,
-                        eventType: event.eventType,
-                        time: event.time,
-                        location: event.location,
-                        imageUrls: photosByEvent[event.id] || []
-                    }));
-
-                    res.json({ success: true, galleries });
-                }
-            );
-        }
-    );
+app.get('/api/users/:userId/attended-galleries', (req, res) => {
+    getAttendedGalleries(req.params.userId).then((result) => sendResult(res, result));
 });
 
 // ==================== MESSAGING ROUTES ====================
@@ -865,54 +1265,202 @@ app.post('/api/messages/invite', (req, res) => {
 });
 
 // Send a text message
-app.post('/api/messages', (req, res) => {
-    const { sender_id, receiver_id, text } = req.body;
+function sendMessage(fields) {
+    const { sender_id, receiver_id, text } = fields || {};
 
     if (!sender_id || !receiver_id || !text) {
-        return res.status(400).json({ error: 'sender_id, receiver_id, and text are required' });
+        return Promise.resolve({
+            status: 400,
+            body: { error: 'sender_id, receiver_id, and text are required' }
+        });
     }
 
-    db.run(
-        'INSERT INTO messages (sender_id, receiver_id, text, type) VALUES (?, ?, ?, ?)',
-        [sender_id, receiver_id, text, 'text'],
-        function(err) {
+    return new Promise((resolve) => {
+        db.run(
+            'INSERT INTO messages (sender_id, receiver_id, text, type) VALUES (?, ?, ?, ?)',
+            [sender_id, receiver_id, text, 'text'],
+            function(err) {
+                if (err) {
+                    console.error('Error saving message:', err);
+                    return resolve({ status: 500, body: { error: 'Failed to send message' } });
+                }
+
+                resolve({
+                    status: 201,
+                    body: {
+                        success: true,
+                        messageId: this.lastID
+                    }
+                });
+            }
+        );
+    });
+}
+
+app.post('/api/messages', (req, res) => {
+    sendMessage(req.body).then((result) => sendResult(res, result));
+});
+
+// Apply a batch of queued offline mutations in order. Each one runs its route's logic with
+// its client request id as the idempotency key, so a resent batch never applies a mutation
+// twice. Processing stops at the first mutation that should be retried later; it and
+// everything after it come back with status 0 so the client keeps them queued in order.
+const OUTBOX_ROUTES = [
+    { method: 'PUT', pattern: /^events\/(\d+)$/, run: (match, body) => updateEvent(match[1], body) },
+    { method: 'POST', pattern: /^events\/(\d+)\/participants$/, run: (match, body) => changeParticipants(match[1], body) },
+    { method: 'POST', pattern: /^interactions$/, run: (match, body) => createInteraction(body) },
+    { method: 'POST', pattern: /^interactions\/batch$/, run: (match, body) => createInteractions(body) },
+    { method: 'POST', pattern: /^messages$/, run: (match, body) => sendMessage(body) },
+];
+const OUTBOX_MAX_BATCH = 50;
+
+// Run a write at most once per key, as the Idempotency-Key middleware does for HTTP requests
+function runIdempotent(key, action) {
+    return new Promise((resolve) => {
+        db.get('SELECT status, body FROM idempotency_keys WHERE key = ?', [key], (err, row) => {
             if (err) {
-                console.error('Error saving message:', err);
-                return res.status(500).json({ error: 'Failed to send message' });
+                console.error('Error reading idempotency key:', err);
+                return resolve({ status: 500, body: { error: 'Failed to check idempotency key' } });
+            }
+            if (row) {
+                return resolve({ status: row.status, body: JSON.parse(row.body) });
+            }
+            if (idempotencyInFlight.has(key)) {
+                return resolve({ status: 409, body: { error: 'A request with this Idempotency-Key is in progress' } });
             }
 
-            res.status(201).json({
-                success: true,
-                messageId: this.lastID
+            idempotencyInFlight.add(key);
+            action().then((result) => {
+                // Server errors are not stored, so the retry gets a real second attempt
+                if (result.status < 500) {
+                    storeIdempotentResponse(key, result.status, result.body, () => idempotencyInFlight.delete(key));
+                } else {
+                    idempotencyInFlight.delete(key);
+                }
+                resolve(result);
+            }, (err) => {
+                console.error('Error applying idempotent request:', err);
+                idempotencyInFlight.delete(key);
+                resolve({ status: 500, body: { error: 'Internal server error' } });
             });
+        });
+    });
+}
+
+function isRetryableStatus(status) {
+    return status >= 500 || status === 408 || status === 409 || status === 429;
+}
+
+app.post('/api/outbox/batch', async (req, res) => {
+    const mutations = req.body.mutations;
+    if (!Array.isArray(mutations) || mutations.length === 0) {
+        return res.status(400).json({ error: 'mutations must be a non-empty array' });
+    }
+    if (mutations.length > OUTBOX_MAX_BATCH) {
+        return res.status(400).json({ error: `At most ${OUTBOX_MAX_BATCH} mutations per batch` });
+    }
+
+    const results = [];
+    let blocked = false;
+    for (const mutation of mutations) {
+        const { id, method, path: apiPath, body } = mutation || {};
+        if (blocked) {
+            results.push({ id, status: 0 });
+            continue;
         }
-    );
+        const route = id && typeof apiPath === 'string' &&
+            OUTBOX_ROUTES.find((r) => r.method === method && r.pattern.test(apiPath));
+        if (!route) {
+            results.push({ id, status: 400, body: { error: 'Unsupported mutation' } });
+            continue;
+        }
+
+        try {
+            const match = apiPath.match(route.pattern);
+            const result = await runIdempotent(id, () => route.run(match, body));
+            results.push({ id, status: result.status, body: result.body });
+            blocked = isRetryableStatus(result.status);
+        } catch (err) {
+            console.error('Error applying outbox mutation:', err);
+            results.push({ id, status: 0 });
+            blocked = true;
+        }
+    }
+
+    res.json({ success: true, results });
+});
+
+// Run several reads in one round trip. Sub-requests are GETs against the routes below, run
+// concurrently through the routes' own logic, and answered together keyed by the caller's id.
+// A failing sub-request only fails its own entry.
+const COMPOSITE_ROUTES = [
+    { pattern: /^events\/(\d+)$/, run: (match) => getEvent(match[1]) },
+    { pattern: /^events\/(\d+)\/photos$/, run: (match) => getEventPhotos(match[1]) },
+    { pattern: /^users\/(\d+)$/, run: (match) => getUser(match[1]) },
+    { pattern: /^users\/(\d+)\/events$/, run: (match) => getUserEvents(match[1]) },
+    { pattern: /^users\/(\d+)\/attended-galleries$/, run: (match) => getAttendedGalleries(match[1]) },
+    { pattern: /^interactions\/(\d+)$/, run: (match) => getInteractions(match[1]) },
+    { pattern: /^messages\/(\d+)\/(\d+)$/, run: (match) => getConversation(match[1], match[2]) },
+];
+const COMPOSITE_MAX_REQUESTS = 10;
+
+app.post('/api/composite', async (req, res) => {
+    const requests = req.body.requests;
+    if (!Array.isArray(requests) || requests.length === 0) {
+        return res.status(400).json({ error: 'requests must be a non-empty array' });
+    }
+    if (requests.length > COMPOSITE_MAX_REQUESTS) {
+        return res.status(400).json({ error: `At most ${COMPOSITE_MAX_REQUESTS} requests per composite` });
+    }
+
+    const responses = {};
+    await Promise.all(requests.map(async (sub) => {
+        const { id, path: apiPath } = sub || {};
+        if (!id) return;
+        const route = typeof apiPath === 'string' && COMPOSITE_ROUTES.find((r) => r.pattern.test(apiPath));
+        if (!route) {
+            responses[id] = { status: 400, body: { error: 'Unsupported sub-request' } };
+            return;
+        }
+        try {
+            responses[id] = await route.run(apiPath.match(route.pattern));
+        } catch (err) {
+            console.error('Error running composite sub-request:', err);
+            responses[id] = { status: 502, body: { error: 'Sub-request failed' } };
+        }
+    }));
+
+    res.json({ success: true, responses });
 });
 
 // Get messages between two users (conversation thread)
-app.get('/api/messages/:userId/:otherUserId', (req, res) => {
-    const { userId, otherUserId } = req.params;
+function getConversation(userId, otherUserId) {
+    return new Promise((resolve) => {
+        db.all(
+            `SELECT m.*, e.title as event_title, e.time as event_time,
+                    e.location as event_location, e.eventType as event_type,
+                    e.currentParticipants as current_participants,
+                    e.maxParticipants as max_participants
+             FROM messages m
+             LEFT JOIN events e ON m.event_id = e.id
+             WHERE (m.sender_id = ? AND m.receiver_id = ?)
+                OR (m.sender_id = ? AND m.receiver_id = ?)
+             ORDER BY m.created_at ASC`,
+            [userId, otherUserId, otherUserId, userId],
+            (err, rows) => {
+                if (err) {
+                    console.error('Error fetching messages:', err);
+                    return resolve({ status: 500, body: { error: 'Failed to fetch messages' } });
+                }
 
-    db.all(
-        `SELECT m.*, e.title as event_title, e.time as event_time,
-                e.location as event_location, e.eventType as event_type,
-                e.currentParticipants as current_participants,
-                e.maxParticipants as max_participants
-         FROM messages m
-         LEFT JOIN events e ON m.event_id = e.id
-         WHERE (m.sender_id = ? AND m.receiver_id = ?)
-            OR (m.sender_id = ? AND m.receiver_id = ?)
-         ORDER BY m.created_at ASC`,
-        [userId, otherUserId, otherUserId, userId],
-        (err, rows) => {
-            if (err) {
-                console.error('Error fetching messages:', err);
-                return res.status(500).json({ error: 'Failed to fetch messages' });
+                resolve({ status: 200, body: { success: true, messages: rows } });
             }
+        );
+    });
+}
 
-            res.json({ success: true, messages: rows });
-        }
-    );
+app.get('/api/messages/:userId/:otherUserId', (req, res) => {
+    getConversation(req.params.userId, req.params.otherUserId).then((result) => sendResult(res, result));
 });
 
 // ==================== STATS ROUTES ====================
@@ -967,7 +1515,9 @@ app.listen(PORT, () => {
     console.log(`💾 Database: ${DB_PATH}`);
     console.log(`\n Available endpoints:`);
     console.log(`  GET    /api/health`);
-    console.log(`  GET    /api/events`);
+    console.log(`  GET    /api/events?cursor=&limit=`);
+    console.log(`  GET    /api/events/sync?since=&limit=`);
+    console.log(`  GET    /api/events/bbox?south=&west=&north=&east=&unlocated=`);
     console.log(`  GET    /api/events/:id`);
     console.log(`  GET    /api/events/nearby?latitude=&longitude=&radius=`);
     console.log(`  POST   /api/events`);
@@ -979,6 +1529,7 @@ app.listen(PORT, () => {
     console.log(`  PUT    /api/users/:id`);
     console.log(`  GET    /api/users/:userId/events`);
     console.log(`  POST   /api/interactions`);
+    console.log(`  POST   /api/interactions/batch`);
     console.log(`  GET    /api/interactions/:userId`);
     console.log(`  POST   /api/events/:id/photos`);
     console.log(`  GET    /api/events/:id/photos`);
@@ -986,6 +1537,8 @@ app.listen(PORT, () => {
     console.log(`  POST   /api/messages/invite`);
     console.log(`  POST   /api/messages`);
     console.log(`  GET    /api/messages/:userId/:otherUserId`);
+    console.log(`  POST   /api/outbox/batch`);
+    console.log(`  POST   /api/composite`);
     console.log(`  GET    /api/stats`);
     console.log(`  POST   /api/chatbot/chat`);
 });
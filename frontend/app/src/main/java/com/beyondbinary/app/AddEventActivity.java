@@ -3,8 +3,6 @@ package com.beyondbinary.app;
 import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
 import android.content.Intent;
-import android.location.Address;
-import android.location.Geocoder;
 import android.os.Bundle;
 import android.util.Log;
 import android.widget.ArrayAdapter;
@@ -18,19 +16,16 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.beyondbinary.app.api.ApiService;
 import com.beyondbinary.app.api.CreateEventResponse;
-import com.beyondbinary.app.api.CreateInteractionResponse;
 import com.beyondbinary.app.api.RetrofitClient;
+import com.beyondbinary.app.geocode.AddressGeocoder;
+import com.beyondbinary.app.geocode.Gazetteer;
+import com.beyondbinary.app.sync.EventSyncManager;
+import com.beyondbinary.app.sync.InteractionAggregator;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
-import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -43,7 +38,7 @@ public class AddEventActivity extends AppCompatActivity {
     // Form inputs
     private EditText inputTitle;
     private AutoCompleteTextView inputEventType;
-    private EditText inputLocation;
+    private AutoCompleteTextView inputLocation;
     private EditText inputDescription;
     private EditText inputDate;
     private EditText inputStartTime;
@@ -52,8 +47,7 @@ public class AddEventActivity extends AppCompatActivity {
     private View btnCreateEvent;
 
     // Utils
-    private Geocoder geocoder;
-    private ExecutorService executorService;
+    private AddressGeocoder addressGeocoder;
 
     // Date and time storage
     private Calendar selectedDate = Calendar.getInstance();
@@ -75,9 +69,8 @@ public class AddEventActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_add_event);
 
-        // Initialize geocoder and executor
-        geocoder = new Geocoder(this, Locale.getDefault());
-        executorService = Executors.newSingleThreadExecutor();
+        // Initialize geocoder
+        addressGeocoder = AddressGeocoder.getInstance(this);
 
         // Initialize form inputs
         inputTitle = findViewById(R.id.input_title);
@@ -100,6 +93,10 @@ public class AddEventActivity extends AppCompatActivity {
         inputEventType.setThreshold(0);
         inputEventType.setOnClickListener(v -> inputEventType.showDropDown());
 
+        // Setup location typeahead from the bundled place list
+        Gazetteer.getInstance(this).preload();
+        inputLocation.setAdapter(new PlaceSuggestionAdapter(this));
+
         // Setup date picker
         inputDate.setOnClickListener(v -> showDatePicker());
 
@@ -365,41 +362,29 @@ public class AddEventActivity extends AppCompatActivity {
                                        String description, String time,
                                        int currentParticipants, int maxParticipants) {
 
-        Toast.makeText(this, "Finding location...", Toast.LENGTH_SHORT).show();
-
-        executorService.execute(() -> {
-            try {
-                // Geocode the location
-                List<Address> addresses = geocoder.getFromLocationName(location, 1);
-
-                if (addresses != null && !addresses.isEmpty()) {
-                    Address address = addresses.get(0);
-                    double latitude = address.getLatitude();
-                    double longitude = address.getLongitude();
+        // Known places resolve offline, straight away
+        if (!addressGeocoder.resolvesOffline(location)) {
+            Toast.makeText(this, "Finding location...", Toast.LENGTH_SHORT).show();
+        }
 
-                    runOnUiThread(() -> {
-                        // Send to backend API
-                        postEventToBackend(title, eventType, location, description, time,
-                                currentParticipants, maxParticipants, latitude, longitude);
-                    });
+        addressGeocoder.geocode(location, (coordinates, error) -> {
+            if (coordinates != null) {
+                // Send to backend API
+                postEventToBackend(title, eventType, location, description, time,
+                        currentParticipants, maxParticipants, coordinates.latitude, coordinates.longitude);
 
-                } else {
-                    runOnUiThread(() -> {
-                        Toast.makeText(this,
-                                "Location not found. Please try a different location.",
-                                Toast.LENGTH_LONG).show();
-                        resetCreateButton();
-                    });
-                }
+            } else if (error == null) {
+                Toast.makeText(this,
+                        "Location not found. Please try a different location.",
+                        Toast.LENGTH_LONG).show();
+                resetCreateButton();
 
-            } catch (IOException e) {
-                Log.e(TAG, "Geocoding error: " + e.getMessage());
-                runOnUiThread(() -> {
-                    Toast.makeText(this,
-                            "Failed to find location. Check your internet connection.",
-                            Toast.LENGTH_LONG).show();
-                    resetCreateButton();
-                });
+            } else {
+                Log.e(TAG, "Geocoding error: " + error.getMessage());
+                Toast.makeText(this,
+                        "Failed to find location. Check your internet connection.",
+                        Toast.LENGTH_LONG).show();
+                resetCreateButton();
             }
         });
     }
@@ -435,26 +420,13 @@ public class AddEventActivity extends AppCompatActivity {
                 if (response.isSuccessful() && response.body() != null) {
                     CreateEventResponse createResponse = response.body();
                     Log.d(TAG, "Event created: " + createResponse.getMessage());
+                    RetrofitClient.invalidateEvents();
+                    EventSyncManager.getInstance(AddEventActivity.this).invalidate();
 
                     // Track "created" interaction
                     if (userId != -1) {
-                        Map<String, Object> interactionBody = new HashMap<>();
-                        interactionBody.put("user_id", userId);
-                        interactionBody.put("event_id", createResponse.getEventId());
-                        interactionBody.put("interaction_type", "created");
-
-                        apiService.createInteraction(interactionBody).enqueue(new Callback<CreateInteractionResponse>() {
-                            @Override
-                            public void onResponse(@NonNull Call<CreateInteractionResponse> c,
-                                                   @NonNull Response<CreateInteractionResponse> r) {
-                                Log.d(TAG, "Created interaction tracked");
-                            }
-
-                            @Override
-                            public void onFailure(@NonNull Call<CreateInteractionResponse> c, @NonNull Throwable t) {
-                                Log.e(TAG, "Failed to track created interaction", t);
-                            }
-                        });
+                        InteractionAggregator.getInstance(AddEventActivity.this)
+                                .record(userId, createResponse.getEventId(), "created", event.getEventType());
                     }
 
                     // Navigate to Event Created success screen
@@ -498,12 +470,4 @@ public class AddEventActivity extends AppCompatActivity {
         if (textView.getText() == null) return "";
         return textView.getText().toString().trim();
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (executorService != null) {
-            executorService.shutdown();
-        }
-    }
 }
@@ -2,10 +2,22 @@ package com.beyondbinary.app;
 
 import android.app.Application;
 
+import com.beyondbinary.app.api.RetrofitClient;
+import com.beyondbinary.app.sync.FeedPrecomputeWorker;
+import com.beyondbinary.app.sync.FeedSnapshot;
+import com.beyondbinary.app.sync.Outbox;
+
 public class BeyondBinaryApplication extends Application {
 
     @Override
     public void onCreate() {
         super.onCreate();
+        RetrofitClient.init(this);
+        // Pick up writes still queued from a previous run
+        Outbox.getInstance(this).scheduleDrain();
+        // Read the ranked feeds while the splash screen shows, so the home feed opens on them
+        int userId = getSharedPreferences("beyondbinary_prefs", MODE_PRIVATE).getInt("user_id", -1);
+        FeedSnapshot.getInstance(this).preload(userId);
+        FeedPrecomputeWorker.schedule(this);
     }
 }
@@ -1,9 +1,12 @@
 package com.beyondbinary.app;
 
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import java.util.List;
@@ -22,9 +25,42 @@ public interface EventDao {
     @Query("SELECT * FROM events")
     List<Event> getAllEvents();
 
+    // Same order the server lists events in (newest first)
+    @Query("SELECT * FROM events ORDER BY id DESC")
+    List<Event> getAllEventsNewestFirst();
+
+    // Home feed pages: newest first, without the user's own or already-joined events
+    @Query("SELECT * FROM events WHERE id NOT IN (:excludedIds) " +
+            "AND (creatorUserId IS NULL OR creatorUserId != :userId) ORDER BY id DESC")
+    PagingSource<Integer, Event> feedPagingSource(int userId, List<Integer> excludedIds);
+
     @Query("SELECT * FROM events WHERE id = :eventId")
     Event getEventById(int eventId);
 
+    @Query("SELECT * FROM events WHERE id IN (:eventIds)")
+    List<Event> getEventsByIds(List<Integer> eventIds);
+
     @Query("SELECT * FROM events WHERE eventType = :type")
     List<Event> getEventsByType(String type);
+
+    @Query("SELECT COUNT(*) FROM events")
+    int count();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertAll(List<Event> events);
+
+    @Query("DELETE FROM events WHERE id IN (:eventIds)")
+    void deleteByIds(List<Integer> eventIds);
+
+    @Query("DELETE FROM events")
+    void deleteAll();
+
+    // First page of a full sync: anything not in it no longer exists on the server
+    @Transaction
+    default void replaceAll(List<Event> events) {
+        deleteAll();
+        if (events != null && !events.isEmpty()) {
+            upsertAll(events);
+        }
+    }
 }
@@ -2,23 +2,71 @@ package com.beyondbinary.app;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
-@Database(entities = {Event.class}, version = 1, exportSchema = false)
+import com.beyondbinary.app.geocode.GeocodeCacheDao;
+import com.beyondbinary.app.geocode.GeocodedAddress;
+import com.beyondbinary.app.similarity.EventEmbedding;
+import com.beyondbinary.app.similarity.EventEmbeddingDao;
+import com.beyondbinary.app.sync.OutboxDao;
+import com.beyondbinary.app.sync.OutboxMutation;
+
+@Database(entities = {Event.class, OutboxMutation.class, EventEmbedding.class, GeocodedAddress.class},
+        version = 4, exportSchema = false)
 public abstract class EventDatabase extends RoomDatabase {
     private static EventDatabase instance;
 
     public abstract EventDao eventDao();
 
+    public abstract OutboxDao outboxDao();
+
+    public abstract EventEmbeddingDao embeddingDao();
+
+    public abstract GeocodeCacheDao geocodeCacheDao();
+
+    // Events are a cache the sync can rebuild, but queued writes must survive upgrades
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `outbox` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`requestId` TEXT NOT NULL, `method` TEXT, `path` TEXT, `body` TEXT, "
+                    + "`coalesceKey` TEXT, `createdAt` INTEGER NOT NULL, `attempts` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_outbox_coalesceKey` ON `outbox` (`coalesceKey`)");
+        }
+    };
+
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `event_embeddings` (`eventId` INTEGER NOT NULL, "
+                    + "`contentHash` INTEGER NOT NULL, `vector` BLOB NOT NULL, `scale` REAL NOT NULL, "
+                    + "PRIMARY KEY(`eventId`))");
+        }
+    };
+
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `geocode_cache` (`addressKey` TEXT NOT NULL, "
+                    + "`found` INTEGER NOT NULL, `latitude` REAL NOT NULL, `longitude` REAL NOT NULL, "
+                    + "`resolvedAt` INTEGER NOT NULL, PRIMARY KEY(`addressKey`))");
+        }
+    };
+
     public static synchronized EventDatabase getInstance(Context context) {
         if (instance == null) {
             instance = Room.databaseBuilder(
                     context.getApplicationContext(),
                     EventDatabase.class,
                     "event_database"
-            ).fallbackToDestructiveMigration().build();
+            ).addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4)
+                    .fallbackToDestructiveMigration()
+                    .build();
         }
         return instance;
     }
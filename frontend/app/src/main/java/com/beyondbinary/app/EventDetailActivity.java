@@ -13,23 +13,25 @@ import android.widget.Toast;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.beyondbinary.app.utils.EventCategoryHelper;
 import com.beyondbinary.app.api.ApiService;
-import com.beyondbinary.app.api.CreateInteractionResponse;
 import com.beyondbinary.app.api.DeleteEventResponse;
 import com.beyondbinary.app.api.EventResponse;
 import com.beyondbinary.app.api.RetrofitClient;
-import com.beyondbinary.app.api.UpdateEventResponse;
 import com.beyondbinary.app.api.UploadPhotoResponse;
+import com.beyondbinary.app.similarity.SimilarEvents;
+import com.beyondbinary.app.sync.EventSyncManager;
+import com.beyondbinary.app.sync.InteractionAggregator;
+import com.beyondbinary.app.sync.Outbox;
 import com.bumptech.glide.Glide;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Map;
 
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
@@ -40,6 +42,8 @@ import retrofit2.Response;
 
 public class EventDetailActivity extends AppCompatActivity {
 
+    private static final int SIMILAR_EVENTS_LIMIT = 8;
+
     private TextView titleText;
     private TextView typeText;
     private TextView emojiText;
@@ -62,6 +66,8 @@ public class EventDetailActivity extends AppCompatActivity {
     private ImageView eventPhoto;
     private View uploadPromptOverlay;
     private View btnUploadPhoto;
+    private View similarEventsContainer;
+    private RecyclerView similarEventsRecycler;
 
     private int eventId;
     private Event event;
@@ -116,6 +122,9 @@ public class EventDetailActivity extends AppCompatActivity {
         eventPhoto = findViewById(R.id.event_photo);
         uploadPromptOverlay = findViewById(R.id.upload_prompt_overlay);
         btnUploadPhoto = findViewById(R.id.btn_upload_photo);
+        similarEventsContainer = findViewById(R.id.similar_events_container);
+        similarEventsRecycler = findViewById(R.id.similar_events_recycler);
+        similarEventsRecycler.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
 
         btnUploadPhoto.setOnClickListener(v -> {
             uploadPromptOverlay.setVisibility(View.GONE);
@@ -157,6 +166,7 @@ public class EventDetailActivity extends AppCompatActivity {
                 if (response.isSuccessful() && response.body() != null) {
                     event = response.body().getEvent();
                     displayEventDetails();
+                    loadSimilarEvents();
                 } else {
                     Toast.makeText(EventDetailActivity.this, "Failed to load event details", Toast.LENGTH_SHORT).show();
                 }
@@ -230,6 +240,23 @@ public class EventDetailActivity extends AppCompatActivity {
         }
     }
 
+    // Matched on-device against the synced catalog, so the rail costs no extra request
+    private void loadSimilarEvents() {
+        SimilarEvents.getInstance(this).findSimilar(event, SIMILAR_EVENTS_LIMIT, similar -> {
+            if (isFinishing() || isDestroyed()) return;
+            if (similar.isEmpty()) {
+                similarEventsContainer.setVisibility(View.GONE);
+                return;
+            }
+            similarEventsRecycler.setAdapter(new SimilarEventAdapter(similar, similarEvent -> {
+                Intent intent = new Intent(this, EventDetailActivity.class);
+                intent.putExtra("EVENT_ID", similarEvent.getId());
+                startActivity(intent);
+            }));
+            similarEventsContainer.setVisibility(View.VISIBLE);
+        });
+    }
+
     private void joinEvent() {
         if (event.getCurrentParticipants() < event.getMaxParticipants()) {
             event.setCurrentParticipants(event.getCurrentParticipants() + 1);
@@ -240,28 +267,14 @@ public class EventDetailActivity extends AppCompatActivity {
             userHasJoined = true;
             displayEventDetails();
 
-            ApiService apiService = RetrofitClient.getApiService();
-            apiService.updateEvent(eventId, event).enqueue(new Callback<UpdateEventResponse>() {
-                @Override
-                public void onResponse(Call<UpdateEventResponse> call, Response<UpdateEventResponse> response) {}
-                @Override
-                public void onFailure(Call<UpdateEventResponse> call, Throwable t) {}
-            });
+            // Queued durably and retried until the server has it; OutboxWorker invalidates
+            // the cached event lists once it has been applied
+            Outbox.getInstance(this).changeParticipants(eventId, 1);
 
             android.content.SharedPreferences prefs = getSharedPreferences("beyondbinary_prefs", MODE_PRIVATE);
             int userId = prefs.getInt("user_id", -1);
             if (userId != -1) {
-                Map<String, Object> body = new HashMap<>();
-                body.put("user_id", userId);
-                body.put("event_id", eventId);
-                body.put("interaction_type", "joined");
-
-                apiService.createInteraction(body).enqueue(new Callback<CreateInteractionResponse>() {
-                    @Override
-                    public void onResponse(Call<CreateInteractionResponse> call, Response<CreateInteractionResponse> response) {}
-                    @Override
-                    public void onFailure(Call<CreateInteractionResponse> call, Throwable t) {}
-                });
+                InteractionAggregator.getInstance(this).record(userId, eventId, "joined");
             }
         }
     }
@@ -305,24 +318,12 @@ public class EventDetailActivity extends AppCompatActivity {
         }
 
         if (userId != -1) {
-            ApiService apiService = RetrofitClient.getApiService();
-            Map<String, Object> body = new HashMap<>();
-            body.put("user_id", userId);
-            body.put("event_id", eventId);
-            body.put("interaction_type", attended ? "attended" : "not_attended");
+            InteractionAggregator.getInstance(this)
+                    .record(userId, eventId, attended ? "attended" : "not_attended");
 
-            apiService.createInteraction(body).enqueue(new Callback<CreateInteractionResponse>() {
-                @Override
-                public void onResponse(Call<CreateInteractionResponse> call, Response<CreateInteractionResponse> response) {
-                    String message = attended ? "Marked as Attended" : "Marked as Not Attended";
-                    Toast.makeText(EventDetailActivity.this, message, Toast.LENGTH_SHORT).show();
-                    setResult(RESULT_OK);
-                }
-                @Override
-                public void onFailure(Call<CreateInteractionResponse> call, Throwable t) {
-                    Toast.makeText(EventDetailActivity.this, "Failed to update attendance", Toast.LENGTH_SHORT).show();
-                }
-            });
+            String message = attended ? "Marked as Attended" : "Marked as Not Attended";
+            Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+            setResult(RESULT_OK);
         }
     }
 
@@ -402,6 +403,10 @@ public class EventDetailActivity extends AppCompatActivity {
             apiService.deleteEvent(eventId).enqueue(new Callback<DeleteEventResponse>() {
                 @Override
                 public void onResponse(Call<DeleteEventResponse> call, Response<DeleteEventResponse> response) {
+                    if (response.isSuccessful()) {
+                        RetrofitClient.invalidateEvents();
+                        EventSyncManager.getInstance(EventDetailActivity.this).invalidate();
+                    }
                     Toast.makeText(EventDetailActivity.this, "Event cancelled successfully", Toast.LENGTH_SHORT).show();
                     setResult(RESULT_OK);
                     Intent intent = new Intent(EventDetailActivity.this, MainActivity.class);
@@ -419,44 +424,18 @@ public class EventDetailActivity extends AppCompatActivity {
             if (event.getCurrentParticipants() > 0) {
                 event.setCurrentParticipants(event.getCurrentParticipants() - 1);
 
-                apiService.updateEvent(eventId, event).enqueue(new Callback<UpdateEventResponse>() {
-                    @Override
-                    public void onResponse(Call<UpdateEventResponse> call, Response<UpdateEventResponse> response) {}
-                    @Override
-                    public void onFailure(Call<UpdateEventResponse> call, Throwable t) {}
-                });
-
+                Outbox.getInstance(this).changeParticipants(eventId, -1);
                 if (userId != -1) {
-                    Map<String, Object> body = new HashMap<>();
-                    body.put("user_id", userId);
-                    body.put("event_id", eventId);
-                    body.put("interaction_type", "left");
-
-                    apiService.createInteraction(body).enqueue(new Callback<CreateInteractionResponse>() {
-                        @Override
-                        public void onResponse(Call<CreateInteractionResponse> call, Response<CreateInteractionResponse> response) {
-                            Toast.makeText(EventDetailActivity.this, "Left event successfully", Toast.LENGTH_SHORT).show();
-                            setResult(RESULT_OK);
-                            Intent intent = new Intent(EventDetailActivity.this, MainActivity.class);
-                            intent.putExtra("OPEN_MY_EVENTS", true);
-                            intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
-                            startActivity(intent);
-                            finish();
-                        }
-                        @Override
-                        public void onFailure(Call<CreateInteractionResponse> call, Throwable t) {
-                            Toast.makeText(EventDetailActivity.this, "Failed to leave event", Toast.LENGTH_SHORT).show();
-                        }
-                    });
-                } else {
-                    Toast.makeText(this, "Left event successfully", Toast.LENGTH_SHORT).show();
-                    setResult(RESULT_OK);
-                    Intent intent = new Intent(EventDetailActivity.this, MainActivity.class);
-                    intent.putExtra("OPEN_MY_EVENTS", true);
-                    intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
-                    startActivity(intent);
-                    finish();
+                    InteractionAggregator.getInstance(this).record(userId, eventId, "left");
                 }
+
+                Toast.makeText(this, "Left event successfully", Toast.LENGTH_SHORT).show();
+                setResult(RESULT_OK);
+                Intent intent = new Intent(EventDetailActivity.this, MainActivity.class);
+                intent.putExtra("OPEN_MY_EVENTS", true);
+                intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
+                startActivity(intent);
+                finish();
             }
         }
     }
@@ -0,0 +1,114 @@
+package com.beyondbinary.app;
+
+import android.content.Context;
+
+import androidx.annotation.OptIn;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
+import androidx.paging.ExperimentalPagingApi;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+
+import com.beyondbinary.app.api.RetrofitClient;
+import com.beyondbinary.app.sync.EventRemoteMediator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds the paged event feeds. Before a ranking is ready, rows come from Room a page at a
+ * time and the remote mediator tops the table up from the cursor-paginated endpoint when the
+ * feed scrolls past it. Once ranked, only the ranked ids are held and rows are read from Room
+ * as they scroll into view.
+ */
+public class EventFeedPaging {
+
+    public static final int PAGE_SIZE = 20;
+
+    private static final ExecutorService MEDIATOR_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final ExecutorService ROW_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * The feed in default order, without the user's own events or {@code excludedEventIds}.
+     * The feed restarts without the new ids whenever {@code excludedEventIds} changes, so it
+     * can show before they are known.
+     */
+    public static LiveData<PagingData<Event>> feed(Context context, int userId,
+                                                   LiveData<? extends Collection<Integer>> excludedEventIds) {
+        Context appContext = context.getApplicationContext();
+        return Transformations.switchMap(excludedEventIds, ids -> feed(appContext, userId, ids));
+    }
+
+    @OptIn(markerClass = ExperimentalPagingApi.class)
+    public static LiveData<PagingData<Event>> feed(Context context, int userId,
+                                                   Collection<Integer> excludedEventIds) {
+        EventDao eventDao = EventDatabase.getInstance(context).eventDao();
+        ArrayList<Integer> excluded = new ArrayList<>(excludedEventIds);
+
+        Pager<Integer, Event> pager = new Pager<>(
+                new PagingConfig(PAGE_SIZE, PAGE_SIZE / 2, false),
+                null,
+                new EventRemoteMediator(RetrofitClient.getApiService(), eventDao,
+                        MEDIATOR_EXECUTOR, PAGE_SIZE),
+                () -> eventDao.feedPagingSource(userId, excluded));
+
+        return PagingLiveData.getLiveData(pager);
+    }
+
+    /** A ranked feed with no ranking yet; see {@link RankedFeed#setRanking}. */
+    public static RankedFeed ranked(Context context) {
+        return new RankedFeed(EventDatabase.getInstance(context).eventDao());
+    }
+
+    /**
+     * A feed read from Room in ranked order. It keeps one Pager for its whole life: a new
+     * ranking invalidates the current paging source rather than replacing the Pager, so the
+     * adapter diffs the new order against the rows on screen.
+     */
+    public static class RankedFeed {
+
+        private final EventDao eventDao;
+        private final LiveData<PagingData<Event>> pages;
+
+        private List<Integer> rankedIds = new ArrayList<>();
+        // Where the next source starts, or -1 to go by the previous source's refresh key
+        private int startPosition = -1;
+        private RankedEventPagingSource source;
+
+        private RankedFeed(EventDao eventDao) {
+            this.eventDao = eventDao;
+            Pager<Integer, Event> pager = new Pager<>(
+                    new PagingConfig(PAGE_SIZE, PAGE_SIZE / 2, false),
+                    null,
+                    this::newSource);
+            this.pages = PagingLiveData.getLiveData(pager);
+        }
+
+        public LiveData<PagingData<Event>> getPages() {
+            return pages;
+        }
+
+        /**
+         * Show a new ranking, starting around {@code firstEventId}, the event at the top of the
+         * screen (-1 for the top of the ranking), so the feed keeps its scroll position.
+         */
+        public synchronized void setRanking(List<Integer> rankedIds, int firstEventId) {
+            this.rankedIds = new ArrayList<>(rankedIds);
+            this.startPosition = Math.max(0, this.rankedIds.indexOf(firstEventId) - PAGE_SIZE);
+            if (source != null) {
+                source.invalidate();
+            }
+        }
+
+        private synchronized RankedEventPagingSource newSource() {
+            source = new RankedEventPagingSource(rankedIds, startPosition, eventDao, ROW_EXECUTOR);
+            startPosition = -1;
+            return source;
+        }
+    }
+}
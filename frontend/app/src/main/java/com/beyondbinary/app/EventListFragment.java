@@ -1,203 +1,57 @@
 package com.beyondbinary.app;
 
-import android.content.Intent;
-import android.content.SharedPreferences;
-import android.os.Bundle;
-import android.util.Log;
-import android.view.LayoutInflater;
-import android.view.View;
-import android.view.ViewGroup;
-import android.widget.ProgressBar;
-import android.widget.Toast;
-
-import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
-import androidx.fragment.app.Fragment;
-import androidx.recyclerview.widget.LinearLayoutManager;
-import androidx.recyclerview.widget.RecyclerView;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.paging.PagingData;
 
 import com.beyondbinary.app.agents.EventRankingAgent;
-import com.beyondbinary.app.api.ApiService;
-import com.beyondbinary.app.api.EventsResponse;
-import com.beyondbinary.app.api.RetrofitClient;
-import com.beyondbinary.app.api.UserEventsResponse;
-import com.beyondbinary.app.data.database.AppDatabaseHelper;
-import com.beyondbinary.app.data.models.User;
+import com.beyondbinary.app.sync.FeedSnapshot;
 
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
-public class EventListFragment extends Fragment {
+public class EventListFragment extends RankedFeedFragment {
 
     private static final String TAG = "EventListFragment";
 
-    private RecyclerView recyclerView;
-    private ProgressBar progressBar;
-    private EventListAdapter adapter;
-    private List<Event> events = new ArrayList<>();
-    private Set<Integer> userEventIds = new HashSet<>(); // Events user has joined or created
+    // Events user has joined or created; the default-order feed hides them once they are known
+    private final MutableLiveData<Set<Integer>> userEventIds = new MutableLiveData<>(new HashSet<>());
 
-    @Nullable
     @Override
-    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
-        View view = inflater.inflate(R.layout.fragment_event_list, container, false);
-
-        recyclerView = view.findViewById(R.id.events_recycler_view);
-        progressBar = view.findViewById(R.id.progress_bar);
-        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-
-        adapter = new EventListAdapter(events, event -> {
-            Intent intent = new Intent(getActivity(), EventDetailActivity.class);
-            intent.putExtra("EVENT_ID", event.getId());
-            startActivity(intent);
-        });
-
-        recyclerView.setAdapter(adapter);
-
-        loadEvents();
-
-        return view;
+    protected String snapshotKey() {
+        return FeedSnapshot.DISCOVER;
     }
 
-    private void loadEvents() {
-        progressBar.setVisibility(View.VISIBLE);
-
-        SharedPreferences prefs = requireContext()
-                .getSharedPreferences("beyondbinary_prefs", android.content.Context.MODE_PRIVATE);
-        int userId = prefs.getInt("user_id", -1);
-
-        // First, load user's events (events they've joined or created)
-        if (userId != -1) {
-            ApiService apiService = RetrofitClient.getApiService();
-            apiService.getUserEvents(userId).enqueue(new Callback<UserEventsResponse>() {
-                @Override
-                public void onResponse(Call<UserEventsResponse> call, Response<UserEventsResponse> response) {
-                    if (response.isSuccessful() && response.body() != null) {
-                        List<UserEventsResponse.UserEvent> userEvents = response.body().getEvents();
-                        if (userEvents != null) {
-                            for (UserEventsResponse.UserEvent event : userEvents) {
-                                userEventIds.add(event.getId());
-                            }
-                        }
-                    }
-                    // After loading user events, load all events
-                    loadAllEvents();
-                }
-
-                @Override
-                public void onFailure(Call<UserEventsResponse> call, Throwable t) {
-                    // Even if user events fail to load, still show all events
-                    loadAllEvents();
-                }
-            });
-        } else {
-            loadAllEvents();
-        }
+    @Override
+    protected LiveData<PagingData<Event>> previewFeed(int userId) {
+        return EventFeedPaging.feed(requireContext(), userId, userEventIds);
     }
 
-    private void loadAllEvents() {
-        ApiService apiService = RetrofitClient.getApiService();
-        Call<EventsResponse> call = apiService.getAllEvents();
-
-        call.enqueue(new Callback<EventsResponse>() {
+    @Override
+    protected void loadFeed(int userId, boolean quiet) {
+        // Sync the catalog (shared with the other tab), fetch the user's own events and read
+        // the profile all at once rather than one after another
+        FeedLoader.load(requireContext(), getViewLifecycleOwner(), userId, true, new FeedLoader.Callback() {
             @Override
-            public void onResponse(Call<EventsResponse> call, Response<EventsResponse> response) {
-                if (!isAdded()) return;
-
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Event> allEvents = response.body().getEvents();
-
-                    // Check if events list is null or empty
-                    if (allEvents == null || allEvents.isEmpty()) {
-                        progressBar.setVisibility(View.GONE);
-                        Toast.makeText(getContext(), "No events available", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
-
-                    // Filter out events user has joined or created
-                    List<Event> filteredEvents = filterUserEvents(allEvents);
-
-                    rankWithAI(filteredEvents);
-                } else {
-                    progressBar.setVisibility(View.GONE);
-                    Toast.makeText(getContext(), "Failed to load events", Toast.LENGTH_SHORT).show();
-                }
+            public void onUserEvents(Set<Integer> ids) {
+                userEventIds.setValue(ids);
             }
 
             @Override
-            public void onFailure(Call<EventsResponse> call, Throwable t) {
+            public void onLoaded(FeedLoader.Result result) {
                 if (!isAdded()) return;
-                progressBar.setVisibility(View.GONE);
-                Toast.makeText(getContext(), "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        });
-    }
-
-    private List<Event> filterUserEvents(List<Event> allEvents) {
-        if (allEvents == null) {
-            return new ArrayList<>();
-        }
-
-        SharedPreferences prefs = requireContext()
-                .getSharedPreferences("beyondbinary_prefs", android.content.Context.MODE_PRIVATE);
-        int userId = prefs.getInt("user_id", -1);
 
-        List<Event> filteredEvents = new ArrayList<>();
-        for (Event event : allEvents) {
-            if (event == null) continue;
-
-            // Filter out if user created this event OR user has joined this event
-            boolean isCreator = (userId != -1 && event.getCreatorUserId() != null && event.getCreatorUserId() == userId);
-            boolean hasJoined = userEventIds.contains(event.getId());
+                // Check if events list is null or empty
+                if (result.events.isEmpty()) {
+                    showNoEvents(result.syncError, quiet, "No events available");
+                    return;
+                }
 
-            if (!isCreator && !hasJoined) {
-                filteredEvents.add(event);
+                // Filter, score locally, then let Gemini refine; the local order renders first
+                EventRankingAgent.discover(requireContext(), userId, result.userEventIds, result.events)
+                        .run(result.user, result.events, getViewLifecycleOwner(),
+                                rankingListener(userId, quiet, "Ranked by AI based on your preferences"));
             }
-        }
-        return filteredEvents;
-    }
-
-    private void rankWithAI(List<Event> allEvents) {
-        SharedPreferences prefs = requireContext()
-                .getSharedPreferences("beyondbinary_prefs", android.content.Context.MODE_PRIVATE);
-        int userId = prefs.getInt("user_id", -1);
-        Log.i(TAG, "rankWithAI: userId from prefs = " + userId);
-
-        AppDatabaseHelper db = AppDatabaseHelper.getInstance(requireContext());
-        User user = (userId != -1) ? db.getUserById(userId) : null;
-        Log.i(TAG, "rankWithAI: user found = " + (user != null) +
-                ", bio = " + (user != null ? ("'" + user.getBio() + "'") : "N/A"));
-
-        if (user != null && user.getBio() != null && !user.getBio().isEmpty()) {
-            Log.i(TAG, "rankWithAI: Calling Gemini for AI ranking...");
-            String apiKey = BuildConfig.GEMINI_API_KEY;
-            EventRankingAgent agent = new EventRankingAgent(apiKey);
-
-            agent.rankEvents(user, allEvents, rankedEvents -> {
-                if (isAdded()) {
-                    requireActivity().runOnUiThread(() -> {
-                        events.clear();
-                        events.addAll(rankedEvents);
-                        adapter.notifyDataSetChanged();
-                        progressBar.setVisibility(View.GONE);
-                        Toast.makeText(getContext(), "Ranked by AI based on your preferences", Toast.LENGTH_SHORT).show();
-                        Log.i(TAG, "rankWithAI: AI-ranked events displayed");
-                    });
-                }
-            });
-        } else {
-            Log.w(TAG, "rankWithAI: No bio found — showing default order");
-            // No user profile — show events in default order
-            events.clear();
-            events.addAll(allEvents);
-            adapter.notifyDataSetChanged();
-            progressBar.setVisibility(View.GONE);
-        }
+        });
     }
 }
@@ -0,0 +1,59 @@
+package com.beyondbinary.app;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.Objects;
+
+/**
+ * Paged counterpart of {@link EventListAdapter}: same card, but rows are bound as pages
+ * arrive instead of from a list holding the whole catalog.
+ */
+public class EventPagingAdapter extends PagingDataAdapter<Event, EventListAdapter.EventViewHolder> {
+
+    private final EventListAdapter.OnEventClickListener listener;
+
+    private static final DiffUtil.ItemCallback<Event> DIFF_CALLBACK = new DiffUtil.ItemCallback<Event>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Event oldItem, @NonNull Event newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Event oldItem, @NonNull Event newItem) {
+            return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                    && Objects.equals(oldItem.getLocation(), newItem.getLocation())
+                    && Objects.equals(oldItem.getTime(), newItem.getTime())
+                    && Objects.equals(oldItem.getEventType(), newItem.getEventType())
+                    && oldItem.getCurrentParticipants() == newItem.getCurrentParticipants()
+                    && oldItem.getMaxParticipants() == newItem.getMaxParticipants();
+        }
+    };
+
+    public EventPagingAdapter(EventListAdapter.OnEventClickListener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public EventListAdapter.EventViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_event_list, parent, false);
+        return new EventListAdapter.EventViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull EventListAdapter.EventViewHolder holder, int position) {
+        // The feeds page without placeholders, so every position holds a row
+        Event event = getItem(position);
+        if (event != null) {
+            holder.bind(event, listener, position);
+        }
+    }
+}
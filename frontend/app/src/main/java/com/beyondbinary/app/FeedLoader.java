@@ -0,0 +1,186 @@
+package com.beyondbinary.app;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.beyondbinary.app.agents.InterestProfile;
+import com.beyondbinary.app.api.ApiService;
+import com.beyondbinary.app.api.RetrofitClient;
+import com.beyondbinary.app.api.UserEventsResponse;
+import com.beyondbinary.app.data.database.AppDatabaseHelper;
+import com.beyondbinary.app.data.models.User;
+import com.beyondbinary.app.sync.EventSyncManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Starts everything a feed needs at once (event sync, the user's own events, the local
+ * profile) and delivers them together, so time to first ranked feed is the slowest fetch
+ * rather than the sum of all of them. The first time a user is seen, their interaction
+ * history is fetched alongside to seed their {@link InterestProfile}, whichever feed they
+ * open.
+ *
+ * The load is bound to a lifecycle: when it is destroyed, in-flight calls are cancelled and
+ * nothing is delivered.
+ */
+public class FeedLoader implements DefaultLifecycleObserver {
+
+    private static final String TAG = "FeedLoader";
+
+    private static final ExecutorService DB_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /** Everything fetched for a feed. Parts that failed to load are empty, never null. */
+    public static class Result {
+        public List<Event> events = new ArrayList<>();
+        public Throwable syncError;
+        public Set<Integer> userEventIds = new HashSet<>();
+        public User user;
+    }
+
+    public interface Callback {
+        /** Called on the main thread once every part has finished. */
+        void onLoaded(Result result);
+
+        /**
+         * Called on the main thread as soon as the ids of the user's own events are in, so a
+         * feed shown meanwhile can hide them. Only when they were asked for; may come after
+         * {@link #onLoaded}.
+         */
+        default void onUserEvents(Set<Integer> userEventIds) {}
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Call<?>> calls = new ArrayList<>();
+    private final List<CompletableFuture<?>> parts = new ArrayList<>();
+    private LifecycleOwner owner;
+    private volatile boolean cancelled = false;
+
+    private FeedLoader() {}
+
+    /**
+     * Load a feed for {@code userId} (-1 when signed out).
+     *
+     * @param withUserEvents also fetch the ids of events the user created or joined
+     */
+    public static FeedLoader load(Context context, LifecycleOwner owner, int userId,
+                                  boolean withUserEvents, Callback callback) {
+        FeedLoader loader = new FeedLoader();
+        loader.owner = owner;
+        loader.start(context.getApplicationContext(), userId, withUserEvents, callback);
+        owner.getLifecycle().addObserver(loader);
+        return loader;
+    }
+
+    private void start(Context context, int userId, boolean withUserEvents, Callback callback) {
+        Result result = new Result();
+        boolean signedIn = userId != -1;
+        ApiService apiService = RetrofitClient.getApiService();
+
+        CompletableFuture<Void> events = new CompletableFuture<>();
+        EventSyncManager.getInstance(context).syncAndLoad((loaded, syncError) -> {
+            if (loaded != null) result.events = loaded;
+            result.syncError = syncError;
+            events.complete(null);
+        });
+        parts.add(events);
+
+        if (signedIn && withUserEvents) {
+            CompletableFuture<Void> userEvents = enqueue(apiService.getUserEvents(userId), body -> {
+                if (body.getEvents() == null) return;
+                for (UserEventsResponse.UserEvent event : body.getEvents()) {
+                    result.userEventIds.add(event.getId());
+                }
+            });
+            userEvents.thenRun(() -> mainHandler.post(() -> {
+                if (!cancelled) callback.onUserEvents(new HashSet<>(result.userEventIds));
+            }));
+            parts.add(userEvents);
+        }
+
+        // Seeding is queued before the callback, so the ranking's profile read already sees
+        // it. If the history fails to load, the next feed tries again
+        InterestProfile interests = InterestProfile.getInstance(context);
+        if (signedIn && !interests.isSeeded(userId)) {
+            parts.add(enqueue(apiService.getUserInteractions(userId), body -> {
+                if (body.getInteractions() != null) interests.seed(userId, body.getInteractions());
+            }));
+        }
+
+        if (signedIn) {
+            parts.add(CompletableFuture.runAsync(() ->
+                    result.user = AppDatabaseHelper.getInstance(context).getUserById(userId), DB_EXECUTOR));
+        }
+
+        CompletableFuture.allOf(parts.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> mainHandler.post(() -> {
+                    if (cancelled) return;
+                    owner.getLifecycle().removeObserver(this);
+                    if (error != null) {
+                        Log.w(TAG, "Feed part failed, continuing with what loaded", error);
+                    }
+                    callback.onLoaded(result);
+                }));
+    }
+
+    private interface BodyHandler<T> {
+        void onBody(T body);
+    }
+
+    /** A Retrofit call as a future that always completes normally; failures leave defaults. */
+    private <T> CompletableFuture<Void> enqueue(Call<T> call, BodyHandler<T> handler) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        calls.add(call);
+        call.enqueue(new retrofit2.Callback<T>() {
+            @Override
+            public void onResponse(@NonNull Call<T> c, @NonNull Response<T> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    handler.onBody(response.body());
+                } else {
+                    Log.w(TAG, c.request().url() + " failed: HTTP " + response.code());
+                }
+                future.complete(null);
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<T> c, @NonNull Throwable t) {
+                if (!c.isCanceled()) {
+                    Log.w(TAG, c.request().url() + " failed", t);
+                }
+                future.complete(null);
+            }
+        });
+        return future;
+    }
+
+    /** Stop every part still running; the callback will not be called. */
+    public void cancel() {
+        cancelled = true;
+        for (Call<?> call : calls) {
+            call.cancel();
+        }
+        for (CompletableFuture<?> part : parts) {
+            part.cancel(true);
+        }
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+        cancel();
+    }
+}
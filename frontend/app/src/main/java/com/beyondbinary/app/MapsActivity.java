@@ -1,13 +1,6 @@
 package com.beyondbinary.app;
 
 import android.content.Intent;
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.Typeface;
-import android.location.Address;
-import android.location.Geocoder;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -22,26 +15,27 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.beyondbinary.app.api.ApiService;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.beyondbinary.app.api.EventResponse;
 import com.beyondbinary.app.api.EventsResponse;
 import com.beyondbinary.app.api.RetrofitClient;
+import com.beyondbinary.app.geocode.AddressGeocoder;
+import com.beyondbinary.app.map.EventClusterEngine;
+import com.beyondbinary.app.map.EventClusterManager;
+import com.beyondbinary.app.map.EventSpatialIndex;
+import com.beyondbinary.app.map.NearbyEvents;
+import com.beyondbinary.app.map.ViewportEventLoader;
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
-import com.google.android.gms.maps.model.BitmapDescriptor;
-import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.MapStyleOptions;
 import com.google.android.gms.maps.model.Marker;
-import com.google.android.gms.maps.model.MarkerOptions;
 
-import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -51,16 +45,17 @@ public class MapsActivity extends AppCompatActivity implements OnMapReadyCallbac
 
     private static final String TAG = "MapsActivity";
     private static final int SEARCH_RADIUS_KM = 50; // Search radius in kilometers
+    // Shown instead when nothing is within the radius
+    private static final int NEAREST_FALLBACK_COUNT = 5;
 
     private GoogleMap mMap;
-    private EventDatabase eventDatabase;
-    private Geocoder geocoder;
-    private ExecutorService executorService;
-    private Map<Marker, Event> markerEventMap;
+    private AddressGeocoder addressGeocoder;
+    private EventClusterManager clusterManager;
+    private ViewportEventLoader viewportLoader;
+    private NearbyEvents nearbyEvents;
 
     // Target event to focus on when opening map
     private int targetEventId = -1;
-    private Marker targetMarker = null;
 
     // UI elements
     private EditText searchLocationInput;
@@ -170,11 +165,9 @@ public class MapsActivity extends AppCompatActivity implements OnMapReadyCallbac
         // Check if we should focus on a specific event
         targetEventId = getIntent().getIntExtra("EVENT_ID", -1);
 
-        // Initialize database and geocoder
-        eventDatabase = EventDatabase.getInstance(this);
-        geocoder = new Geocoder(this, Locale.getDefault());
-        executorService = Executors.newSingleThreadExecutor();
-        markerEventMap = new HashMap<>();
+        // Initialize geocoder
+        addressGeocoder = AddressGeocoder.getInstance(this);
+        nearbyEvents = NearbyEvents.getInstance(this);
 
         // Note: Sample data now loaded from backend API, not local database
         // SampleDataHelper.populateSampleEvents(this); // Commented out - using backend API
@@ -237,18 +230,58 @@ public class MapsActivity extends AppCompatActivity implements OnMapReadyCallbac
         mMap.getUiSettings().setZoomControlsEnabled(true);
         mMap.getUiSettings().setCompassEnabled(true);
 
+        // Events are drawn as clusters, re-clustered off the main thread whenever the camera stops
+        clusterManager = new EventClusterManager(mMap);
+        clusterManager.setOnRenderedListener(this::showTargetEventIfRendered);
+
+        // Events are loaded for the visible area as the camera moves, unless a search is shown
+        viewportLoader = new ViewportEventLoader(new ViewportEventLoader.Listener() {
+            @Override
+            public void onEvents(List<Event> events) {
+                nearbyEvents.remember(events);
+                for (Event event : events) {
+                    processAndAddEventMarker(event);
+                }
+            }
+
+            @Override
+            public void onEvicted(List<Integer> eventIds) {
+                clusterManager.remove(eventIds);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                Log.e(TAG, "Error loading events from API: " + t.getMessage());
+                Toast.makeText(MapsActivity.this,
+                        "Error connecting to server. Make sure backend is running.",
+                        Toast.LENGTH_LONG).show();
+            }
+        });
+
+        mMap.setOnCameraIdleListener(() -> {
+            clusterManager.onCameraIdle();
+            if (!isFiltered) {
+                viewportLoader.onCameraIdle(mMap.getCameraPosition().zoom,
+                        mMap.getProjection().getVisibleRegion().latLngBounds);
+            }
+        });
+
         // Set custom info window adapter
         mMap.setInfoWindowAdapter(new CustomInfoWindowAdapter());
 
-        // Set up marker click listener to show info window on SINGLE click
+        // Set up marker click listener: zoom into clusters, show info window on SINGLE click
         mMap.setOnMarkerClickListener(marker -> {
-            marker.showInfoWindow();
+            if (clusterManager.isCluster(marker)) {
+                clusterManager.zoomInto(marker);
+            } else {
+                marker.showInfoWindow();
+            }
             return true; // Consume the event
         });
 
         // Set up info window click listener to view event details
         mMap.setOnInfoWindowClickListener(marker -> {
-            Event event = markerEventMap.get(marker);
+            Event event = clusterManager.eventFor(marker);
             if (event != null) {
                 Intent intent = new Intent(MapsActivity.this, EventDetailActivity.class);
                 intent.putExtra("EVENT_ID", event.getId());
@@ -268,52 +301,28 @@ public class MapsActivity extends AppCompatActivity implements OnMapReadyCallbac
     }
 
     /**
-     * Main function to load events from backend API and display them on the map with emoji markers
+     * Load events for the visible part of the map; the rest load as the camera moves.
+     * If the map was opened on an event, fetch that one first and move the camera to it.
      */
     private void loadEventsAndDisplayOnMap() {
-        // Show loading message
-        Toast.makeText(this, "Loading events from server...", Toast.LENGTH_SHORT).show();
-
-        // Fetch events from backend API
-        ApiService apiService = RetrofitClient.getApiService();
-        Call<EventsResponse> call = apiService.getAllEvents();
-
-        call.enqueue(new Callback<EventsResponse>() {
-            @Override
-            public void onResponse(@NonNull Call<EventsResponse> call,
-                                   @NonNull Response<EventsResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    EventsResponse eventsResponse = response.body();
-                    List<Event> events = eventsResponse.getEvents();
-
-                    Log.d(TAG, "Loaded " + events.size() + " events from API");
-                    Toast.makeText(MapsActivity.this,
-                            "Loaded " + events.size() + " events",
-                            Toast.LENGTH_SHORT).show();
-
-                    // Process each event and add to map
-                    for (Event event : events) {
-                        processAndAddEventMarker(event);
+        viewportLoader.reload();
+
+        if (targetEventId != -1) {
+            RetrofitClient.getApiService().getEventById(targetEventId).enqueue(new Callback<EventResponse>() {
+                @Override
+                public void onResponse(@NonNull Call<EventResponse> call,
+                                       @NonNull Response<EventResponse> response) {
+                    if (response.isSuccessful() && response.body() != null && response.body().getEvent() != null) {
+                        processAndAddEventMarker(response.body().getEvent());
                     }
-                } else {
-                    Log.e(TAG, "API response unsuccessful: " + response.code());
-                    Toast.makeText(MapsActivity.this,
-                            "Failed to load events: " + response.code(),
-                            Toast.LENGTH_LONG).show();
                 }
-            }
-
-            @Override
-            public void onFailure(@NonNull Call<EventsResponse> call, @NonNull Throwable t) {
-                Log.e(TAG, "Error loading events from API: " + t.getMessage());
-                Toast.makeText(MapsActivity.this,
-                        "Error connecting to server. Make sure backend is running.",
-                        Toast.LENGTH_LONG).show();
 
-                // Optionally: Fall back to local database
-                // loadEventsFromLocalDatabase();
-            }
-        });
+                @Override
+                public void onFailure(@NonNull Call<EventResponse> call, @NonNull Throwable t) {
+                    Log.e(TAG, "Error loading target event: " + t.getMessage());
+                }
+            });
+        }
     }
 
     /**
@@ -330,111 +339,46 @@ public class MapsActivity extends AppCompatActivity implements OnMapReadyCallbac
     }
 
     /**
-     * Geocode an event's address to get latitude and longitude
+     * Geocode an event's address to get latitude and longitude. Lookups run in parallel and
+     * come from the geocode cache when the address was seen before.
      */
     private void geocodeEventLocation(Event event) {
-        executorService.execute(() -> {
-            try {
-                List<Address> addresses = geocoder.getFromLocationName(event.getLocation(), 1);
-
-                if (addresses != null && !addresses.isEmpty()) {
-                    Address address = addresses.get(0);
-                    double latitude = address.getLatitude();
-                    double longitude = address.getLongitude();
-
-                    // Update event with coordinates
-                    event.setLatitude(latitude);
-                    event.setLongitude(longitude);
-
-                    // Save coordinates to database for future use
-                    eventDatabase.eventDao().update(event);
-
-                    // Add marker on main thread
-                    runOnUiThread(() -> addEmojiMarkerToMap(event));
-                } else {
-                    Log.w(TAG, "Geocoding failed for location: " + event.getLocation());
-                }
-
-            } catch (IOException e) {
-                Log.e(TAG, "Geocoding error: " + e.getMessage());
-            }
+        addressGeocoder.geocodeEvent(event, geocoded -> {
+            nearbyEvents.remember(Collections.singletonList(geocoded));
+            addEmojiMarkerToMap(geocoded);
         });
     }
 
     /**
-     * Add an emoji marker to the map for the given event
+     * Add the given event to the clustered emoji markers on the map
      */
     private void addEmojiMarkerToMap(Event event) {
         if (event.getLatitude() == null || event.getLongitude() == null) {
             return;
         }
 
-        LatLng position = new LatLng(event.getLatitude(), event.getLongitude());
-
         // Get emoji for event type
         String emoji = eventTypeEmojis.getOrDefault(event.getEventType(), "📍");
+        clusterManager.add(event, emoji);
 
-        // Create custom bitmap with emoji
-        BitmapDescriptor icon = createEmojiMarkerIcon(emoji);
-
-        // Add marker to map
-        Marker marker = mMap.addMarker(new MarkerOptions()
-                .position(position)
-                .title(event.getTitle())
-                .icon(icon)
-                .infoWindowAnchor(0.5f, 0.9f)); // Position info window closer to marker
-
-        // Store event reference for info window
-        if (marker != null) {
-            markerEventMap.put(marker, event);
-
-            // Check if this is the target event we should focus on
-            if (targetEventId != -1 && event.getId() == targetEventId) {
-                targetMarker = marker;
-                // Zoom to this marker and show info window
-                mMap.animateCamera(CameraUpdateFactory.newLatLngZoom(position, 15f));
-                marker.showInfoWindow();
-            }
+        // Check if this is the target event we should focus on
+        if (targetEventId != -1 && event.getId() == targetEventId) {
+            // Zoom past clustering so the event gets its own marker, then show its info window
+            LatLng position = new LatLng(event.getLatitude(), event.getLongitude());
+            mMap.animateCamera(CameraUpdateFactory.newLatLngZoom(position, EventClusterEngine.MAX_CLUSTER_ZOOM + 1));
         }
     }
 
     /**
-     * Create a custom marker icon with emoji
+     * Show the target event's info window once its marker is on the map
      */
-    private BitmapDescriptor createEmojiMarkerIcon(String emoji) {
-        int size = 100;
-        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
-
-        // Draw white circle background
-        Paint backgroundPaint = new Paint();
-        backgroundPaint.setColor(Color.WHITE);
-        backgroundPaint.setStyle(Paint.Style.FILL);
-        backgroundPaint.setAntiAlias(true);
-        canvas.drawCircle(size / 2f, size / 2f, size / 2f - 3, backgroundPaint);
-
-        // Draw subtle border
-        Paint borderPaint = new Paint();
-        borderPaint.setColor(Color.parseColor("#E0E0E0"));
-        borderPaint.setStyle(Paint.Style.STROKE);
-        borderPaint.setStrokeWidth(2);
-        borderPaint.setAntiAlias(true);
-        canvas.drawCircle(size / 2f, size / 2f, size / 2f - 3, borderPaint);
-
-        // Draw emoji
-        Paint textPaint = new Paint();
-        textPaint.setTextSize(50);
-        textPaint.setTextAlign(Paint.Align.CENTER);
-        textPaint.setTypeface(Typeface.DEFAULT);
-        textPaint.setAntiAlias(true);
-
-        Paint.FontMetrics fontMetrics = textPaint.getFontMetrics();
-        float textHeight = fontMetrics.bottom - fontMetrics.top;
-        float textOffset = (textHeight / 2) - fontMetrics.bottom;
-
-        canvas.drawText(emoji, size / 2f, (size / 2f) + textOffset, textPaint);
-
-        return BitmapDescriptorFactory.fromBitmap(bitmap);
+    private void showTargetEventIfRendered() {
+        if (targetEventId == -1) return;
+        Marker marker = clusterManager.markerFor(targetEventId);
+        if (marker != null) {
+            marker.showInfoWindow();
+            targetEventId = -1;
+        }
     }
 
     /**
@@ -452,7 +396,7 @@ public class MapsActivity extends AppCompatActivity implements OnMapReadyCallbac
             View view = LayoutInflater.from(MapsActivity.this)
                     .inflate(R.layout.custom_info_window, null);
 
-            Event event = markerEventMap.get(marker);
+            Event event = clusterManager.eventFor(marker);
             if (event == null) return view;
 
             // Get the emoji for this event type
@@ -493,56 +437,83 @@ public class MapsActivity extends AppCompatActivity implements OnMapReadyCallbac
         // Show loading message
         Toast.makeText(this, "Searching for: " + locationQuery, Toast.LENGTH_SHORT).show();
 
-        executorService.execute(() -> {
-            try {
-                // Geocode the search query
-                List<Address> addresses = geocoder.getFromLocationName(locationQuery, 1);
-
-                if (addresses != null && !addresses.isEmpty()) {
-                    Address address = addresses.get(0);
-                    searchedLocation = new LatLng(address.getLatitude(), address.getLongitude());
+        addressGeocoder.geocode(locationQuery, (coordinates, error) -> {
+            if (coordinates != null) {
+                searchedLocation = new LatLng(coordinates.latitude, coordinates.longitude);
 
-                    runOnUiThread(() -> {
-                        // Move camera to searched location
-                        mMap.animateCamera(CameraUpdateFactory.newLatLngZoom(searchedLocation, 13));
+                // Move camera to searched location
+                mMap.animateCamera(CameraUpdateFactory.newLatLngZoom(searchedLocation, 13));
 
-                        // Filter and show only nearby events
-                        filterEventsByLocation(searchedLocation);
+                // Filter and show only nearby events
+                filterEventsByLocation(searchedLocation);
 
-                        // Show the "Show All Events" button
-                        showAllButton.setVisibility(View.VISIBLE);
-                        isFiltered = true;
+                // Show the "Show All Events" button
+                showAllButton.setVisibility(View.VISIBLE);
+                isFiltered = true;
 
-                        Toast.makeText(this, "Found events near " + address.getLocality(),
-                                Toast.LENGTH_SHORT).show();
-                    });
+                Toast.makeText(this, "Found events near " + locationQuery,
+                        Toast.LENGTH_SHORT).show();
 
-                } else {
-                    runOnUiThread(() -> {
-                        Toast.makeText(this, "Location not found. Try a different search.",
-                                Toast.LENGTH_LONG).show();
-                    });
-                }
+            } else if (error == null) {
+                Toast.makeText(this, "Location not found. Try a different search.",
+                        Toast.LENGTH_LONG).show();
 
-            } catch (IOException e) {
-                Log.e(TAG, "Geocoding error: " + e.getMessage());
-                runOnUiThread(() -> {
-                    Toast.makeText(this, "Search failed. Please check your internet connection.",
-                            Toast.LENGTH_LONG).show();
-                });
+            } else {
+                Log.e(TAG, "Geocoding error: " + error.getMessage());
+                Toast.makeText(this, "Search failed. Please check your internet connection.",
+                        Toast.LENGTH_LONG).show();
             }
         });
     }
 
     /**
-     * Filter events to show only those within the search radius using API
+     * Filter events to show only those within the search radius. Answered from the events
+     * already on the device; the API is only asked when nothing is cached yet.
      */
     private void filterEventsByLocation(LatLng searchLocation) {
-        // Clear existing markers
-        mMap.clear();
-        markerEventMap.clear();
+        // Clear existing markers and stop loading the viewport
+        viewportLoader.cancel();
+        clusterManager.clear();
+
+        nearbyEvents.withinRadius(searchLocation.latitude, searchLocation.longitude, SEARCH_RADIUS_KM,
+                (hits, indexed) -> {
+                    if (!isFiltered || !searchLocation.equals(searchedLocation)) return;
+                    if (indexed == 0) {
+                        fetchNearbyEvents(searchLocation);
+                    } else if (hits.isEmpty()) {
+                        showNearestEvents(searchLocation);
+                    } else {
+                        Toast.makeText(MapsActivity.this,
+                                "Showing " + hits.size() + " events within " + SEARCH_RADIUS_KM + " km",
+                                Toast.LENGTH_SHORT).show();
+                        for (EventSpatialIndex.Hit hit : hits) {
+                            addEmojiMarkerToMap(hit.event);
+                        }
+                    }
+                });
+    }
 
-        // Fetch nearby events from API
+    /**
+     * Show the closest few events when none are within the search radius
+     */
+    private void showNearestEvents(LatLng searchLocation) {
+        nearbyEvents.nearest(searchLocation.latitude, searchLocation.longitude, NEAREST_FALLBACK_COUNT,
+                (hits, indexed) -> {
+                    if (!isFiltered || !searchLocation.equals(searchedLocation) || hits.isEmpty()) return;
+                    Toast.makeText(MapsActivity.this,
+                            "No events within " + SEARCH_RADIUS_KM + " km. Nearest is "
+                                    + Math.round(hits.get(0).distanceKm) + " km away",
+                            Toast.LENGTH_LONG).show();
+                    for (EventSpatialIndex.Hit hit : hits) {
+                        addEmojiMarkerToMap(hit.event);
+                    }
+                });
+    }
+
+    /**
+     * Fetch nearby events from the API, for when no events are cached on the device
+     */
+    private void fetchNearbyEvents(LatLng searchLocation) {
         ApiService apiService = RetrofitClient.getApiService();
         Call<EventsResponse> call = apiService.getNearbyEvents(
                 searchLocation.latitude,
@@ -557,6 +528,7 @@ public class MapsActivity extends AppCompatActivity implements OnMapReadyCallbac
                 if (response.isSuccessful() && response.body() != null) {
                     EventsResponse eventsResponse = response.body();
                     List<Event> events = eventsResponse.getEvents();
+                    nearbyEvents.remember(events);
 
                     Toast.makeText(MapsActivity.this,
                             "Showing " + events.size() + " events within " + SEARCH_RADIUS_KM + " km",
@@ -594,8 +566,7 @@ public class MapsActivity extends AppCompatActivity implements OnMapReadyCallbac
         searchLocationInput.setText("");
 
         // Clear map and reload all events
-        mMap.clear();
-        markerEventMap.clear();
+        clusterManager.clear();
         loadEventsAndDisplayOnMap();
 
         // Reset camera to default position (Singapore)
@@ -667,35 +638,25 @@ public class MapsActivity extends AppCompatActivity implements OnMapReadyCallbac
         });
     }
 
-    /**
-     * Calculate distance between two locations in kilometers
-     */
-    private float calculateDistance(LatLng loc1, LatLng loc2) {
-        float[] results = new float[1];
-        android.location.Location.distanceBetween(
-                loc1.latitude, loc1.longitude,
-                loc2.latitude, loc2.longitude,
-                results
-        );
-        return results[0] / 1000; // Convert meters to kilometers
-    }
-
     @Override
     protected void onResume() {
         super.onResume();
-        // Reload events when returning from AddEventActivity
+        // Reload events when returning from AddEventActivity. Tiles are revalidated with the
+        // server, so the user's own changes always show.
         if (mMap != null && !isFiltered) {
-            mMap.clear();
-            markerEventMap.clear();
-            loadEventsAndDisplayOnMap();
+            clusterManager.clear();
+            viewportLoader.reload();
         }
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (executorService != null) {
-            executorService.shutdown();
+        if (viewportLoader != null) {
+            viewportLoader.cancel();
+        }
+        if (clusterManager != null) {
+            clusterManager.shutdown();
         }
     }
 }
@@ -91,7 +91,8 @@ public class MyEventsFragment extends Fragment implements MyEventsAdapter.OnEven
         emptyText.setVisibility(View.GONE);
 
         ApiService apiService = RetrofitClient.getApiService();
-        apiService.getUserEvents(userId).enqueue(new Callback<UserEventsResponse>() {
+        // Answered from the cache when there is an entry; the refreshed list is there next time
+        apiService.getUserEventsStaleWhileRevalidate(userId).enqueue(new Callback<UserEventsResponse>() {
             @Override
             public void onResponse(@NonNull Call<UserEventsResponse> call,
                                    @NonNull Response<UserEventsResponse> response) {
@@ -0,0 +1,57 @@
+package com.beyondbinary.app;
+
+import android.content.Context;
+import android.widget.ArrayAdapter;
+import android.widget.Filter;
+
+import androidx.annotation.NonNull;
+
+import com.beyondbinary.app.geocode.Gazetteer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Typeahead for the location field, from the bundled {@link Gazetteer}; no network calls. */
+public class PlaceSuggestionAdapter extends ArrayAdapter<String> {
+
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final Gazetteer gazetteer;
+
+    // Runs on the filter's background thread, so the first query may load the gazetteer
+    private final Filter filter = new Filter() {
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            List<String> names = new ArrayList<>();
+            if (constraint != null) {
+                for (Gazetteer.Place place : gazetteer.suggest(constraint.toString(), MAX_SUGGESTIONS)) {
+                    names.add(place.name);
+                }
+            }
+            FilterResults results = new FilterResults();
+            results.values = names;
+            results.count = names.size();
+            return results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            clear();
+            if (results.values != null) {
+                addAll((List<String>) results.values);
+            }
+        }
+    };
+
+    public PlaceSuggestionAdapter(Context context) {
+        super(context, android.R.layout.simple_dropdown_item_1line, new ArrayList<>());
+        this.gazetteer = Gazetteer.getInstance(context);
+    }
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return filter;
+    }
+}
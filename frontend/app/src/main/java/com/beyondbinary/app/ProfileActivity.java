@@ -21,6 +21,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.beyondbinary.app.api.ApiService;
 import com.beyondbinary.app.api.AttendedGalleriesResponse;
+import com.beyondbinary.app.api.CompositeBatch;
 import com.beyondbinary.app.api.InteractionsResponse;
 import com.beyondbinary.app.api.RetrofitClient;
 import com.beyondbinary.app.api.UserResponse;
@@ -138,8 +139,7 @@ public class ProfileActivity extends AppCompatActivity {
         setupPhotoGrid();
 
         // Load user data
-        loadUserProfile();
-        loadUserStats();
+        loadProfileScreen();
 
         // Setup bottom navigation
         setupBottomNavigation();
@@ -163,7 +163,11 @@ public class ProfileActivity extends AppCompatActivity {
         photoGrid.setAdapter(gridAdapter);
     }
 
-    private void loadUserProfile() {
+    /**
+     * Show the cached profile immediately, then refresh the profile, stats and photo grid
+     * with one composite request instead of three round trips.
+     */
+    private void loadProfileScreen() {
         SharedPreferences prefs = getSharedPreferences("beyondbinary_prefs", MODE_PRIVATE);
         int userId = prefs.getInt("user_id", -1);
         if (userId == -1) return;
@@ -175,39 +179,36 @@ public class ProfileActivity extends AppCompatActivity {
             displayUserData(localUser);
         }
 
-        // Fetch fresh data from backend
-        ApiService apiService = RetrofitClient.getApiService();
-        apiService.getUser(userId).enqueue(new retrofit2.Callback<UserResponse>() {
-            @Override
-            public void onResponse(@NonNull retrofit2.Call<UserResponse> call,
-                                   @NonNull retrofit2.Response<UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null && response.body().getUser() != null) {
-                    UserResponse.UserData userData = response.body().getUser();
-                    // Preserve local-only fields before overwriting
-                    User existingUser = dbHelper.getUserById(userData.getId());
-                    String existingPicPath = (existingUser != null) ? existingUser.getProfilePicturePath() : null;
-
-                    // Update local DB
-                    User user = new User();
-                    user.setId(userData.getId());
-                    user.setEmail(userData.getEmail());
-                    user.setBio(userData.getBio());
-                    user.setInterestTags(userData.getInterestTags());
-                    user.setUsername(userData.getUsername());
-                    user.setDob(userData.getDob());
-                    user.setAddress(userData.getAddress());
-                    user.setCaption(userData.getCaption());
-                    user.setProfilePicturePath(existingPicPath);
-                    dbHelper.insertUser(user);
-                    displayUserData(user);
-                }
-            }
+        // Fetch fresh data from backend. On failure the local data and defaults stay shown
+        new CompositeBatch()
+                .getUser(userId, this::onUserLoaded)
+                .getUserInteractions(userId, this::onInteractionsLoaded)
+                .getAttendedGalleries(userId, this::onAttendedGalleriesLoaded)
+                .enqueue();
+    }
 
-            @Override
-            public void onFailure(@NonNull retrofit2.Call<UserResponse> call, @NonNull Throwable t) {
-                // Local data already displayed
-            }
-        });
+    private void onUserLoaded(UserResponse response) {
+        if (response.getUser() == null) return;
+        UserResponse.UserData userData = response.getUser();
+        AppDatabaseHelper dbHelper = AppDatabaseHelper.getInstance(this);
+
+        // Preserve local-only fields before overwriting
+        User existingUser = dbHelper.getUserById(userData.getId());
+        String existingPicPath = (existingUser != null) ? existingUser.getProfilePicturePath() : null;
+
+        // Update local DB
+        User user = new User();
+        user.setId(userData.getId());
+        user.setEmail(userData.getEmail());
+        user.setBio(userData.getBio());
+        user.setInterestTags(userData.getInterestTags());
+        user.setUsername(userData.getUsername());
+        user.setDob(userData.getDob());
+        user.setAddress(userData.getAddress());
+        user.setCaption(userData.getCaption());
+        user.setProfilePicturePath(existingPicPath);
+        dbHelper.insertUser(user);
+        displayUserData(user);
     }
 
     private void displayUserData(User user) {
@@ -280,79 +281,42 @@ public class ProfileActivity extends AppCompatActivity {
         }
     }
 
-    private void loadUserStats() {
-        SharedPreferences prefs = getSharedPreferences("beyondbinary_prefs", MODE_PRIVATE);
-        int userId = prefs.getInt("user_id", -1);
-        if (userId == -1) return;
-
-        ApiService apiService = RetrofitClient.getApiService();
-
-        // Load interaction stats
-        apiService.getUserInteractions(userId).enqueue(new retrofit2.Callback<InteractionsResponse>() {
-            @Override
-            public void onResponse(@NonNull retrofit2.Call<InteractionsResponse> call,
-                                   @NonNull retrofit2.Response<InteractionsResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    java.util.List<InteractionsResponse.Interaction> interactions =
-                            response.body().getInteractions();
-                    int joined = 0;
-                    int created = 0;
-                    for (InteractionsResponse.Interaction interaction : interactions) {
-                        if ("joined".equals(interaction.getInteractionType())) {
-                            joined++;
-                        } else if ("created".equals(interaction.getInteractionType())) {
-                            created++;
-                        }
-                    }
-                    eventsCountText.setText(String.valueOf(joined));
-                    hostedCountText.setText(String.valueOf(created));
-                }
-            }
-
-            @Override
-            public void onFailure(@NonNull retrofit2.Call<InteractionsResponse> call, @NonNull Throwable t) {
-                // Keep defaults
+    private void onInteractionsLoaded(InteractionsResponse response) {
+        List<InteractionsResponse.Interaction> interactions = response.getInteractions();
+        if (interactions == null) return;
+
+        int joined = 0;
+        int created = 0;
+        for (InteractionsResponse.Interaction interaction : interactions) {
+            if ("joined".equals(interaction.getInteractionType())) {
+                joined++;
+            } else if ("created".equals(interaction.getInteractionType())) {
+                created++;
             }
-        });
-
-        // Load attended event galleries for the photo grid
-        loadAttendedGalleries(userId);
+        }
+        eventsCountText.setText(String.valueOf(joined));
+        hostedCountText.setText(String.valueOf(created));
     }
 
-    private void loadAttendedGalleries(int userId) {
-        ApiService apiService = RetrofitClient.getApiService();
+    private void onAttendedGalleriesLoaded(AttendedGalleriesResponse response) {
         String baseUrl = com.beyondbinary.app.BuildConfig.API_BASE_URL.replace("/api/", "");
-
-        apiService.getAttendedGalleries(userId).enqueue(new retrofit2.Callback<AttendedGalleriesResponse>() {
-            @Override
-            public void onResponse(@NonNull retrofit2.Call<AttendedGalleriesResponse> call,
-                                   @NonNull retrofit2.Response<AttendedGalleriesResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    galleries.clear();
-                    gridThumbnails.clear();
-
-                    List<AttendedGalleriesResponse.EventGallery> fetched = response.body().getGalleries();
-                    if (fetched != null) {
-                        for (AttendedGalleriesResponse.EventGallery gallery : fetched) {
-                            // Only show events that have at least one photo
-                            if (gallery.getImageUrls() != null && !gallery.getImageUrls().isEmpty()) {
-                                galleries.add(gallery);
-                                gridThumbnails.add(baseUrl + gallery.getImageUrls().get(0));
-                            }
-                        }
-                    }
-
-                    if (gridAdapter != null) {
-                        gridAdapter.notifyDataSetChanged();
-                    }
+        galleries.clear();
+        gridThumbnails.clear();
+
+        List<AttendedGalleriesResponse.EventGallery> fetched = response.getGalleries();
+        if (fetched != null) {
+            for (AttendedGalleriesResponse.EventGallery gallery : fetched) {
+                // Only show events that have at least one photo
+                if (gallery.getImageUrls() != null && !gallery.getImageUrls().isEmpty()) {
+                    galleries.add(gallery);
+                    gridThumbnails.add(baseUrl + gallery.getImageUrls().get(0));
                 }
             }
+        }
 
-            @Override
-            public void onFailure(@NonNull retrofit2.Call<AttendedGalleriesResponse> call, @NonNull Throwable t) {
-                // Keep grid empty
-            }
-        });
+        if (gridAdapter != null) {
+            gridAdapter.notifyDataSetChanged();
+        }
     }
 
     private void setupTabs() {
@@ -0,0 +1,88 @@
+package com.beyondbinary.app;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Pages a ranked feed from Room: the ranking is held as event ids only and rows are read a
+ * page at a time, in ranked order, as the feed scrolls to them.
+ *
+ * Keys are positions in the ranking. An append or refresh key is the first position to load;
+ * a prepend key is the position the page ends before. Rows deleted since the ranking are
+ * skipped, so pages carry no placeholder counts: those would be taken from positions in the
+ * ranking, not from the rows actually shown. A source made for a new ranking starts at the
+ * position it is given instead of the previous source's refresh key, which is a position in
+ * the old ranking.
+ */
+public class RankedEventPagingSource extends ListenableFuturePagingSource<Integer, Event> {
+
+    private final List<Integer> rankedIds;
+    private final int startPosition;
+    private final EventDao eventDao;
+    private final Executor executor;
+
+    /** @param startPosition where a refresh starts, or -1 to start at the refresh key */
+    public RankedEventPagingSource(List<Integer> rankedIds, int startPosition, EventDao eventDao,
+                                   Executor executor) {
+        this.rankedIds = rankedIds;
+        this.startPosition = startPosition;
+        this.eventDao = eventDao;
+        this.executor = executor;
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<Integer, Event>> loadFuture(@NonNull LoadParams<Integer> params) {
+        int size = rankedIds.size();
+        Integer key = params instanceof LoadParams.Refresh && startPosition >= 0
+                ? Integer.valueOf(startPosition) : params.getKey();
+        int start;
+        int end;
+        if (params instanceof LoadParams.Prepend) {
+            end = Math.min(size, key);
+            start = Math.max(0, end - params.getLoadSize());
+        } else {
+            start = key != null ? Math.max(0, Math.min(size, key)) : 0;
+            end = Math.min(size, start + params.getLoadSize());
+        }
+
+        ListenableFutureTask<LoadResult<Integer, Event>> task = ListenableFutureTask.create(() -> {
+            List<Integer> pageIds = rankedIds.subList(start, end);
+            Map<Integer, Event> rows = new HashMap<>();
+            for (Event event : eventDao.getEventsByIds(pageIds)) {
+                rows.put(event.getId(), event);
+            }
+            List<Event> page = new ArrayList<>(pageIds.size());
+            for (Integer id : pageIds) {
+                Event event = rows.get(id);
+                if (event != null) page.add(event);
+            }
+            return new LoadResult.Page<>(page, start > 0 ? start : null, end < size ? end : null);
+        });
+        executor.execute(task);
+        return task;
+    }
+
+    @Nullable
+    @Override
+    public Integer getRefreshKey(@NonNull PagingState<Integer, Event> state) {
+        // Without placeholders the anchor counts loaded rows only, so go by the row itself
+        Integer anchor = state.getAnchorPosition();
+        if (anchor == null) return null;
+        Event event = state.closestItemToPosition(anchor);
+        int position = event != null ? rankedIds.indexOf(event.getId()) : -1;
+        if (position < 0) return null;
+        return Math.max(0, position - state.getConfig().initialLoadSize / 2);
+    }
+}
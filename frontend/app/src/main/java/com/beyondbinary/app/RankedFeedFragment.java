@@ -0,0 +1,184 @@
+package com.beyondbinary.app;
+
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ProgressBar;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.LiveData;
+import androidx.paging.PagingData;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.beyondbinary.app.agents.RankingPipeline;
+import com.beyondbinary.app.sync.FeedSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A paged event feed that shows a ranking. The last ranking saved in {@link FeedSnapshot}
+ * renders in the first frame, or the default-order preview while none is saved; the live
+ * ranking then replaces it, keeping the top of the feed in view when events move above it.
+ * Subclasses supply the preview and start the ranking in {@link #loadFeed(int, boolean)}.
+ */
+public abstract class RankedFeedFragment extends Fragment {
+
+    private RecyclerView recyclerView;
+    private ProgressBar progressBar;
+    private EventPagingAdapter adapter;
+    // The feed on screen: the default order until a ranking is ready, then the ranking
+    private LiveData<PagingData<Event>> pagedFeed;
+    // Created with the first ranking; later rankings reorder it in place
+    private EventFeedPaging.RankedFeed rankedFeed;
+
+    /** This feed's key in {@link FeedSnapshot}. */
+    protected abstract String snapshotKey();
+
+    /** The feed in default order, shown while no ranking is ready. */
+    protected abstract LiveData<PagingData<Event>> previewFeed(int userId);
+
+    /**
+     * Load and rank the feed, handing the ranking to {@link #rankingListener}.
+     *
+     * @param quiet a snapshot is on screen: no spinner, errors or toasts, only the new order
+     */
+    protected abstract void loadFeed(int userId, boolean quiet);
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        View view = inflater.inflate(R.layout.fragment_event_list, container, false);
+
+        recyclerView = view.findViewById(R.id.events_recycler_view);
+        progressBar = view.findViewById(R.id.progress_bar);
+        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+
+        EventListAdapter.OnEventClickListener openDetail = event -> {
+            Intent intent = new Intent(getActivity(), EventDetailActivity.class);
+            intent.putExtra("EVENT_ID", event.getId());
+            startActivity(intent);
+        };
+        adapter = new EventPagingAdapter(openDetail);
+        recyclerView.setAdapter(adapter);
+        // A new ranking that moves events above the first row keeps the top of the feed in view
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                keepTopInView(toPosition);
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                keepTopInView(positionStart);
+            }
+        });
+
+        SharedPreferences prefs = requireContext()
+                .getSharedPreferences("beyondbinary_prefs", android.content.Context.MODE_PRIVATE);
+        int userId = prefs.getInt("user_id", -1);
+
+        // The last ranking (from the background job or the previous visit) renders in the
+        // first frame; the live ranking then revalidates it quietly
+        List<Event> snapshot = FeedSnapshot.getInstance(requireContext()).get(snapshotKey(), userId);
+        if (snapshot != null) {
+            adapter.submitData(getViewLifecycleOwner().getLifecycle(), PagingData.from(snapshot));
+        } else {
+            // Page the locally synced catalog so the first rows appear without waiting for
+            // the whole catalog or the ranker
+            showPages(previewFeed(userId));
+            progressBar.setVisibility(View.VISIBLE);
+        }
+
+        loadFeed(userId, snapshot != null);
+
+        return view;
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        // Both are observed by the view being destroyed; a new view starts its own
+        pagedFeed = null;
+        rankedFeed = null;
+    }
+
+    /**
+     * Shows each ranking as it arrives and saves the final one as the next snapshot.
+     *
+     * @param refinedMessage toast for a ranking refined by the model
+     */
+    protected RankingPipeline.Listener rankingListener(int userId, boolean quiet, String refinedMessage) {
+        return new RankingPipeline.Listener() {
+            @Override
+            public void onProgress(List<Event> ranked) {
+                showEvents(ranked);
+            }
+
+            @Override
+            public void onResult(List<Event> ranked, boolean refined) {
+                showEvents(ranked);
+                FeedSnapshot.getInstance(requireContext()).save(snapshotKey(), userId, ranked);
+                if (refined && !quiet) {
+                    Toast.makeText(getContext(), refinedMessage, Toast.LENGTH_SHORT).show();
+                }
+            }
+        };
+    }
+
+    /** There is nothing to rank; says why unless {@code quiet}. */
+    protected void showNoEvents(@Nullable Throwable syncError, boolean quiet, String emptyMessage) {
+        progressBar.setVisibility(View.GONE);
+        if (quiet) return;
+        if (syncError != null) {
+            Toast.makeText(getContext(), "Error: " + syncError.getMessage(), Toast.LENGTH_SHORT).show();
+        } else {
+            Toast.makeText(getContext(), emptyMessage, Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /** Show a ranking. Only its ids are kept; rows are read from Room as they scroll in. */
+    private void showEvents(List<Event> eventList) {
+        List<Integer> rankedIds = new ArrayList<>(eventList.size());
+        for (Event event : eventList) {
+            rankedIds.add(event.getId());
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int firstVisible = layoutManager.findFirstVisibleItemPosition();
+        Event first = firstVisible >= 0 && firstVisible < adapter.getItemCount()
+                ? adapter.peek(firstVisible) : null;
+        boolean created = rankedFeed == null;
+        if (created) {
+            rankedFeed = EventFeedPaging.ranked(requireContext());
+        }
+        rankedFeed.setRanking(rankedIds, first != null ? first.getId() : -1);
+        if (created) {
+            showPages(rankedFeed.getPages());
+        }
+        progressBar.setVisibility(View.GONE);
+    }
+
+    /** Replace the feed on screen; the adapter animates events from their old places. */
+    private void showPages(LiveData<PagingData<Event>> pages) {
+        if (pagedFeed != null) {
+            pagedFeed.removeObservers(getViewLifecycleOwner());
+        }
+        pagedFeed = pages;
+        pagedFeed.observe(getViewLifecycleOwner(), pagingData ->
+                adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
+    }
+
+    private void keepTopInView(int changedPosition) {
+        // Runs before the next layout, so this is still the old scroll position
+        if (changedPosition == 0 && !recyclerView.canScrollVertically(-1)) {
+            recyclerView.scrollToPosition(0);
+        }
+    }
+}
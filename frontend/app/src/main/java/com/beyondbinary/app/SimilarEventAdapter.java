@@ -0,0 +1,67 @@
+package com.beyondbinary.app;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.beyondbinary.app.utils.EventCategoryHelper;
+
+import java.util.List;
+
+/** Cards for the horizontal "Similar Events" rail on the event detail screen. */
+public class SimilarEventAdapter extends RecyclerView.Adapter<SimilarEventAdapter.ViewHolder> {
+
+    private final List<Event> events;
+    private final OnEventClickListener listener;
+
+    public interface OnEventClickListener {
+        void onEventClick(Event event);
+    }
+
+    public SimilarEventAdapter(List<Event> events, OnEventClickListener listener) {
+        this.events = events;
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_similar_event, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Event event = events.get(position);
+        holder.emojiText.setText(EventCategoryHelper.getEmojiForEventType(event.getEventType()));
+        holder.titleText.setText(event.getTitle());
+        holder.typeText.setText(event.getEventType());
+        holder.timeText.setText(event.getTime() != null ? event.getTime() : "");
+        holder.itemView.setOnClickListener(v -> listener.onEventClick(event));
+    }
+
+    @Override
+    public int getItemCount() {
+        return events.size();
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        TextView emojiText;
+        TextView titleText;
+        TextView typeText;
+        TextView timeText;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            emojiText = itemView.findViewById(R.id.similar_event_emoji);
+            titleText = itemView.findViewById(R.id.similar_event_title);
+            typeText = itemView.findViewById(R.id.similar_event_type);
+            timeText = itemView.findViewById(R.id.similar_event_time);
+        }
+    }
+}
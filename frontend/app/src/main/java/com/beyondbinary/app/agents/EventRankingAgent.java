@@ -1,129 +1,97 @@
 package com.beyondbinary.app.agents;
 
-import android.util.Log;
+import android.content.Context;
 
 import com.beyondbinary.app.Event;
-import com.beyondbinary.app.data.models.User;
-import com.google.ai.client.generativeai.GenerativeModel;
-import com.google.ai.client.generativeai.java.GenerativeModelFutures;
-import com.google.ai.client.generativeai.type.Content;
-import com.google.ai.client.generativeai.type.GenerateContentResponse;
-import com.google.common.util.concurrent.FutureCallback;
-import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.ListenableFuture;
+import com.beyondbinary.app.data.providers.HealthDataProvider;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
-
-public class EventRankingAgent {
-
-    private static final String TAG = "EventRankingAgent";
-    private final GenerativeModelFutures model;
-
-    public interface Callback {
-        void onResult(List<Event> rankedEvents);
-    }
-
-    public EventRankingAgent(String apiKey) {
-        GenerativeModel gm = new GenerativeModel("gemini-2.5-flash", apiKey);
-        this.model = GenerativeModelFutures.from(gm);
+import java.util.Set;
+
+/** The ranking pipelines behind the two home feeds. */
+public final class EventRankingAgent {
+
+    private static final int MAX_PROMPT_INTERESTS = 8;
+
+    private EventRankingAgent() {}
+
+    /**
+     * Discover: events the user neither created nor joined, matched against their profile and
+     * the kinds of events they take part in, and refined by Gemini when they have a bio.
+     */
+    public static RankingPipeline discover(Context context, int userId, Set<Integer> userEventIds,
+                                           List<Event> catalog) {
+        Map<String, Double> weights = new HashMap<>();
+        weights.put(RankingStages.FEATURE_LEXICAL, 1.0);
+        weights.put(RankingStages.FEATURE_SEMANTIC, 4.0);
+        weights.put(RankingStages.FEATURE_TYPE_AFFINITY, 2.0);
+
+        return new RankingPipeline.Builder("Discover")
+                .add(RankingStages.filter("not-mine", event ->
+                        !(userId != -1 && event.getCreatorUserId() != null && event.getCreatorUserId() == userId)
+                                && !userEventIds.contains(event.getId())))
+                .add(RankingStages.lexicalFeature(catalog))
+                .add(RankingStages.semanticFeature(context))
+                .add(RankingStages.typeAffinityFeature(InterestProfile.getInstance(context), userId))
+                .add(RankingStages.weightedScorer(weights))
+                .add(RankingStages.tieBreaker(RankingStages.MOST_SPOTS_LEFT))
+                .add(new LlmReranker(context, "EventRankingAgent", true, ranking -> {
+                    if (ranking.user == null || ranking.user.getBio() == null || ranking.user.getBio().isEmpty()) {
+                        return null;
+                    }
+                    return "Given this user's questionnaire answers: " + ranking.user.getBio() + "\n\n"
+                            + "Rank these events by how meaningful and relevant they are to this person.\n"
+                            + "Return ONLY a comma-separated list of event IDs (most relevant first), nothing else.\n\n";
+                }))
+                .build();
     }
 
-    public void rankEvents(User user, List<Event> events, Callback callback) {
-        if (events == null || events.isEmpty()) {
-            callback.onResult(events != null ? events : new ArrayList<>());
-            return;
-        }
-
-        String prompt = buildPrompt(user, events);
-        Log.i(TAG, "=== GEMINI RANKING REQUEST ===");
-        Log.i(TAG, "User bio: " + user.getBio());
-        Log.i(TAG, "Events count: " + events.size());
-        Log.d(TAG, "Full prompt:\n" + prompt);
-
-        Content content = new Content.Builder()
-                .addText(prompt)
+    /**
+     * Recommended: the whole catalog, scored locally by how much each event would help with the
+     * user's health gaps, how well it matches their profile and the types of events they take
+     * part in. Gemini only refines that order when signed in; offline the local order stands.
+     */
+    public static RankingPipeline recommended(Context context, int userId, List<Event> catalog) {
+        Map<String, Double> weights = new HashMap<>();
+        weights.put(RankingStages.FEATURE_LEXICAL, 1.0);
+        weights.put(RankingStages.FEATURE_TYPE_AFFINITY, 2.0);
+        weights.put(RankingStages.FEATURE_SEMANTIC, 4.0);
+        // Health leads: a category that fits the gaps well (~0.5) is worth a strong BM25 match
+        weights.put(RankingStages.FEATURE_HEALTH, 6.0);
+        HealthScorer healthScorer = new HealthScorer(HealthDataProvider.getHealthData(context));
+        InterestProfile interests = InterestProfile.getInstance(context);
+
+        return new RankingPipeline.Builder("Recommended")
+                .add(RankingStages.healthFeature(healthScorer))
+                .add(RankingStages.lexicalFeature(catalog))
+                .add(RankingStages.semanticFeature(context))
+                .add(RankingStages.typeAffinityFeature(interests, userId))
+                .add(RankingStages.weightedScorer(weights))
+                .add(RankingStages.tieBreaker(RankingStages.MOST_SPOTS_LEFT))
+                .add(new LlmReranker(context, "RecommendedEvents", true, ranking ->
+                        userId != -1 ? recommendedPreamble(ranking, healthScorer, interests.get(userId)) : null))
                 .build();
-
-        ListenableFuture<GenerateContentResponse> future = model.generateContent(content);
-
-        Futures.addCallback(future, new FutureCallback<GenerateContentResponse>() {
-            @Override
-            public void onSuccess(GenerateContentResponse result) {
-                try {
-                    String text = result.getText();
-                    Log.i(TAG, "=== GEMINI RAW RESPONSE ===");
-                    Log.i(TAG, "Response text: " + text);
-                    if (text != null) {
-                        List<Event> ranked = parseRankedEvents(text.trim(), events);
-                        Log.i(TAG, "AI ranking successful, ranked " + ranked.size() + "/" + events.size() + " events matched by ID");
-                        callback.onResult(ranked);
-                    } else {
-                        Log.w(TAG, "AI returned null text, using original order");
-                        callback.onResult(events);
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error parsing AI response", e);
-                    callback.onResult(events);
-                }
-            }
-
-            @Override
-            public void onFailure(Throwable t) {
-                Log.e(TAG, "=== GEMINI CALL FAILED ===");
-                Log.e(TAG, "AI ranking failed: " + t.getClass().getSimpleName() + " - " + t.getMessage(), t);
-                callback.onResult(events);
-            }
-        }, Executors.newSingleThreadExecutor());
     }
 
-    private String buildPrompt(User user, List<Event> events) {
+    private static String recommendedPreamble(RankingPipeline.Ranking ranking, HealthScorer healthScorer,
+                                              InterestProfile.Profile interests) {
         StringBuilder sb = new StringBuilder();
-        sb.append("Given this user's questionnaire answers: ").append(user.getBio()).append("\n\n");
-        sb.append("Rank these events by how meaningful and relevant they are to this person.\n");
-        sb.append("Return ONLY a comma-separated list of event IDs (most relevant first), nothing else.\n\n");
-        sb.append("Events:\n");
+        sb.append("Health priorities: ").append(healthScorer.describePriorities()).append("\n\n");
 
-        for (Event event : events) {
-            sb.append("ID:").append(event.getId())
-              .append(" | ").append(event.getTitle())
-              .append(" | ").append(event.getEventType())
-              .append(" | ").append(event.getDescription())
-              .append("\n");
+        String bio = ranking.user != null ? ranking.user.getBio() : null;
+        if (bio != null && !bio.isEmpty()) {
+            sb.append("User preferences: ").append(bio).append("\n\n");
         }
 
-        return sb.toString();
-    }
-
-    private List<Event> parseRankedEvents(String response, List<Event> original) {
-        Map<Integer, Event> eventMap = new HashMap<>();
-        for (Event event : original) {
-            eventMap.put(event.getId(), event);
+        if (!interests.isEmpty()) {
+            sb.append("Usually takes part in: ").append(interests.describe(MAX_PROMPT_INTERESTS)).append("\n\n");
         }
 
-        List<Event> ranked = new ArrayList<>();
-        String[] ids = response.split(",");
-        for (String idStr : ids) {
-            try {
-                int id = Integer.parseInt(idStr.trim());
-                Event event = eventMap.remove(id);
-                if (event != null) {
-                    ranked.add(event);
-                }
-            } catch (NumberFormatException ignored) {
-            }
-        }
-
-        // Append any events not mentioned by the AI
-        for (Event event : original) {
-            if (eventMap.containsKey(event.getId())) {
-                ranked.add(event);
-            }
-        }
-
-        return ranked;
+        sb.append("These events are already ordered by how well they address those priorities. ");
+        sb.append("Refine the order, weighing the priorities together with the user's preferences and past engagement.\n");
+        sb.append("Return ONLY a comma-separated list of event IDs (most recommended first), nothing else.\n\n");
+        return sb.toString();
     }
 }
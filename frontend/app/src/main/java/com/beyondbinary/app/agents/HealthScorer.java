@@ -0,0 +1,114 @@
+package com.beyondbinary.app.agents;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.data.providers.HealthDataProvider;
+import com.beyondbinary.app.utils.EventCategoryHelper;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Scores events by how much they would help with the user's health gaps, without a model.
+ *
+ * Each gap (movement, stress, sleep, heart rate) is a deficit between 0 and 1 computed from
+ * {@link HealthDataProvider.HealthData}; each event category has a fixed benefit per gap. A
+ * category's weight is the deficit-weighted sum of its benefits, computed once, so scoring an
+ * event is a lookup by its type.
+ */
+public class HealthScorer {
+
+    private static final int MOVEMENT = 0;
+    private static final int STRESS = 1;
+    private static final int SLEEP = 2;
+    private static final int HEART = 3;
+
+    private static final double TARGET_SLEEP_HOURS = 7.5;
+    private static final int TARGET_RESTING_HEART_RATE = 60;
+
+    // Benefit of each category for {movement, stress, sleep, heart}
+    private static final Map<String, double[]> BENEFITS = new HashMap<>();
+    static {
+        BENEFITS.put("Sports", new double[]{1.0, 0.4, 0.5, 0.8});
+        BENEFITS.put("Outdoor", new double[]{0.9, 0.7, 0.5, 0.6});
+        BENEFITS.put("Wellness", new double[]{0.3, 1.0, 0.8, 0.4});
+        BENEFITS.put("Social", new double[]{0.2, 0.5, 0.1, 0.0});
+        BENEFITS.put("Arts & Craft", new double[]{0.1, 0.6, 0.2, 0.0});
+        BENEFITS.put("Games", new double[]{0.0, 0.4, 0.0, 0.0});
+        BENEFITS.put("Entertainment", new double[]{0.1, 0.4, 0.0, 0.0});
+        BENEFITS.put("Learning", new double[]{0.0, 0.2, 0.0, 0.0});
+        BENEFITS.put("Other", new double[]{0.1, 0.1, 0.0, 0.0});
+    }
+
+    private final double[] deficits = new double[4];
+    private final Map<String, Double> categoryWeights = new HashMap<>();
+    private final Map<String, Double> typeWeights = new HashMap<>();
+
+    public HealthScorer(HealthDataProvider.HealthData data) {
+        double steps = deficit(data.steps, data.stepGoal);
+        double active = deficit(data.activeMinutes, data.activeMinuteGoal);
+        double calories = deficit(data.caloriesBurned, data.calorieGoal);
+        deficits[MOVEMENT] = (steps + active + calories) / 3;
+        deficits[STRESS] = stressDeficit(data.stressLevel);
+        deficits[SLEEP] = clamp((TARGET_SLEEP_HOURS - data.sleepHours) / 3);
+        deficits[HEART] = clamp((data.heartRate - TARGET_RESTING_HEART_RATE) / 40.0);
+
+        for (Map.Entry<String, double[]> entry : BENEFITS.entrySet()) {
+            double weight = 0;
+            for (int i = 0; i < deficits.length; i++) {
+                weight += deficits[i] * entry.getValue()[i];
+            }
+            // Averaged over the gaps, so a user without any stays near 0
+            categoryWeights.put(entry.getKey(), weight / deficits.length);
+        }
+    }
+
+    /** How much {@code event} would help, between 0 and 1. */
+    public double score(Event event) {
+        String type = event.getEventType();
+        Double weight = typeWeights.get(type);
+        if (weight == null) {
+            Double categoryWeight = categoryWeights.get(EventCategoryHelper.getCategoryForEventType(type));
+            weight = categoryWeight != null ? categoryWeight : 0;
+            typeWeights.put(type, weight);
+        }
+        return weight;
+    }
+
+    /** The gaps worth mentioning, biggest first, e.g. for an LLM prompt. */
+    public String describePriorities() {
+        String[] labels = {"more movement", "lower stress", "better sleep", "heart health"};
+        Integer[] order = {MOVEMENT, STRESS, SLEEP, HEART};
+        Arrays.sort(order, (a, b) -> Double.compare(deficits[b], deficits[a]));
+
+        StringBuilder sb = new StringBuilder();
+        for (int i : order) {
+            if (deficits[i] < 0.1) continue;
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(labels[i]).append(String.format(Locale.US, " (%.0f%% short)", deficits[i] * 100));
+        }
+        return sb.length() > 0 ? sb.toString() : "no notable gaps";
+    }
+
+    private static double deficit(double value, double goal) {
+        return goal > 0 ? clamp(1 - value / goal) : 0;
+    }
+
+    private static double stressDeficit(String level) {
+        if (level == null) return 0;
+        switch (level.toLowerCase(Locale.US)) {
+            case "high":
+                return 1;
+            case "medium":
+            case "moderate":
+                return 0.5;
+            default:
+                return 0;
+        }
+    }
+
+    private static double clamp(double value) {
+        return Math.max(0, Math.min(1, value));
+    }
+}
@@ -0,0 +1,255 @@
+package com.beyondbinary.app.agents;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.EventDao;
+import com.beyondbinary.app.EventDatabase;
+import com.beyondbinary.app.api.InteractionsResponse;
+import com.beyondbinary.app.utils.EventCategoryHelper;
+import com.google.gson.Gson;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A fixed-size summary of what the user takes part in: a weight per event type and per
+ * category, decayed over time, so rankers don't need the whole interaction history.
+ *
+ * It is updated as interactions are recorded and persisted per user. The first time a user
+ * is seen, it is seeded once from the server history. Weights halve every
+ * {@link #HALF_LIFE_MS}.
+ */
+public class InterestProfile {
+
+    private static final String TAG = "InterestProfile";
+    private static final String PREFS_NAME = "interest_profile";
+
+    private static final long HALF_LIFE_MS = 30L * 24 * 60 * 60 * 1000;
+    // Types beyond this many are the long tail; dropping the lightest keeps the profile bounded
+    private static final int MAX_TYPES = 24;
+    private static final double MIN_WEIGHT = 0.01;
+
+    // Creating an event says more about the user than joining one
+    private static final Map<String, Double> INTERACTION_WEIGHTS = new HashMap<>();
+    static {
+        INTERACTION_WEIGHTS.put("joined", 1.0);
+        INTERACTION_WEIGHTS.put("attended", 2.0);
+        INTERACTION_WEIGHTS.put("created", 3.0);
+    }
+
+    private static InterestProfile instance;
+
+    /** A user's weights as of {@code updatedAt}. */
+    public static class Profile {
+        long updatedAt;
+        // Time of the first interaction recorded on this device; older ones come from seeding
+        long localSince;
+        Map<String, Double> types = new HashMap<>();
+        Map<String, Double> categories = new HashMap<>();
+
+        public boolean isEmpty() {
+            return types.isEmpty();
+        }
+
+        /**
+         * How much of the user's activity is in {@code eventType} or its category, between 0
+         * and 1. The exact type counts most; the category lets related types share credit.
+         */
+        public double affinity(String eventType) {
+            if (eventType == null || isEmpty()) return 0;
+            double typeShare = share(types, eventType);
+            double categoryShare = share(categories, EventCategoryHelper.getCategoryForEventType(eventType));
+            return 0.7 * typeShare + 0.3 * categoryShare;
+        }
+
+        /** The heaviest types with a coarse strength, e.g. for an LLM prompt. */
+        public String describe(int limit) {
+            List<Map.Entry<String, Double>> entries = new ArrayList<>(types.entrySet());
+            Collections.sort(entries, (a, b) -> Double.compare(b.getValue(), a.getValue()));
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, Double> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+                double share = share(types, entry.getKey());
+                // Coarse labels keep the prompt, and so the ranking cache key, stable as weights decay
+                String strength = share >= 0.25 ? "strong" : share >= 0.1 ? "moderate" : "light";
+                if (sb.length() > 0) sb.append(", ");
+                sb.append(entry.getKey()).append(" (").append(strength).append(')');
+            }
+            return sb.toString();
+        }
+
+        void add(String eventType, double weight, long at) {
+            decayTo(Math.max(updatedAt, at));
+            // An interaction older than the profile counts as if it had decayed since
+            double decayed = weight * decay(updatedAt - at);
+            types.merge(eventType, decayed, Double::sum);
+            categories.merge(EventCategoryHelper.getCategoryForEventType(eventType), decayed, Double::sum);
+            trim();
+        }
+
+        void decayTo(long now) {
+            if (now <= updatedAt) return;
+            double factor = decay(now - updatedAt);
+            types.replaceAll((k, v) -> v * factor);
+            categories.replaceAll((k, v) -> v * factor);
+            types.values().removeIf(v -> v < MIN_WEIGHT);
+            categories.values().removeIf(v -> v < MIN_WEIGHT);
+            updatedAt = now;
+        }
+
+        private void trim() {
+            while (types.size() > MAX_TYPES) {
+                String lightest = Collections.min(types.entrySet(), Map.Entry.comparingByValue()).getKey();
+                types.remove(lightest);
+            }
+        }
+
+        private static double share(Map<String, Double> weights, String key) {
+            Double weight = weights.get(key);
+            if (weight == null) return 0;
+            double total = 0;
+            for (double w : weights.values()) total += w;
+            return total > 0 ? weight / total : 0;
+        }
+
+        private static double decay(long ageMs) {
+            return Math.pow(0.5, Math.max(0, ageMs) / (double) HALF_LIFE_MS);
+        }
+    }
+
+    private final SharedPreferences prefs;
+    private final EventDao eventDao;
+    private final Gson gson = new Gson();
+    // All reads and writes go through here, so a read sees every update queued before it
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Map<Integer, Profile> profiles = new HashMap<>();
+
+    public static synchronized InterestProfile getInstance(Context context) {
+        if (instance == null) {
+            instance = new InterestProfile(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private InterestProfile(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.eventDao = EventDatabase.getInstance(context).eventDao();
+    }
+
+    /**
+     * Count an interaction that just happened. Types other than joined, attended and created
+     * are ignored. {@code eventType} may be null if the event is in the local catalog.
+     */
+    public void record(int userId, int eventId, String interactionType, @Nullable String eventType) {
+        Double weight = INTERACTION_WEIGHTS.get(interactionType);
+        if (weight == null) return;
+        long now = System.currentTimeMillis();
+        executor.execute(() -> {
+            String type = eventType;
+            if (type == null) {
+                Event event = eventDao.getEventById(eventId);
+                type = event != null ? event.getEventType() : null;
+            }
+            if (type == null) {
+                Log.w(TAG, "No type for event " + eventId + ", not counted");
+                return;
+            }
+            Profile profile = load(userId);
+            if (profile.localSince == 0) profile.localSince = now;
+            profile.add(type, weight, now);
+            save(userId, profile);
+        });
+    }
+
+    /** False until {@link #seed} has run for this user, i.e. the server history is still needed. */
+    public boolean isSeeded(int userId) {
+        return prefs.getBoolean(seededKey(userId), false);
+    }
+
+    /** Fold the server history in, once. Interactions already recorded locally are skipped. */
+    public void seed(int userId, List<InteractionsResponse.Interaction> interactions) {
+        executor.execute(() -> {
+            if (isSeeded(userId)) return;
+            Profile profile = load(userId);
+            long now = System.currentTimeMillis();
+            int counted = 0;
+            for (InteractionsResponse.Interaction interaction : interactions) {
+                Double weight = INTERACTION_WEIGHTS.get(interaction.getInteractionType());
+                if (weight == null || interaction.getEventType() == null) continue;
+                long at = parseTimestamp(interaction.getCreatedAt(), now);
+                if (profile.localSince != 0 && at >= profile.localSince) continue;
+                profile.add(interaction.getEventType(), weight, at);
+                counted++;
+            }
+            save(userId, profile);
+            prefs.edit().putBoolean(seededKey(userId), true).apply();
+            Log.d(TAG, "Seeded profile for user " + userId + " from " + counted + " interactions");
+        });
+    }
+
+    /** The user's profile decayed to now; empty if nothing is known. Blocks, background only. */
+    public Profile get(int userId) {
+        try {
+            return executor.submit(() -> {
+                Profile profile = load(userId);
+                profile.decayTo(System.currentTimeMillis());
+                return gson.fromJson(gson.toJson(profile), Profile.class);
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Profile();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Failed to read profile", e);
+            return new Profile();
+        }
+    }
+
+    private Profile load(int userId) {
+        Profile profile = profiles.get(userId);
+        if (profile == null) {
+            String json = prefs.getString(profileKey(userId), null);
+            profile = json != null ? gson.fromJson(json, Profile.class) : null;
+            if (profile == null) profile = new Profile();
+            profiles.put(userId, profile);
+        }
+        return profile;
+    }
+
+    private void save(int userId, Profile profile) {
+        prefs.edit().putString(profileKey(userId), gson.toJson(profile)).apply();
+    }
+
+    private static String profileKey(int userId) {
+        return "profile_" + userId;
+    }
+
+    private static String seededKey(int userId) {
+        return "seeded_" + userId;
+    }
+
+    // The server stores UTC as "yyyy-MM-dd HH:mm:ss"
+    private static long parseTimestamp(String timestamp, long fallback) {
+        if (timestamp == null) return fallback;
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            return format.parse(timestamp).getTime();
+        } catch (ParseException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.beyondbinary.app.agents;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.data.models.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * On-device BM25 scoring of events against the user's bio and interest tags.
+ *
+ * It is fast enough that feeds render in a personal order right away and the LLM ranking
+ * only refines it; it is also the order used when Gemini fails. Term statistics are computed
+ * once per catalog and reused by both feeds.
+ */
+public class LexicalRanker {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Title and type say more about an event than its description
+    private static final int TITLE_WEIGHT = 2;
+    private static final int TYPE_WEIGHT = 2;
+    // Interest tags are chosen deliberately, bio words are free text
+    private static final int TAG_WEIGHT = 2;
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "i", "in",
+            "is", "it", "like", "love", "me", "my", "of", "on", "or", "so", "that", "the", "this",
+            "to", "we", "with", "you", "your", "enjoy", "also", "very", "really", "am"));
+
+    private static LexicalRanker lastRanker;
+    private static String lastFingerprint;
+
+    private final List<Event> events;
+    private final Map<Integer, Integer> indexById = new HashMap<>();
+    private final List<Map<String, Integer>> termFrequencies;
+    private final int[] lengths;
+    private final Map<String, Integer> documentFrequencies = new HashMap<>();
+    private final double averageLength;
+
+    private LexicalRanker(List<Event> events) {
+        this.events = new ArrayList<>(events);
+        this.termFrequencies = new ArrayList<>(events.size());
+        this.lengths = new int[events.size()];
+
+        long totalLength = 0;
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            indexById.put(event.getId(), i);
+            Map<String, Integer> tf = new HashMap<>();
+            int length = addTerms(tf, event.getTitle(), TITLE_WEIGHT)
+                    + addTerms(tf, event.getEventType(), TYPE_WEIGHT)
+                    + addTerms(tf, event.getDescription(), 1);
+            for (String term : tf.keySet()) {
+                documentFrequencies.merge(term, 1, Integer::sum);
+            }
+            termFrequencies.add(tf);
+            lengths[i] = length;
+            totalLength += length;
+        }
+        this.averageLength = events.isEmpty() ? 0 : (double) totalLength / events.size();
+    }
+
+    /** Ranker over {@code events}, reusing the statistics of the previous call for the same catalog. */
+    public static synchronized LexicalRanker forEvents(List<Event> events) {
+        String fingerprint = fingerprint(events);
+        if (lastRanker == null || !fingerprint.equals(lastFingerprint)) {
+            lastRanker = new LexicalRanker(events);
+            lastFingerprint = fingerprint;
+        }
+        return lastRanker;
+    }
+
+    /** True when the user has anything to rank against. */
+    public static boolean hasQuery(User user) {
+        return user != null && !queryTerms(user).isEmpty();
+    }
+
+    /** BM25 score of each of {@code candidates} against the user's profile, 0 for no match. */
+    public double[] scores(User user, List<Event> candidates) {
+        Map<String, Integer> query = queryTerms(user);
+        double[] scores = new double[candidates.size()];
+        for (int c = 0; c < candidates.size(); c++) {
+            Integer i = indexById.get(candidates.get(c).getId());
+            if (i != null) {
+                scores[c] = score(query, i);
+            }
+        }
+        return scores;
+    }
+
+    private double score(Map<String, Integer> query, int doc) {
+        Map<String, Integer> tf = termFrequencies.get(doc);
+        if (tf.isEmpty()) return 0;
+        double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+        double score = 0;
+        for (Map.Entry<String, Integer> entry : query.entrySet()) {
+            Integer f = tf.get(entry.getKey());
+            if (f == null) continue;
+            int df = documentFrequencies.get(entry.getKey());
+            double idf = Math.log(1 + (events.size() - df + 0.5) / (df + 0.5));
+            score += entry.getValue() * idf * (f * (K1 + 1)) / (f + norm);
+        }
+        return score;
+    }
+
+    private static Map<String, Integer> queryTerms(User user) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, user.getBio(), 1);
+        for (String tag : user.getInterestTagsAsList()) {
+            addTerms(terms, tag, TAG_WEIGHT);
+        }
+        return terms;
+    }
+
+    private static int addTerms(Map<String, Integer> terms, String text, int weight) {
+        int added = 0;
+        for (String term : terms(text)) {
+            terms.merge(term, weight, Integer::sum);
+            added += weight;
+        }
+        return added;
+    }
+
+    /** The words of {@code text} as matched here: lower case, stop words dropped, plurals folded. */
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) return terms;
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{Nd}]+")) {
+            if (token.length() < 2 || STOP_WORDS.contains(token)) continue;
+            terms.add(stem(token));
+        }
+        return terms;
+    }
+
+    // Plural folding only: "hikes" and "hike" should match, anything smarter isn't worth it here
+    private static String stem(String token) {
+        if (token.length() > 4 && token.endsWith("ies")) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+
+    private static String fingerprint(List<Event> events) {
+        StringBuilder sb = new StringBuilder();
+        for (Event event : events) {
+            sb.append(event.getId()).append(':')
+              .append(Integer.toHexString(Objects.hash(
+                      event.getTitle(), event.getEventType(), event.getDescription())))
+              .append(',');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,367 @@
+package com.beyondbinary.app.agents;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.beyondbinary.app.BuildConfig;
+import com.google.ai.client.generativeai.GenerativeModel;
+import com.google.ai.client.generativeai.java.GenerativeModelFutures;
+import com.google.ai.client.generativeai.type.Content;
+import com.google.ai.client.generativeai.type.GenerateContentResponse;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * App-wide Gemini client: one model instance, a small callback pool that lets its threads
+ * go when idle, and at most {@link #MAX_CONCURRENT} requests in flight (the rest queue).
+ *
+ * A request can be bound to a lifecycle; when that is destroyed the request is dropped from
+ * the queue or cancelled, and its callback is never called. Latency of every call is logged
+ * and summed in {@link Stats}.
+ */
+public class LlmClient {
+
+    private static final String TAG = "LlmClient";
+    private static final String MODEL_NAME = "gemini-2.5-flash";
+    private static final int MAX_CONCURRENT = 2;
+    private static final int CALLBACK_THREADS = 2;
+
+    private static LlmClient instance;
+
+    public interface Callback {
+        /** Called on a background thread with the response text, possibly null. */
+        void onSuccess(@Nullable String text);
+
+        /** Called on a background thread. Not called for cancelled requests. */
+        void onFailure(@NonNull Throwable t);
+    }
+
+    public interface StreamCallback {
+        /** Each non-empty piece of the response, in order, on a background thread. */
+        void onChunk(@NonNull String text);
+
+        /** The whole response has arrived. */
+        void onComplete();
+
+        /** Called on a background thread. Not called for cancelled requests. */
+        void onFailure(@NonNull Throwable t);
+    }
+
+    /** Running totals since process start. */
+    public static class Stats {
+        public int calls;
+        public int failures;
+        public int cancelled;
+        public long totalLatencyMs;
+        public long maxLatencyMs;
+
+        @NonNull
+        @Override
+        public String toString() {
+            long completed = calls - cancelled;
+            return "calls=" + calls + " failures=" + failures + " cancelled=" + cancelled
+                    + " avgMs=" + (completed > 0 ? totalLatencyMs / completed : 0)
+                    + " maxMs=" + maxLatencyMs;
+        }
+    }
+
+    private final GenerativeModelFutures model;
+    private final ThreadPoolExecutor callbackExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ArrayDeque<Request> pending = new ArrayDeque<>();
+    private final Stats stats = new Stats();
+    private int inFlight = 0;
+
+    public static synchronized LlmClient getInstance() {
+        if (instance == null) {
+            instance = new LlmClient(BuildConfig.GEMINI_API_KEY);
+        }
+        return instance;
+    }
+
+    private LlmClient(String apiKey) {
+        this.model = GenerativeModelFutures.from(new GenerativeModel(MODEL_NAME, apiKey));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.callbackExecutor = new ThreadPoolExecutor(CALLBACK_THREADS, CALLBACK_THREADS,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> new Thread(r, "llm-callback-" + threadCount.incrementAndGet()));
+        callbackExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Executor the callbacks run on; callers may use it for their own short follow-up work. */
+    public ExecutorService getExecutor() {
+        return callbackExecutor;
+    }
+
+    /**
+     * Generate text for {@code prompt}.
+     *
+     * @param name label for the latency log
+     * @param owner lifecycle to cancel the request with, or null to let it finish regardless
+     */
+    public Request generate(String name, String prompt, @Nullable LifecycleOwner owner, Callback callback) {
+        return enqueue(new Request(name, prompt, callback, null), owner);
+    }
+
+    /**
+     * Like {@link #generate}, but hands over the text piece by piece as the model produces it.
+     * Queueing, cancellation and metrics are the same.
+     */
+    public Request generateStream(String name, String prompt, @Nullable LifecycleOwner owner,
+                                  StreamCallback callback) {
+        return enqueue(new Request(name, prompt, null, callback), owner);
+    }
+
+    private Request enqueue(Request request, @Nullable LifecycleOwner owner) {
+        synchronized (this) {
+            stats.calls++;
+            pending.add(request);
+        }
+        if (owner != null) {
+            request.bindTo(owner);
+        }
+        startPending();
+        return request;
+    }
+
+    public synchronized Stats getStats() {
+        Stats copy = new Stats();
+        copy.calls = stats.calls;
+        copy.failures = stats.failures;
+        copy.cancelled = stats.cancelled;
+        copy.totalLatencyMs = stats.totalLatencyMs;
+        copy.maxLatencyMs = stats.maxLatencyMs;
+        return copy;
+    }
+
+    private void startPending() {
+        while (true) {
+            Request next;
+            synchronized (this) {
+                if (inFlight >= MAX_CONCURRENT || pending.isEmpty()) return;
+                next = pending.poll();
+                inFlight++;
+            }
+            next.start();
+        }
+    }
+
+    private synchronized void finished(Request request, boolean failed) {
+        inFlight--;
+        if (request.cancelled) {
+            stats.cancelled++;
+            return;
+        }
+        long latency = SystemClock.elapsedRealtime() - request.startedAt;
+        if (failed) stats.failures++;
+        stats.totalLatencyMs += latency;
+        stats.maxLatencyMs = Math.max(stats.maxLatencyMs, latency);
+        String firstChunk = request.firstChunkAt > 0
+                ? ", first chunk " + (request.firstChunkAt - request.startedAt) + " ms" : "";
+        Log.i(TAG, request.name + " took " + latency + " ms" + (failed ? " (failed)" : "") + firstChunk
+                + ", queued " + (request.startedAt - request.createdAt) + " ms; " + stats);
+    }
+
+    // Blocked or empty candidates make getText() throw instead of returning null
+    private static String textOf(GenerateContentResponse response) {
+        return response.getText();
+    }
+
+    /** A queued or running generation. */
+    public class Request implements DefaultLifecycleObserver {
+        private final String name;
+        private final String prompt;
+        @Nullable
+        private final Callback callback;
+        @Nullable
+        private final StreamCallback streamCallback;
+        private final long createdAt = SystemClock.elapsedRealtime();
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+        private long startedAt;
+        private volatile long firstChunkAt = 0;
+        private volatile boolean cancelled = false;
+        private ListenableFuture<GenerateContentResponse> future;
+        private Subscription subscription;
+        private LifecycleOwner owner;
+
+        private Request(String name, String prompt, @Nullable Callback callback,
+                        @Nullable StreamCallback streamCallback) {
+            this.name = name;
+            this.prompt = prompt;
+            this.callback = callback;
+            this.streamCallback = streamCallback;
+        }
+
+        // Lifecycle observers must be registered on the main thread
+        private void bindTo(LifecycleOwner owner) {
+            mainHandler.post(() -> {
+                if (cancelled) return;
+                if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+                    cancel();
+                    return;
+                }
+                this.owner = owner;
+                owner.getLifecycle().addObserver(this);
+            });
+        }
+
+        private void start() {
+            synchronized (this) {
+                startedAt = SystemClock.elapsedRealtime();
+            }
+            if (cancelled) {
+                // Cancelled between leaving the queue and starting
+                complete(false);
+                return;
+            }
+            Content content = new Content.Builder().addText(prompt).build();
+            if (streamCallback != null) {
+                model.generateContentStream(content).subscribe(new StreamSubscriber());
+                return;
+            }
+
+            synchronized (this) {
+                future = model.generateContent(content);
+                if (cancelled) future.cancel(true);
+            }
+            Futures.addCallback(future, new FutureCallback<GenerateContentResponse>() {
+                @Override
+                public void onSuccess(GenerateContentResponse result) {
+                    complete(false);
+                    if (cancelled) return;
+                    String text;
+                    try {
+                        text = textOf(result);
+                    } catch (RuntimeException e) {
+                        callback.onFailure(e);
+                        return;
+                    }
+                    callback.onSuccess(text);
+                }
+
+                @Override
+                public void onFailure(@NonNull Throwable t) {
+                    complete(true);
+                    if (!cancelled) {
+                        callback.onFailure(t);
+                    }
+                }
+            }, callbackExecutor);
+        }
+
+        private class StreamSubscriber implements Subscriber<GenerateContentResponse> {
+            @Override
+            public void onSubscribe(Subscription s) {
+                synchronized (Request.this) {
+                    subscription = s;
+                }
+                if (cancelled) {
+                    s.cancel();
+                    complete(false);
+                } else {
+                    s.request(Long.MAX_VALUE);
+                }
+            }
+
+            @Override
+            public void onNext(GenerateContentResponse response) {
+                if (cancelled) return;
+                if (firstChunkAt == 0) {
+                    firstChunkAt = SystemClock.elapsedRealtime();
+                }
+                String text;
+                try {
+                    text = textOf(response);
+                } catch (RuntimeException e) {
+                    // An empty chunk, e.g. the final one carrying only usage metadata
+                    return;
+                }
+                if (text != null && !text.isEmpty()) {
+                    streamCallback.onChunk(text);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                complete(true);
+                if (!cancelled) {
+                    streamCallback.onFailure(t);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                complete(false);
+                if (!cancelled) {
+                    streamCallback.onComplete();
+                }
+            }
+        }
+
+        // Runs once per started request, however it ends
+        private void complete(boolean failed) {
+            if (!completed.compareAndSet(false, true)) return;
+            finished(this, failed);
+            unbind();
+            startPending();
+        }
+
+        /** Drop the request; its callback will not be called. */
+        public void cancel() {
+            boolean wasPending;
+            synchronized (LlmClient.this) {
+                cancelled = true;
+                wasPending = pending.remove(this);
+                if (wasPending) stats.cancelled++;
+            }
+            Subscription s;
+            synchronized (this) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+                s = subscription;
+            }
+            if (s != null) {
+                // A cancelled stream may never call onError or onComplete
+                s.cancel();
+                complete(false);
+            }
+            unbind();
+        }
+
+        private void unbind() {
+            mainHandler.post(() -> {
+                if (owner != null) {
+                    owner.getLifecycle().removeObserver(this);
+                    owner = null;
+                }
+            });
+        }
+
+        @Override
+        public void onDestroy(@NonNull LifecycleOwner owner) {
+            Log.d(TAG, name + " cancelled with its lifecycle");
+            cancel();
+        }
+    }
+}
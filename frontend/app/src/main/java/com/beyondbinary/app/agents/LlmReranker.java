@@ -0,0 +1,148 @@
+package com.beyondbinary.app.agents;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.beyondbinary.app.Event;
+
+import java.util.List;
+
+/**
+ * {@link RankingPipeline} stage that lets Gemini re-order the head of the current order.
+ *
+ * The prompt is the preamble plus the candidates that fit {@link RankingPromptBuilder}'s
+ * budget; results are cached in {@link RankingCache}. If the preamble is null, the call fails
+ * or the view goes away, the order is left as it was.
+ *
+ * In streaming mode ids are read as the response arrives and each new prefix of the ranking
+ * is published, so the top events move into place before the model has finished.
+ */
+public class LlmReranker implements RankingPipeline.Stage {
+
+    private static final String TAG = "LlmReranker";
+
+    /** Profile and instructions placed before the event list, or null to skip the model. */
+    public interface Preamble {
+        String build(RankingPipeline.Ranking ranking);
+    }
+
+    private final String name;
+    private final boolean streaming;
+    private final Preamble preamble;
+    private final RankingCache cache;
+    private final LlmClient llm;
+    private final RankingPromptBuilder promptBuilder = new RankingPromptBuilder();
+
+    /**
+     * @param name label for logs and cache keys; use one per distinct prompt
+     * @param streaming publish the ranking progressively while the response streams in
+     */
+    public LlmReranker(Context context, String name, boolean streaming, Preamble preamble) {
+        this.name = name;
+        this.streaming = streaming;
+        this.preamble = preamble;
+        this.cache = RankingCache.getInstance(context);
+        this.llm = LlmClient.getInstance();
+    }
+
+    @Override
+    public String getName() {
+        return "llm";
+    }
+
+    @Override
+    public boolean isSlow() {
+        return true;
+    }
+
+    @Override
+    public void run(RankingPipeline.Ranking ranking, Runnable done) {
+        String text = ranking.events.isEmpty() ? null : preamble.build(ranking);
+        if (text == null) {
+            done.run();
+            return;
+        }
+
+        RankingPromptBuilder.Prompt prompt = promptBuilder.build(text, ranking.events);
+        String cacheKey = RankingCache.keyFor(name, prompt.text);
+        String cached = cache.get(cacheKey);
+        if (cached != null) {
+            Log.i(TAG, name + ": using cached ranking for " + ranking.events.size() + " events");
+            apply(ranking, prompt.merge(cached));
+            done.run();
+            return;
+        }
+
+        Log.i(TAG, name + ": sending " + prompt.head.size() + "/" + ranking.events.size() + " events to Gemini");
+        Log.d(TAG, "Full prompt:\n" + prompt.text);
+        if (streaming) {
+            stream(ranking, prompt, cacheKey, done);
+            return;
+        }
+        llm.generate(name, prompt.text, ranking.owner, new LlmClient.Callback() {
+            @Override
+            public void onSuccess(String response) {
+                Log.i(TAG, name + ": response " + response);
+                if (response != null) {
+                    List<Event> ranked = prompt.merge(response);
+                    cache.put(cacheKey, ranked);
+                    apply(ranking, ranked);
+                } else {
+                    Log.w(TAG, name + ": empty response, keeping local order");
+                }
+                done.run();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                Log.e(TAG, name + ": Gemini call failed, keeping local order: "
+                        + t.getClass().getSimpleName() + " - " + t.getMessage(), t);
+                done.run();
+            }
+        });
+    }
+
+    private void stream(RankingPipeline.Ranking ranking, RankingPromptBuilder.Prompt prompt,
+                        String cacheKey, Runnable done) {
+        StringBuilder response = new StringBuilder();
+        int[] published = {0};
+        llm.generateStream(name, prompt.text, ranking.owner, new LlmClient.StreamCallback() {
+            @Override
+            public void onChunk(String text) {
+                response.append(text);
+                // A trailing number may continue in the next chunk, so stop before it
+                int end = response.length();
+                while (end > 0 && Character.isDigit(response.charAt(end - 1))) end--;
+                if (end > published[0]) {
+                    published[0] = end;
+                    ranking.publish(prompt.merge(response.subSequence(0, end)));
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                Log.i(TAG, name + ": streamed response " + response);
+                List<Event> ranked = prompt.merge(response);
+                cache.put(cacheKey, ranked);
+                apply(ranking, ranked);
+                done.run();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                // What streamed so far is on screen, but the final order falls back to local
+                // so the feed doesn't settle on half a ranking
+                Log.e(TAG, name + ": Gemini stream failed, keeping local order: "
+                        + t.getClass().getSimpleName() + " - " + t.getMessage(), t);
+                done.run();
+            }
+        });
+    }
+
+    private static void apply(RankingPipeline.Ranking ranking, List<Event> ranked) {
+        if (!ranked.equals(ranking.events)) {
+            ranking.events = ranked;
+            ranking.markRefined();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.beyondbinary.app.agents;
+
+/**
+ * Reads event ids out of a model response ("12, 7,3", possibly with stray text) without
+ * splitting, trimming or boxing. Text can be fed in pieces; an id cut across two pieces is
+ * still read once.
+ */
+public class RankedIdParser {
+
+    public interface Sink {
+        void onId(int id);
+    }
+
+    private final Sink sink;
+    private long value = 0;
+    private boolean inNumber = false;
+
+    public RankedIdParser(Sink sink) {
+        this.sink = sink;
+    }
+
+    /** Parse a complete response. */
+    public static void parse(CharSequence text, Sink sink) {
+        RankedIdParser parser = new RankedIdParser(sink);
+        parser.feed(text);
+        parser.finish();
+    }
+
+    public void feed(CharSequence chunk) {
+        for (int i = 0, n = chunk.length(); i < n; i++) {
+            char c = chunk.charAt(i);
+            if (c >= '0' && c <= '9') {
+                // Anything too long to be an id is dropped at the end of the number
+                if (value <= Integer.MAX_VALUE) {
+                    value = value * 10 + (c - '0');
+                }
+                inNumber = true;
+            } else {
+                emit();
+            }
+        }
+    }
+
+    /** Flush a trailing id; call once the whole response has been fed. */
+    public void finish() {
+        emit();
+    }
+
+    private void emit() {
+        if (inNumber && value <= Integer.MAX_VALUE) {
+            sink.onId((int) value);
+        }
+        inNumber = false;
+        value = 0;
+    }
+}
@@ -0,0 +1,160 @@
+package com.beyondbinary.app.agents;
+
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.beyondbinary.app.Event;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Two-tier cache (memory, then disk) for LLM rankings, so reopening a feed whose inputs have
+ * not changed renders the ranked order without another Gemini call.
+ *
+ * Keys are a SHA-256 of the full prompt, which already contains the bio, interests,
+ * health summary and every candidate event, so any change to those is a different key; a
+ * new interaction shows up through the interest profile and the candidates it leaves out.
+ * Entries also expire after {@link #TTL_MS}. Values are the ranked event ids as the comma-separated list the model returns.
+ */
+public class RankingCache {
+
+    private static final String TAG = "RankingCache";
+    private static final long TTL_MS = 6 * 60 * 60 * 1000L;
+    private static final int MEMORY_ENTRIES = 16;
+    private static final int MAX_DISK_ENTRIES = 64;
+
+    private static RankingCache instance;
+
+    private static class Entry {
+        final long createdAt;
+        final String rankedIds;
+
+        Entry(long createdAt, String rankedIds) {
+            this.createdAt = createdAt;
+            this.rankedIds = rankedIds;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - createdAt > TTL_MS;
+        }
+    }
+
+    private final LruCache<String, Entry> memory = new LruCache<>(MEMORY_ENTRIES);
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final File dir;
+
+    public static synchronized RankingCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new RankingCache(new File(context.getApplicationContext().getCacheDir(), "ranking"));
+        }
+        return instance;
+    }
+
+    private RankingCache(File dir) {
+        this.dir = dir;
+    }
+
+    /** Cache key for a prompt. {@code scope} separates prompts from different rankers. */
+    public static String keyFor(String scope, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(scope.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            byte[] hash = digest.digest(prompt.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    /** Ranked ids for {@code key}, or null. May read from disk, so call off the main thread. */
+    public String get(String key) {
+        Entry entry = memory.get(key);
+        if (entry == null) {
+            entry = readDisk(key);
+            if (entry != null) {
+                memory.put(key, entry);
+            }
+        }
+        if (entry == null) return null;
+        if (entry.isExpired()) {
+            remove(key);
+            return null;
+        }
+        return entry.rankedIds;
+    }
+
+    /** Store a ranking. Also writes to disk, so call off the main thread. */
+    public void put(String key, List<Event> ranked) {
+        StringBuilder ids = new StringBuilder();
+        for (Event event : ranked) {
+            if (ids.length() > 0) ids.append(',');
+            ids.append(event.getId());
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), ids.toString());
+        memory.put(key, entry);
+        writeDisk(key, entry);
+    }
+
+    private synchronized void remove(String key) {
+        memory.remove(key);
+        new File(dir, key).delete();
+    }
+
+    private synchronized Entry readDisk(String key) {
+        File file = new File(dir, key);
+        if (!file.exists()) return null;
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                int n = in.read(bytes, read, bytes.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+            String content = new String(bytes, 0, read, StandardCharsets.UTF_8);
+            int newline = content.indexOf('\n');
+            if (newline < 0) return null;
+            return new Entry(Long.parseLong(content.substring(0, newline)), content.substring(newline + 1));
+        } catch (IOException | NumberFormatException e) {
+            Log.w(TAG, "Dropping unreadable ranking cache entry", e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private synchronized void writeDisk(String key, Entry entry) {
+        if (!dir.exists() && !dir.mkdirs()) return;
+        trimDisk();
+        try (FileOutputStream out = new FileOutputStream(new File(dir, key))) {
+            out.write((entry.createdAt + "\n" + entry.rankedIds).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write ranking cache entry", e);
+        }
+    }
+
+    // Keep the directory bounded by dropping the oldest entries
+    private void trimDisk() {
+        File[] files = dir.listFiles();
+        if (files == null || files.length < MAX_DISK_ENTRIES) return;
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i <= files.length - MAX_DISK_ENTRIES; i++) {
+            files[i].delete();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.beyondbinary.app.agents;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.data.models.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Ranks a feed by running {@link Stage}s in order over a shared {@link Ranking}: typically
+ * filters, feature extractors, a scorer, a tie-breaker and an optional LLM re-ranker.
+ *
+ * Stages run off the main thread. Before a slow stage starts, the order so far is published
+ * so the feed can render it; the final order follows. Time spent in each stage is logged.
+ */
+public class RankingPipeline {
+
+    private static final String TAG = "RankingPipeline";
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    public interface Stage {
+        String getName();
+
+        /** Runs on a background thread. Call {@code done} exactly once, from any thread. */
+        void run(Ranking ranking, Runnable done);
+
+        /** Slow stages (network) have the order so far published before they start. */
+        default boolean isSlow() {
+            return false;
+        }
+    }
+
+    /** A stage that finishes before returning. */
+    public abstract static class SyncStage implements Stage {
+        private final String name;
+
+        protected SyncStage(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public final void run(Ranking ranking, Runnable done) {
+            apply(ranking);
+            done.run();
+        }
+
+        protected abstract void apply(Ranking ranking);
+    }
+
+    public interface Listener {
+        /**
+         * The order so far: before a slow stage starts, and whenever a stage publishes a
+         * partial result. Main thread.
+         */
+        void onProgress(List<Event> events);
+
+        /** The final order; {@code refined} is true when an LLM stage changed it. Main thread. */
+        void onResult(List<Event> events, boolean refined);
+    }
+
+    /** State passed through the stages. */
+    public static class Ranking {
+        public final User user;
+        @Nullable
+        public final LifecycleOwner owner;
+        /** Current candidates in current order; stages may replace or reorder it. */
+        public List<Event> events;
+        boolean refined = false;
+        Consumer<List<Event>> progress;
+
+        private final Map<Integer, Map<String, Double>> features = new HashMap<>();
+        private final Map<Integer, Double> scores = new HashMap<>();
+        private final Map<String, Long> timings = new LinkedHashMap<>();
+
+        Ranking(User user, List<Event> events, @Nullable LifecycleOwner owner) {
+            this.user = user;
+            this.events = new ArrayList<>(events);
+            this.owner = owner;
+        }
+
+        public void setFeature(int eventId, String name, double value) {
+            Map<String, Double> eventFeatures = features.get(eventId);
+            if (eventFeatures == null) {
+                eventFeatures = new HashMap<>();
+                features.put(eventId, eventFeatures);
+            }
+            eventFeatures.put(name, value);
+        }
+
+        public double getFeature(int eventId, String name) {
+            Map<String, Double> eventFeatures = features.get(eventId);
+            Double value = eventFeatures != null ? eventFeatures.get(name) : null;
+            return value != null ? value : 0;
+        }
+
+        public void setScore(int eventId, double score) {
+            scores.put(eventId, score);
+        }
+
+        public double getScore(int eventId) {
+            Double score = scores.get(eventId);
+            return score != null ? score : 0;
+        }
+
+        /** Show {@code partial} in the feed now, before the current stage finishes. */
+        public void publish(List<Event> partial) {
+            progress.accept(new ArrayList<>(partial));
+        }
+
+        /** Mark the order as changed by a model rather than local scoring. */
+        public void markRefined() {
+            refined = true;
+        }
+    }
+
+    private final String name;
+    private final List<Stage> stages;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private RankingPipeline(String name, List<Stage> stages) {
+        this.name = name;
+        this.stages = Collections.unmodifiableList(new ArrayList<>(stages));
+    }
+
+    public static class Builder {
+        private final String name;
+        private final List<Stage> stages = new ArrayList<>();
+
+        public Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder add(Stage stage) {
+            stages.add(stage);
+            return this;
+        }
+
+        public RankingPipeline build() {
+            return new RankingPipeline(name, stages);
+        }
+    }
+
+    /**
+     * Rank {@code events} for {@code user} (may be null when signed out). Nothing is delivered
+     * once {@code owner} is destroyed.
+     */
+    public void run(User user, List<Event> events, @Nullable LifecycleOwner owner, Listener listener) {
+        Ranking ranking = new Ranking(user, events, owner);
+        ranking.progress = partial -> deliver(ranking, () -> listener.onProgress(partial));
+        EXECUTOR.execute(() -> runStage(ranking, 0, System.nanoTime(), listener));
+    }
+
+    private void runStage(Ranking ranking, int index, long startedAt, Listener listener) {
+        if (index == stages.size()) {
+            ranking.timings.put("total", System.nanoTime() - startedAt);
+            Log.i(TAG, name + " ranked " + ranking.events.size() + " events: " + formatTimings(ranking.timings));
+            List<Event> result = new ArrayList<>(ranking.events);
+            deliver(ranking, () -> listener.onResult(result, ranking.refined));
+            return;
+        }
+
+        Stage stage = stages.get(index);
+        if (stage.isSlow()) {
+            ranking.publish(ranking.events);
+        }
+
+        long stageStart = System.nanoTime();
+        boolean[] finished = {false};
+        Runnable done = () -> {
+            synchronized (finished) {
+                if (finished[0]) return;
+                finished[0] = true;
+            }
+            ranking.timings.put(stage.getName(), System.nanoTime() - stageStart);
+            // Async stages call back on their own thread; keep the rest of the pipeline on ours
+            EXECUTOR.execute(() -> runStage(ranking, index + 1, startedAt, listener));
+        };
+        try {
+            stage.run(ranking, done);
+        } catch (RuntimeException e) {
+            Log.e(TAG, name + ": stage " + stage.getName() + " failed, continuing with the order so far", e);
+            done.run();
+        }
+    }
+
+    private void deliver(Ranking ranking, Runnable delivery) {
+        mainHandler.post(() -> {
+            if (ranking.owner != null
+                    && ranking.owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+                return;
+            }
+            delivery.run();
+        });
+    }
+
+    private static String formatTimings(Map<String, Long> timings) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> entry : timings.entrySet()) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(entry.getKey()).append('=')
+              .append(String.format(Locale.US, "%.1fms", entry.getValue() / 1e6));
+        }
+        return sb.toString();
+    }
+}
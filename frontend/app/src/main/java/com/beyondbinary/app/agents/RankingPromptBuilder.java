@@ -0,0 +1,118 @@
+package com.beyondbinary.app.agents;
+
+import android.util.SparseArray;
+
+import com.beyondbinary.app.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds ranking prompts that stay within a token budget however large the catalog gets.
+ *
+ * Candidates must already be in local order (see {@link LexicalRanker}). Only the head that
+ * fits the budget, at most {@code maxCandidates} events with shortened descriptions, is sent
+ * to the model; the rest keeps its local order behind the model's ranking.
+ */
+public class RankingPromptBuilder {
+
+    public static final int DEFAULT_TOKEN_BUDGET = 3000;
+    public static final int DEFAULT_MAX_CANDIDATES = 40;
+
+    private static final int DESCRIPTION_CHARS = 140;
+    // Gemini averages roughly four characters of English per token
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final int tokenBudget;
+    private final int maxCandidates;
+
+    /** A prompt and the split of the candidates it was built from. */
+    public static class Prompt {
+        public final String text;
+        /** Candidates listed in the prompt, in local order. */
+        public final List<Event> head;
+        /** Candidates left out, in local order. */
+        public final List<Event> tail;
+
+        Prompt(String text, List<Event> head, List<Event> tail) {
+            this.text = text;
+            this.head = head;
+            this.tail = tail;
+        }
+
+        /**
+         * The full ranking: head events in the order of the model's comma-separated ids, head
+         * events it skipped, then the tail. Ids outside the head are ignored.
+         */
+        public List<Event> merge(CharSequence response) {
+            SparseArray<Event> remaining = new SparseArray<>(head.size());
+            for (Event event : head) {
+                remaining.put(event.getId(), event);
+            }
+
+            List<Event> ranked = new ArrayList<>(head.size() + tail.size());
+            RankedIdParser.parse(response, id -> {
+                Event event = remaining.get(id);
+                if (event != null) {
+                    remaining.remove(id);
+                    ranked.add(event);
+                }
+            });
+            for (Event event : head) {
+                if (remaining.get(event.getId()) != null) {
+                    ranked.add(event);
+                }
+            }
+            ranked.addAll(tail);
+            return ranked;
+        }
+    }
+
+    public RankingPromptBuilder() {
+        this(DEFAULT_TOKEN_BUDGET, DEFAULT_MAX_CANDIDATES);
+    }
+
+    public RankingPromptBuilder(int tokenBudget, int maxCandidates) {
+        this.tokenBudget = tokenBudget;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /** {@code preamble} (profile and instructions) followed by as many event lines as fit. */
+    public Prompt build(String preamble, List<Event> candidates) {
+        StringBuilder sb = new StringBuilder(preamble);
+        sb.append("Events:\n");
+        int budgetChars = tokenBudget * CHARS_PER_TOKEN;
+
+        List<Event> head = new ArrayList<>();
+        int i = 0;
+        for (; i < candidates.size() && head.size() < maxCandidates; i++) {
+            String line = eventLine(candidates.get(i));
+            // Always send at least one event, even with a preamble over budget
+            if (!head.isEmpty() && sb.length() + line.length() > budgetChars) break;
+            sb.append(line);
+            head.add(candidates.get(i));
+        }
+        return new Prompt(sb.toString(), head, new ArrayList<>(candidates.subList(i, candidates.size())));
+    }
+
+    private static String eventLine(Event event) {
+        return "ID:" + event.getId()
+                + " | " + event.getTitle()
+                + " | " + event.getEventType()
+                + " | " + summarize(event.getDescription())
+                + "\n";
+    }
+
+    /** First sentence of the description, cut at a word boundary if still too long. */
+    static String summarize(String description) {
+        if (description == null) return "";
+        String text = description.replaceAll("\\s+", " ").trim();
+        int sentenceEnd = text.indexOf(". ");
+        if (sentenceEnd > 0 && sentenceEnd < DESCRIPTION_CHARS) {
+            return text.substring(0, sentenceEnd + 1);
+        }
+        if (text.length() <= DESCRIPTION_CHARS) return text;
+        int cut = text.lastIndexOf(' ', DESCRIPTION_CHARS);
+        return text.substring(0, cut > 0 ? cut : DESCRIPTION_CHARS) + "...";
+    }
+}
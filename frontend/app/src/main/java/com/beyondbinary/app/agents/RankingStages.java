@@ -0,0 +1,150 @@
+package com.beyondbinary.app.agents;
+
+import android.content.Context;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.similarity.SimilarEvents;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/** The local {@link RankingPipeline} stages both feeds are built from. */
+public final class RankingStages {
+
+    public static final String FEATURE_LEXICAL = "lexical";
+    public static final String FEATURE_TYPE_AFFINITY = "type_affinity";
+    public static final String FEATURE_HEALTH = "health";
+    public static final String FEATURE_SEMANTIC = "semantic";
+
+    private RankingStages() {}
+
+    /** Keep only events matching {@code keep}. */
+    public static RankingPipeline.Stage filter(String name, Predicate<Event> keep) {
+        return new RankingPipeline.SyncStage(name) {
+            @Override
+            protected void apply(RankingPipeline.Ranking ranking) {
+                List<Event> kept = new ArrayList<>(ranking.events.size());
+                for (Event event : ranking.events) {
+                    if (event != null && keep.test(event)) {
+                        kept.add(event);
+                    }
+                }
+                ranking.events = kept;
+            }
+        };
+    }
+
+    /** {@link #FEATURE_LEXICAL}: BM25 match of the event against the bio and interest tags. */
+    public static RankingPipeline.Stage lexicalFeature(List<Event> catalog) {
+        return new RankingPipeline.SyncStage("lexical") {
+            @Override
+            protected void apply(RankingPipeline.Ranking ranking) {
+                if (!LexicalRanker.hasQuery(ranking.user)) return;
+                double[] scores = LexicalRanker.forEvents(catalog).scores(ranking.user, ranking.events);
+                for (int i = 0; i < scores.length; i++) {
+                    ranking.setFeature(ranking.events.get(i).getId(), FEATURE_LEXICAL, scores[i]);
+                }
+            }
+        };
+    }
+
+    /**
+     * {@link #FEATURE_SEMANTIC}: embedding similarity of the event to the bio and interest tags,
+     * which also matches related wording BM25 misses ("hiking" and "hike", shared categories).
+     */
+    public static RankingPipeline.Stage semanticFeature(Context context) {
+        SimilarEvents similarEvents = SimilarEvents.getInstance(context);
+        return new RankingPipeline.SyncStage("semantic") {
+            @Override
+            protected void apply(RankingPipeline.Ranking ranking) {
+                if (ranking.user == null) return;
+                StringBuilder query = new StringBuilder();
+                if (ranking.user.getBio() != null) query.append(ranking.user.getBio());
+                for (String tag : ranking.user.getInterestTagsAsList()) {
+                    query.append(' ').append(tag);
+                }
+                double[] similarities = similarEvents.similarities(query.toString(), ranking.events);
+                for (int i = 0; i < similarities.length; i++) {
+                    // Unrelated texts land slightly either side of 0; only reward actual overlap
+                    ranking.setFeature(ranking.events.get(i).getId(), FEATURE_SEMANTIC, Math.max(0, similarities[i]));
+                }
+            }
+        };
+    }
+
+    /**
+     * {@link #FEATURE_TYPE_AFFINITY}: how much of the user's recent activity is in the event's
+     * type or category, between 0 and 1, from their {@link InterestProfile}.
+     */
+    public static RankingPipeline.Stage typeAffinityFeature(InterestProfile interests, int userId) {
+        return new RankingPipeline.SyncStage("type-affinity") {
+            @Override
+            protected void apply(RankingPipeline.Ranking ranking) {
+                if (userId == -1) return;
+                InterestProfile.Profile profile = interests.get(userId);
+                if (profile.isEmpty()) return;
+                for (Event event : ranking.events) {
+                    double affinity = profile.affinity(event.getEventType());
+                    if (affinity > 0) {
+                        ranking.setFeature(event.getId(), FEATURE_TYPE_AFFINITY, affinity);
+                    }
+                }
+            }
+        };
+    }
+
+    /** {@link #FEATURE_HEALTH}: how much the event would help with the user's health gaps, 0 to 1. */
+    public static RankingPipeline.Stage healthFeature(HealthScorer scorer) {
+        return new RankingPipeline.SyncStage("health") {
+            @Override
+            protected void apply(RankingPipeline.Ranking ranking) {
+                for (Event event : ranking.events) {
+                    ranking.setFeature(event.getId(), FEATURE_HEALTH, scorer.score(event));
+                }
+            }
+        };
+    }
+
+    /** Score each event as the weighted sum of its features; missing features count as 0. */
+    public static RankingPipeline.Stage weightedScorer(Map<String, Double> weights) {
+        return new RankingPipeline.SyncStage("scorer") {
+            @Override
+            protected void apply(RankingPipeline.Ranking ranking) {
+                for (Event event : ranking.events) {
+                    double score = 0;
+                    for (Map.Entry<String, Double> weight : weights.entrySet()) {
+                        score += weight.getValue() * ranking.getFeature(event.getId(), weight.getKey());
+                    }
+                    ranking.setScore(event.getId(), score);
+                }
+            }
+        };
+    }
+
+    /**
+     * Sort by score, best first. Equal scores are ordered by {@code tieBreak} and then keep
+     * their incoming order, so the result is deterministic.
+     */
+    public static RankingPipeline.Stage tieBreaker(Comparator<Event> tieBreak) {
+        return new RankingPipeline.SyncStage("tie-breaker") {
+            @Override
+            protected void apply(RankingPipeline.Ranking ranking) {
+                List<Event> sorted = new ArrayList<>(ranking.events);
+                Collections.sort(sorted, (a, b) -> {
+                    int byScore = Double.compare(ranking.getScore(b.getId()), ranking.getScore(a.getId()));
+                    return byScore != 0 ? byScore : tieBreak.compare(a, b);
+                });
+                ranking.events = sorted;
+            }
+        };
+    }
+
+    /** Events with more open spots first; full events sink below open ones. */
+    public static final Comparator<Event> MOST_SPOTS_LEFT = (a, b) -> Integer.compare(
+            b.getMaxParticipants() - b.getCurrentParticipants(),
+            a.getMaxParticipants() - a.getCurrentParticipants());
+}
@@ -6,26 +6,38 @@ import java.util.Map;
 
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.Multipart;
 import retrofit2.http.POST;
 import retrofit2.http.PUT;
 import retrofit2.http.Part;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 public interface ApiService {
 
     // Event endpoints
+    // Keyset pagination, newest first. Pass 0 for the first page, then the previous nextCursor
+    @Headers(CborConverterFactory.ACCEPT_CBOR)
     @GET("events")
-    Call<EventsResponse> getAllEvents();
+    Call<EventsResponse> getEventsPage(@Query("cursor") int cursor, @Query("limit") int limit);
 
+    // Delta sync: upserts and tombstones with a version above the cursor (0 = full sync)
+    @Streaming
+    @GET("events/sync")
+    Call<ResponseBody> streamEventsSince(@Query("since") long cursor, @Query("limit") int limit);
+
+    @Headers(CborConverterFactory.ACCEPT_CBOR)
     @GET("events")
     Call<EventsResponse> getEventsByType(@Query("eventType") String eventType);
 
+    @Headers(HttpCachePolicy.HEADER_POLICY + ": " + HttpCachePolicy.REVALIDATE)
     @GET("events/{id}")
     Call<EventResponse> getEventById(@Path("id") int id);
 
@@ -36,6 +48,20 @@ public interface ApiService {
             @Query("radius") double radiusKm
     );
 
+    // Events inside a box, see EventTileCache; unlocated also returns events without coordinates
+    @Headers({
+            HttpCachePolicy.HEADER_POLICY + ": " + HttpCachePolicy.REVALIDATE,
+            CborConverterFactory.ACCEPT_CBOR
+    })
+    @GET("events/bbox")
+    Call<EventsResponse> getEventsInBounds(
+            @Query("south") double south,
+            @Query("west") double west,
+            @Query("north") double north,
+            @Query("east") double east,
+            @Query("unlocated") boolean includeUnlocated
+    );
+
     @POST("events")
     Call<CreateEventResponse> createEvent(@Body Event event);
 
@@ -69,9 +95,21 @@ public interface ApiService {
     Call<InteractionsResponse> getUserInteractions(@Path("userId") int userId);
 
     // User events endpoint
+    @Headers({
+            HttpCachePolicy.HEADER_POLICY + ": " + HttpCachePolicy.REVALIDATE,
+            CborConverterFactory.ACCEPT_CBOR
+    })
     @GET("users/{userId}/events")
     Call<UserEventsResponse> getUserEvents(@Path("userId") int userId);
 
+    // Same list served from the cache first, with the revalidation in the background
+    @Headers({
+            HttpCachePolicy.HEADER_POLICY + ": " + HttpCachePolicy.STALE_WHILE_REVALIDATE,
+            CborConverterFactory.ACCEPT_CBOR
+    })
+    @GET("users/{userId}/events")
+    Call<UserEventsResponse> getUserEventsStaleWhileRevalidate(@Path("userId") int userId);
+
     // Event photo endpoints
     @Multipart
     @POST("events/{id}/photos")
@@ -82,6 +120,7 @@ public interface ApiService {
     );
 
     // Attended galleries endpoint (profile grid)
+    @Headers(HttpCachePolicy.HEADER_POLICY + ": " + HttpCachePolicy.REVALIDATE)
     @GET("users/{userId}/attended-galleries")
     Call<AttendedGalleriesResponse> getAttendedGalleries(@Path("userId") int userId);
 
@@ -92,9 +131,18 @@ public interface ApiService {
     @POST("messages")
     Call<SendMessageResponse> sendMessage(@Body Map<String, Object> body);
 
+    @Headers(CborConverterFactory.ACCEPT_CBOR)
     @GET("messages/{userId}/{otherUserId}")
     Call<MessagesResponse> getMessages(@Path("userId") int userId, @Path("otherUserId") int otherUserId);
 
+    // Several GETs in one round trip, see CompositeBatch
+    @POST("composite")
+    Call<CompositeResponse> getComposite(@Body CompositeRequest request);
+
+    // Offline outbox: queued writes applied in order, each idempotent by its request id
+    @POST("outbox/batch")
+    Call<OutboxBatchResponse> applyOutboxBatch(@Body OutboxBatchRequest request);
+
     // Chatbot endpoint
     @POST("chatbot/chat")
     Call<ChatbotResponse> sendChatMessage(@Body ChatbotRequest request);
@@ -0,0 +1,75 @@
+package com.beyondbinary.app.api;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Response converter for the compact CBOR encoding of the list endpoints.
+ *
+ * Endpoints opt in by sending {@link #ACCEPT_CBOR}. A body that comes back as
+ * {@code application/cbor} is decoded through {@link CborDecoder} into the same models;
+ * anything else (an older server, an error page) goes to the next converter, i.e. Gson.
+ */
+public final class CborConverterFactory extends Converter.Factory {
+
+    public static final String CONTENT_TYPE = "application/cbor";
+
+    /** {@code @Headers} value asking for CBOR while still accepting JSON. */
+    public static final String ACCEPT_CBOR = "Accept: " + CONTENT_TYPE + ", application/json;q=0.9";
+
+    private final Gson gson;
+
+    private CborConverterFactory(Gson gson) {
+        this.gson = gson;
+    }
+
+    public static CborConverterFactory create(Gson gson) {
+        return new CborConverterFactory(gson);
+    }
+
+    @Nullable
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(@NonNull Type type,
+                                                            @NonNull Annotation[] annotations,
+                                                            @NonNull Retrofit retrofit) {
+        Converter<ResponseBody, ?> fallback = retrofit.nextResponseBodyConverter(this, type, annotations);
+        TypeAdapter<?> adapter = gson.getAdapter(TypeToken.get(type));
+        return new CborResponseConverter<>(adapter, fallback);
+    }
+
+    private static final class CborResponseConverter<T> implements Converter<ResponseBody, Object> {
+        private final TypeAdapter<T> adapter;
+        private final Converter<ResponseBody, ?> fallback;
+
+        CborResponseConverter(TypeAdapter<T> adapter, Converter<ResponseBody, ?> fallback) {
+            this.adapter = adapter;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public Object convert(@NonNull ResponseBody body) throws IOException {
+            MediaType mediaType = body.contentType();
+            boolean isCbor = mediaType != null
+                    && CONTENT_TYPE.equals(mediaType.type() + "/" + mediaType.subtype());
+            if (!isCbor) {
+                return fallback.convert(body);
+            }
+            try (ResponseBody b = body) {
+                return adapter.fromJsonTree(CborDecoder.decode(b.bytes()));
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.beyondbinary.app.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the CBOR subset the backend emits (see backend/cbor.js) into a Gson tree, so the
+ * existing {@code @SerializedName} mappings of the response models apply unchanged.
+ *
+ * Supports definite-length items, floats, and the stringref extension (tags 256 and 25)
+ * the server uses to send each repeated key or value only once.
+ */
+final class CborDecoder {
+
+    private static final int TAG_STRINGREF = 25;
+    private static final int TAG_STRINGREF_NAMESPACE = 256;
+
+    private final byte[] buf;
+    private int pos;
+    // Innermost stringref namespace last; byte strings hold a slot but are never referenced
+    private final List<List<String>> tables = new ArrayList<>();
+
+    private CborDecoder(byte[] buf) {
+        this.buf = buf;
+    }
+
+    static JsonElement decode(byte[] bytes) throws IOException {
+        CborDecoder decoder = new CborDecoder(bytes);
+        try {
+            JsonElement value = decoder.readItem();
+            if (decoder.pos != bytes.length) {
+                throw new IOException("Trailing bytes after CBOR item at " + decoder.pos);
+            }
+            return value;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Truncated CBOR body", e);
+        }
+    }
+
+    private static int minStringRefLength(int tableSize) {
+        if (tableSize < 24) return 3;
+        if (tableSize < 256) return 4;
+        if (tableSize < 65536) return 5;
+        return 7;
+    }
+
+    private JsonElement readItem() throws IOException {
+        int initial = buf[pos++] & 0xff;
+        int major = initial >>> 5;
+        int info = initial & 0x1f;
+
+        switch (major) {
+            case 0:
+                return new JsonPrimitive(readArgument(info));
+            case 1:
+                return new JsonPrimitive(-1 - readArgument(info));
+            case 2: {
+                int length = readLength(info);
+                pos += length;
+                remember(length, null);
+                // No response model has a binary field
+                return JsonNull.INSTANCE;
+            }
+            case 3:
+                return new JsonPrimitive(readText(info));
+            case 4: {
+                int length = readLength(info);
+                JsonArray array = new JsonArray(length);
+                for (int i = 0; i < length; i++) {
+                    array.add(readItem());
+                }
+                return array;
+            }
+            case 5: {
+                int length = readLength(info);
+                JsonObject object = new JsonObject();
+                for (int i = 0; i < length; i++) {
+                    String key = readKey();
+                    object.add(key, readItem());
+                }
+                return object;
+            }
+            case 6:
+                return readTagged(readArgument(info));
+            case 7:
+                return readSimple(info);
+            default:
+                throw new IOException("Unsupported CBOR major type " + major);
+        }
+    }
+
+    private JsonElement readTagged(long tag) throws IOException {
+        if (tag == TAG_STRINGREF_NAMESPACE) {
+            tables.add(new ArrayList<>());
+            JsonElement value = readItem();
+            tables.remove(tables.size() - 1);
+            return value;
+        }
+        if (tag == TAG_STRINGREF) {
+            return new JsonPrimitive(readStringRef());
+        }
+        // Unknown tags carry no meaning for the models, decode the content as is
+        return readItem();
+    }
+
+    private JsonElement readSimple(int info) throws IOException {
+        switch (info) {
+            case 20:
+                return new JsonPrimitive(false);
+            case 21:
+                return new JsonPrimitive(true);
+            case 22:
+            case 23:
+                return JsonNull.INSTANCE;
+            case 26: {
+                float value = Float.intBitsToFloat((int) readBigEndian(4));
+                return new JsonPrimitive(value);
+            }
+            case 27: {
+                double value = Double.longBitsToDouble(readBigEndian(8));
+                return new JsonPrimitive(value);
+            }
+            default:
+                throw new IOException("Unsupported CBOR simple value " + info);
+        }
+    }
+
+    /** Map keys are always text, either inline or as a stringref. */
+    private String readKey() throws IOException {
+        int initial = buf[pos++] & 0xff;
+        int major = initial >>> 5;
+        int info = initial & 0x1f;
+        if (major == 3) {
+            return readText(info);
+        }
+        if (major == 6 && readArgument(info) == TAG_STRINGREF) {
+            return readStringRef();
+        }
+        throw new IOException("Unsupported CBOR map key at " + (pos - 1));
+    }
+
+    private String readText(int info) throws IOException {
+        int length = readLength(info);
+        String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        remember(length, value);
+        return value;
+    }
+
+    private String readStringRef() throws IOException {
+        JsonElement index = readItem();
+        List<String> table = tables.isEmpty() ? null : tables.get(tables.size() - 1);
+        int i = index.getAsInt();
+        if (table == null || i < 0 || i >= table.size() || table.get(i) == null) {
+            throw new IOException("Unknown CBOR stringref " + i);
+        }
+        return table.get(i);
+    }
+
+    private void remember(int length, String value) {
+        if (tables.isEmpty()) return;
+        List<String> table = tables.get(tables.size() - 1);
+        if (length >= minStringRefLength(table.size())) {
+            table.add(value);
+        }
+    }
+
+    private int readLength(int info) throws IOException {
+        long length = readArgument(info);
+        if (length > buf.length - pos) {
+            throw new IOException("CBOR length " + length + " exceeds body");
+        }
+        return (int) length;
+    }
+
+    private long readArgument(int info) throws IOException {
+        if (info < 24) return info;
+        switch (info) {
+            case 24: return readBigEndian(1);
+            case 25: return readBigEndian(2);
+            case 26: return readBigEndian(4);
+            case 27: return readBigEndian(8);
+            default: throw new IOException("Unsupported CBOR length encoding " + info);
+        }
+    }
+
+    private long readBigEndian(int bytes) {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = (value << 8) | (buf[pos++] & 0xff);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,140 @@
+package com.beyondbinary.app.api;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Packs several reads into one {@code POST /composite} round trip and hands each typed
+ * result back to its own callback, so a screen that needs N reads pays the mobile round
+ * trip latency once.
+ *
+ * <pre>
+ * new CompositeBatch()
+ *         .getUser(userId, user -> ...)
+ *         .getUserInteractions(userId, interactions -> ...)
+ *         .enqueue();
+ * </pre>
+ *
+ * Callbacks run on the main thread. A part that fails, on its own or because the whole
+ * exchange failed, gets {@link PartCallback#onError} and the others are unaffected.
+ */
+public class CompositeBatch {
+
+    private static final String TAG = "CompositeBatch";
+    private static final Gson GSON = new Gson();
+
+    public interface PartCallback<T> {
+        void onSuccess(T body);
+
+        /** Optional: by default a failed part is only logged and the screen keeps what it shows. */
+        default void onError(Throwable t) {
+            Log.w(TAG, "Composite part failed", t);
+        }
+    }
+
+    private static class Part<T> {
+        final String id;
+        final String path;
+        final Class<T> type;
+        final PartCallback<T> callback;
+
+        Part(String id, String path, Class<T> type, PartCallback<T> callback) {
+            this.id = id;
+            this.path = path;
+            this.type = type;
+            this.callback = callback;
+        }
+
+        void deliver(CompositeResponse.SubResponse response) {
+            if (response == null) {
+                callback.onError(new IOException("No response for " + path));
+            } else if (response.getStatus() < 200 || response.getStatus() >= 300 || response.getBody() == null) {
+                callback.onError(new IOException(path + " failed: HTTP " + response.getStatus()));
+            } else {
+                T body;
+                try {
+                    body = GSON.fromJson(response.getBody(), type);
+                } catch (RuntimeException e) {
+                    callback.onError(e);
+                    return;
+                }
+                callback.onSuccess(body);
+            }
+        }
+    }
+
+    private final List<Part<?>> parts = new ArrayList<>();
+
+    public <T> CompositeBatch get(String path, Class<T> type, PartCallback<T> callback) {
+        parts.add(new Part<>(String.valueOf(parts.size()), path, type, callback));
+        return this;
+    }
+
+    public CompositeBatch getUser(int userId, PartCallback<UserResponse> callback) {
+        return get("users/" + userId, UserResponse.class, callback);
+    }
+
+    public CompositeBatch getUserInteractions(int userId, PartCallback<InteractionsResponse> callback) {
+        return get("interactions/" + userId, InteractionsResponse.class, callback);
+    }
+
+    public CompositeBatch getAttendedGalleries(int userId, PartCallback<AttendedGalleriesResponse> callback) {
+        return get("users/" + userId + "/attended-galleries", AttendedGalleriesResponse.class, callback);
+    }
+
+    public CompositeBatch getUserEvents(int userId, PartCallback<UserEventsResponse> callback) {
+        return get("users/" + userId + "/events", UserEventsResponse.class, callback);
+    }
+
+    /** Send the batch. Cancel the returned call to drop every pending callback. */
+    public Call<CompositeResponse> enqueue() {
+        List<CompositeRequest.SubRequest> requests = new ArrayList<>();
+        for (Part<?> part : parts) {
+            requests.add(new CompositeRequest.SubRequest(part.id, part.path));
+        }
+
+        Call<CompositeResponse> call = RetrofitClient.getApiService()
+                .getComposite(new CompositeRequest(requests));
+        call.enqueue(new Callback<CompositeResponse>() {
+            @Override
+            public void onResponse(@NonNull Call<CompositeResponse> c,
+                                   @NonNull Response<CompositeResponse> response) {
+                if (!response.isSuccessful() || response.body() == null
+                        || response.body().getResponses() == null) {
+                    failAll(new IOException("Composite request failed: HTTP " + response.code()));
+                    return;
+                }
+                Map<String, CompositeResponse.SubResponse> responses = response.body().getResponses();
+                for (Part<?> part : parts) {
+                    part.deliver(responses.get(part.id));
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<CompositeResponse> c, @NonNull Throwable t) {
+                if (!c.isCanceled()) {
+                    failAll(t);
+                }
+            }
+        });
+        return call;
+    }
+
+    private void failAll(Throwable t) {
+        for (Part<?> part : parts) {
+            part.callback.onError(t);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.beyondbinary.app.api;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class CompositeRequest {
+    @SerializedName("requests")
+    private final List<SubRequest> requests;
+
+    public CompositeRequest(List<SubRequest> requests) {
+        this.requests = requests;
+    }
+
+    public static class SubRequest {
+        @SerializedName("id")
+        private final String id;
+
+        // GET path relative to the API base, e.g. "users/5"
+        @SerializedName("path")
+        private final String path;
+
+        public SubRequest(String id, String path) {
+            this.id = id;
+            this.path = path;
+        }
+    }
+}
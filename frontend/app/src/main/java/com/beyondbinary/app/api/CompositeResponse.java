@@ -0,0 +1,28 @@
+package com.beyondbinary.app.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Map;
+
+public class CompositeResponse {
+    @SerializedName("success")
+    private boolean success;
+
+    @SerializedName("responses")
+    private Map<String, SubResponse> responses;
+
+    public boolean isSuccess() { return success; }
+    public Map<String, SubResponse> getResponses() { return responses; }
+
+    public static class SubResponse {
+        @SerializedName("status")
+        private int status;
+
+        @SerializedName("body")
+        private JsonElement body;
+
+        public int getStatus() { return status; }
+        public JsonElement getBody() { return body; }
+    }
+}
@@ -0,0 +1,120 @@
+package com.beyondbinary.app.api;
+
+import com.beyondbinary.app.Event;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes event list responses ({@link EventsResponse} and the {@code events/sync} pages) with
+ * a {@link JsonReader}, handing the {@code events} array to a sink in small batches as it is
+ * read instead of materialising the whole list first.
+ *
+ * Only one batch is held at a time, so peak memory no longer grows with the response size,
+ * and callers can start using the first events while the rest are still on the wire.
+ */
+public final class EventStreamReader {
+
+    public static final int DEFAULT_BATCH_SIZE = 25;
+
+    private static final TypeAdapter<Event> EVENT_ADAPTER = new Gson().getAdapter(Event.class);
+
+    public interface BatchSink {
+        /** Receives events in response order. The list is not reused after the call. */
+        void onBatch(List<Event> batch) throws IOException;
+    }
+
+    /** Everything in the response except the events themselves. */
+    public static class Summary {
+        private boolean success;
+        private int count;
+        private Integer nextCursor;
+        private long cursor;
+        private boolean hasMore;
+        private final List<Integer> deleted = new ArrayList<>();
+        private int eventsRead;
+
+        public boolean isSuccess() { return success; }
+        public int getCount() { return count; }
+        public Integer getNextCursor() { return nextCursor; }
+        public long getCursor() { return cursor; }
+        public boolean hasMore() { return hasMore; }
+        public List<Integer> getDeleted() { return deleted; }
+        public int getEventsRead() { return eventsRead; }
+    }
+
+    private EventStreamReader() {}
+
+    public static Summary read(Reader in, int batchSize, BatchSink sink) throws IOException {
+        Summary summary = new Summary();
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "success":
+                        summary.success = reader.nextBoolean();
+                        break;
+                    case "count":
+                        summary.count = reader.nextInt();
+                        break;
+                    case "nextCursor":
+                        summary.nextCursor = reader.nextInt();
+                        break;
+                    case "cursor":
+                        summary.cursor = reader.nextLong();
+                        break;
+                    case "hasMore":
+                        summary.hasMore = reader.nextBoolean();
+                        break;
+                    case "deleted":
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            summary.deleted.add(reader.nextInt());
+                        }
+                        reader.endArray();
+                        break;
+                    case "events":
+                        summary.eventsRead = readEvents(reader, batchSize, sink);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        }
+        return summary;
+    }
+
+    private static int readEvents(JsonReader reader, int batchSize, BatchSink sink) throws IOException {
+        int total = 0;
+        List<Event> batch = new ArrayList<>(batchSize);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Event event = EVENT_ADAPTER.read(reader);
+            if (event == null) continue;
+            batch.add(event);
+            total++;
+            if (batch.size() >= batchSize) {
+                sink.onBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        reader.endArray();
+        if (!batch.isEmpty()) {
+            sink.onBatch(batch);
+        }
+        return total;
+    }
+}
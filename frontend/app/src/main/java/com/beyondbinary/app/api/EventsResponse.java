@@ -15,6 +15,10 @@ public class EventsResponse {
     @SerializedName("events")
     private List<Event> events;
 
+    // Only present on paginated requests; null once the last page has been served
+    @SerializedName("nextCursor")
+    private Integer nextCursor;
+
     public boolean isSuccess() {
         return success;
     }
@@ -26,4 +30,8 @@ public class EventsResponse {
     public List<Event> getEvents() {
         return events;
     }
+
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
 }
@@ -0,0 +1,140 @@
+package com.beyondbinary.app.api;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.CacheControl;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Cache policy for the event read endpoints.
+ *
+ * Endpoints opt in with {@link #HEADER_POLICY} in {@link ApiService}. The marker header is
+ * stripped before the request leaves the device.
+ * <ul>
+ *   <li>{@link #REVALIDATE}: responses are stored but always revalidated, so a repeat load
+ *   costs an If-None-Match / If-Modified-Since round trip and a 304 instead of the body.</li>
+ *   <li>{@link #STALE_WHILE_REVALIDATE}: a stored response is returned immediately and the
+ *   revalidation runs in the background, refreshing the cache for the next caller.</li>
+ * </ul>
+ */
+public final class HttpCachePolicy {
+
+    private static final String TAG = "HttpCachePolicy";
+
+    public static final String HEADER_POLICY = "X-Cache-Policy";
+    public static final String REVALIDATE = "revalidate";
+    public static final String STALE_WHILE_REVALIDATE = "stale-while-revalidate";
+
+    // Wall-clock time of the last successful write, comparable to Response.sentRequestAtMillis
+    private static volatile long invalidatedAt;
+
+    private HttpCachePolicy() {}
+
+    /**
+     * Stop serving stored responses to requests sent before now without revalidating them.
+     * Call it once a write has succeeded: a read sent earlier may have been answered before
+     * the write landed, and may still be committed to the cache after any eviction.
+     */
+    static void invalidate() {
+        invalidatedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Application interceptor that answers stale-while-revalidate requests from the cache.
+     */
+    public static class StaleWhileRevalidateInterceptor implements Interceptor {
+        private OkHttpClient client;
+
+        /** The client is only known after it is built, so it is attached afterwards. */
+        void attach(OkHttpClient client) {
+            this.client = client;
+        }
+
+        @NonNull
+        @Override
+        public Response intercept(@NonNull Chain chain) throws IOException {
+            Request request = chain.request();
+            if (!STALE_WHILE_REVALIDATE.equals(request.header(HEADER_POLICY)) || client == null) {
+                return chain.proceed(request);
+            }
+
+            Response cached = chain.proceed(request.newBuilder()
+                    .cacheControl(CacheControl.FORCE_CACHE)
+                    .build());
+
+            // 504 means there was nothing usable in the cache, fall through to the network. So
+            // does an entry requested before the last write, which may predate it
+            if (cached.code() == 504 || cached.sentRequestAtMillis() < invalidatedAt) {
+                cached.close();
+                return chain.proceed(request);
+            }
+
+            Request revalidation = request.newBuilder()
+                    .header(HEADER_POLICY, REVALIDATE)
+                    .build();
+            client.newCall(revalidation).enqueue(new Callback() {
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) {
+                    // Reading the body to completion is what commits it to the cache
+                    try {
+                        response.body().string();
+                    } catch (IOException e) {
+                        Log.w(TAG, "Background revalidation failed for " + call.request().url(), e);
+                    } finally {
+                        response.close();
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    Log.w(TAG, "Background revalidation failed for " + call.request().url(), e);
+                }
+            });
+
+            return cached;
+        }
+    }
+
+    /**
+     * Network interceptor that strips the policy marker and makes cacheable responses
+     * revalidate on every use, regardless of what the server said about freshness.
+     */
+    public static class RevalidateInterceptor implements Interceptor {
+        @NonNull
+        @Override
+        public Response intercept(@NonNull Chain chain) throws IOException {
+            Request request = chain.request();
+            String policy = request.header(HEADER_POLICY);
+            if (policy == null) {
+                return chain.proceed(request);
+            }
+
+            Response response = chain.proceed(request.newBuilder()
+                    .removeHeader(HEADER_POLICY)
+                    .build());
+
+            if (response.header("ETag") == null && response.header("Last-Modified") == null) {
+                // Nothing to revalidate with, storing it would only serve stale data
+                return response.newBuilder()
+                        .header("Cache-Control", "no-store")
+                        .build();
+            }
+
+            // max-age=0 rather than no-cache: both force revalidation, but no-cache would also
+            // stop the stale-while-revalidate path from reading the entry with max-stale
+            return response.newBuilder()
+                    .header("Cache-Control", "private, max-age=0")
+                    .removeHeader("Pragma")
+                    .build();
+        }
+    }
+}
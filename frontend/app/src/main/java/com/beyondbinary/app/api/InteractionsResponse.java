@@ -33,11 +33,15 @@ public class InteractionsResponse {
         @SerializedName("eventType")
         private String eventType;
 
+        @SerializedName("created_at")
+        private String createdAt;
+
         public int getId() { return id; }
         public int getUserId() { return userId; }
         public int getEventId() { return eventId; }
         public String getInteractionType() { return interactionType; }
         public String getTitle() { return title; }
         public String getEventType() { return eventType; }
+        public String getCreatedAt() { return createdAt; }
     }
 }
@@ -0,0 +1,36 @@
+package com.beyondbinary.app.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class OutboxBatchRequest {
+    @SerializedName("mutations")
+    private final List<Mutation> mutations;
+
+    public OutboxBatchRequest(List<Mutation> mutations) {
+        this.mutations = mutations;
+    }
+
+    public static class Mutation {
+        @SerializedName("id")
+        private final String id;
+
+        @SerializedName("method")
+        private final String method;
+
+        @SerializedName("path")
+        private final String path;
+
+        @SerializedName("body")
+        private final JsonElement body;
+
+        public Mutation(String id, String method, String path, JsonElement body) {
+            this.id = id;
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+    }
+}
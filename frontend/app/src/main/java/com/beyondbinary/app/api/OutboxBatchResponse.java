@@ -0,0 +1,28 @@
+package com.beyondbinary.app.api;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class OutboxBatchResponse {
+    @SerializedName("success")
+    private boolean success;
+
+    @SerializedName("results")
+    private List<Result> results;
+
+    public boolean isSuccess() { return success; }
+    public List<Result> getResults() { return results; }
+
+    public static class Result {
+        @SerializedName("id")
+        private String id;
+
+        // HTTP status the mutation got, or 0 when it was not attempted
+        @SerializedName("status")
+        private int status;
+
+        public String getId() { return id; }
+        public int getStatus() { return status; }
+    }
+}
@@ -1,17 +1,42 @@
 package com.beyondbinary.app.api;
 
+import android.content.Context;
+import android.util.Log;
+
 import com.beyondbinary.app.BuildConfig;
+import com.google.gson.Gson;
 
+import okhttp3.Cache;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
+import retrofit2.Invocation;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.Streaming;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.concurrent.TimeUnit;
 
 public class RetrofitClient {
+    private static final String TAG = "RetrofitClient";
+    private static final long HTTP_CACHE_SIZE = 10L * 1024 * 1024; // 10 MB
+
     private static Retrofit retrofit = null;
     private static ApiService apiService = null;
+    private static Cache httpCache = null;
+
+    /**
+     * Attach the on-disk HTTP cache. Called once from the Application before any request is
+     * made; without it the client still works, just without a response cache.
+     */
+    public static synchronized void init(Context context) {
+        if (httpCache == null) {
+            File cacheDir = new File(context.getApplicationContext().getCacheDir(), "http");
+            httpCache = new Cache(cacheDir, HTTP_CACHE_SIZE);
+        }
+    }
 
     public static ApiService getApiService() {
         if (apiService == null) {
@@ -21,25 +46,65 @@ public class RetrofitClient {
         return apiService;
     }
 
+    /**
+     * Forget the stored HTTP responses about events once a local mutation has succeeded,
+     * including those stale-while-revalidate would serve. Calling it before the mutation is
+     * sent would let a read racing the write cache the old data again.
+     */
+    public static void invalidateEvents() {
+        HttpCachePolicy.invalidate();
+
+        if (httpCache == null) return;
+        try {
+            Iterator<String> urls = httpCache.urls();
+            while (urls.hasNext()) {
+                if (urls.next().contains("/events")) {
+                    urls.remove();
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to evict cached events", e);
+        }
+    }
+
     private static Retrofit getRetrofitInstance() {
         if (retrofit == null) {
             // Create logging interceptor
             HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
             logging.setLevel(HttpLoggingInterceptor.Level.BODY);
 
-            // Create OkHttp client with timeout and logging
-            OkHttpClient client = new OkHttpClient.Builder()
+            HttpCachePolicy.StaleWhileRevalidateInterceptor staleWhileRevalidate =
+                    new HttpCachePolicy.StaleWhileRevalidateInterceptor();
+
+            // Create OkHttp client with timeout, logging and response cache
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
                     .connectTimeout(30, TimeUnit.SECONDS)
                     .readTimeout(30, TimeUnit.SECONDS)
                     .writeTimeout(30, TimeUnit.SECONDS)
-                    .addInterceptor(logging)
-                    .build();
+                    .addInterceptor(staleWhileRevalidate)
+                    .addInterceptor(chain -> {
+                        // Logging the body would buffer the whole response and defeat @Streaming
+                        Invocation invocation = chain.request().tag(Invocation.class);
+                        if (invocation != null
+                                && invocation.method().isAnnotationPresent(Streaming.class)) {
+                            return chain.proceed(chain.request());
+                        }
+                        return logging.intercept(chain);
+                    })
+                    .addNetworkInterceptor(new HttpCachePolicy.RevalidateInterceptor());
+            if (httpCache != null) {
+                builder.cache(httpCache);
+            }
+            OkHttpClient client = builder.build();
+            staleWhileRevalidate.attach(client);
 
-            // Create Retrofit instance
+            // Create Retrofit instance. CBOR first: it hands non-CBOR bodies on to Gson
+            Gson gson = new Gson();
             retrofit = new Retrofit.Builder()
                     .baseUrl(BuildConfig.API_BASE_URL)
                     .client(client)
-                    .addConverterFactory(GsonConverterFactory.create())
+                    .addConverterFactory(CborConverterFactory.create(gson))
+                    .addConverterFactory(GsonConverterFactory.create(gson))
                     .build();
         }
         return retrofit;
@@ -0,0 +1,229 @@
+package com.beyondbinary.app.geocode;
+
+import android.content.Context;
+import android.location.Address;
+import android.location.Geocoder;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.EventDao;
+import com.beyondbinary.app.EventDatabase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Address to coordinates, through a persistent cache in front of the platform {@link Geocoder}.
+ * Places in the bundled {@link Gazetteer} are answered first, without the network.
+ *
+ * Addresses are keyed by {@link #normalize}, so "Marina Bay Sands" and " marina bay sands,"
+ * share one entry. Up to {@link #MAX_PARALLEL} lookups run at once and at most
+ * {@link #MAX_QUEUED} wait; requests for an address already being looked up join that lookup
+ * instead of starting another. Places found are kept for {@link #FOUND_TTL_MS}; places not
+ * found are retried after {@link #NOT_FOUND_TTL_MS}.
+ */
+public class AddressGeocoder {
+
+    private static final String TAG = "AddressGeocoder";
+    private static final int MAX_PARALLEL = 4;
+    private static final int MAX_QUEUED = 256;
+    private static final long FOUND_TTL_MS = 90L * 24 * 60 * 60 * 1000;
+    private static final long NOT_FOUND_TTL_MS = 24 * 60 * 60 * 1000L;
+
+    private static AddressGeocoder instance;
+
+    /** A resolved location. */
+    public static class Coordinates {
+        public final double latitude;
+        public final double longitude;
+
+        Coordinates(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    public interface Callback {
+        /**
+         * Main thread. {@code coordinates} is null when the address wasn't found, or when the
+         * lookup failed, in which case {@code error} says why.
+         */
+        void onResult(@Nullable Coordinates coordinates, @Nullable IOException error);
+    }
+
+    public interface EventCallback {
+        /** Main thread, only once the event has coordinates, which are already saved to Room. */
+        void onGeocoded(Event event);
+    }
+
+    // Called on a worker thread with the outcome of a lookup
+    private interface Waiter {
+        void onResult(@Nullable Coordinates coordinates, @Nullable IOException error);
+    }
+
+    private final Context context;
+    private final Gazetteer gazetteer;
+    private final GeocodeCacheDao cacheDao;
+    private final EventDao eventDao;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_PARALLEL, MAX_PARALLEL,
+            30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(MAX_QUEUED));
+    // Lookups queued or running, with everyone waiting on each
+    private final Map<String, List<Waiter>> inFlight = new HashMap<>();
+
+    public static synchronized AddressGeocoder getInstance(Context context) {
+        if (instance == null) {
+            instance = new AddressGeocoder(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AddressGeocoder(Context context) {
+        this.context = context;
+        this.gazetteer = Gazetteer.getInstance(context);
+        EventDatabase database = EventDatabase.getInstance(context);
+        this.cacheDao = database.geocodeCacheDao();
+        this.eventDao = database.eventDao();
+        executor.allowCoreThreadTimeOut(true);
+        executor.execute(() -> {
+            int pruned = cacheDao.deleteOlderThan(System.currentTimeMillis() - FOUND_TTL_MS);
+            if (pruned > 0) Log.d(TAG, "Pruned " + pruned + " old geocode entries");
+        });
+    }
+
+    /** Lower case, punctuation to spaces, whitespace collapsed. */
+    public static String normalize(String address) {
+        return address.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}#]+", " ")
+                .trim();
+    }
+
+    /** True if {@code address} is a known place, i.e. {@link #geocode} will answer right away. */
+    public boolean resolvesOffline(String address) {
+        return address != null && gazetteer.isLoaded() && gazetteer.lookup(address) != null;
+    }
+
+    /** Look up {@code address}, from the gazetteer or the cache when possible. */
+    public void geocode(String address, Callback callback) {
+        Gazetteer.Place place = address != null && gazetteer.isLoaded() ? gazetteer.lookup(address) : null;
+        if (place != null) {
+            Coordinates coordinates = new Coordinates(place.latitude, place.longitude);
+            mainHandler.post(() -> callback.onResult(coordinates, null));
+            return;
+        }
+        enqueue(address, (coordinates, error) ->
+                mainHandler.post(() -> callback.onResult(coordinates, error)));
+    }
+
+    /**
+     * Give {@code event} coordinates from its location and save them to Room. Events at the
+     * same address share one lookup. Nothing is reported if the address can't be placed.
+     */
+    public void geocodeEvent(Event event, EventCallback callback) {
+        enqueue(event.getLocation(), (coordinates, error) -> {
+            if (coordinates == null) {
+                Log.w(TAG, "Geocoding failed for location: " + event.getLocation()
+                        + (error != null ? " (" + error.getMessage() + ")" : ""));
+                return;
+            }
+            event.setLatitude(coordinates.latitude);
+            event.setLongitude(coordinates.longitude);
+            eventDao.update(event);
+            mainHandler.post(() -> callback.onGeocoded(event));
+        });
+    }
+
+    private void enqueue(String address, Waiter waiter) {
+        String key = address != null ? normalize(address) : "";
+        if (key.isEmpty()) {
+            waiter.onResult(null, null);
+            return;
+        }
+        synchronized (inFlight) {
+            List<Waiter> waiters = inFlight.get(key);
+            if (waiters != null) {
+                waiters.add(waiter);
+                return;
+            }
+            waiters = new ArrayList<>();
+            waiters.add(waiter);
+            inFlight.put(key, waiters);
+        }
+        try {
+            executor.execute(() -> resolve(key, address));
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Geocoding queue full, dropping " + key);
+            deliver(key, null, new IOException("Geocoding queue full", e));
+        }
+    }
+
+    private void resolve(String key, String address) {
+        Gazetteer.Place place = gazetteer.lookup(address);
+        if (place != null) {
+            deliver(key, new Coordinates(place.latitude, place.longitude), null);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        GeocodedAddress cached = cacheDao.get(key);
+        if (cached != null && now - cached.getResolvedAt()
+                < (cached.isFound() ? FOUND_TTL_MS : NOT_FOUND_TTL_MS)) {
+            deliver(key, cached.isFound()
+                    ? new Coordinates(cached.getLatitude(), cached.getLongitude()) : null, null);
+            return;
+        }
+
+        try {
+            List<Address> addresses = new Geocoder(context, Locale.getDefault()).getFromLocationName(address, 1);
+            GeocodedAddress entry = new GeocodedAddress();
+            entry.setAddressKey(key);
+            entry.setResolvedAt(now);
+            Coordinates coordinates = null;
+            if (addresses != null && !addresses.isEmpty()) {
+                coordinates = new Coordinates(addresses.get(0).getLatitude(), addresses.get(0).getLongitude());
+                entry.setFound(true);
+                entry.setLatitude(coordinates.latitude);
+                entry.setLongitude(coordinates.longitude);
+            }
+            cacheDao.upsert(entry);
+            Log.d(TAG, "Geocoded " + key + (coordinates != null ? "" : " (not found)") + " in "
+                    + (System.currentTimeMillis() - now) + "ms");
+            deliver(key, coordinates, null);
+        } catch (IOException e) {
+            // Network trouble says nothing about the address: nothing is cached, and an
+            // expired location is still better than none
+            if (cached != null && cached.isFound()) {
+                deliver(key, new Coordinates(cached.getLatitude(), cached.getLongitude()), null);
+            } else {
+                deliver(key, null, e);
+            }
+        }
+    }
+
+    private void deliver(String key, @Nullable Coordinates coordinates, @Nullable IOException error) {
+        List<Waiter> waiters;
+        synchronized (inFlight) {
+            waiters = inFlight.remove(key);
+        }
+        if (waiters == null) return;
+        for (Waiter waiter : waiters) {
+            try {
+                waiter.onResult(coordinates, error);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Geocode callback failed for " + key, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.beyondbinary.app.geocode;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.beyondbinary.app.R;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Place names bundled with the app ({@code res/raw/gazetteer_sg.txt}), for location typeahead
+ * and for resolving well-known places without a network call.
+ *
+ * Names and aliases are indexed in a prefix trie from the start of every word, so "bay"
+ * suggests both "Marina Bay Sands" and "Gardens by the Bay". The file is read once, on first
+ * use or {@link #preload}.
+ */
+public class Gazetteer {
+
+    private static final String TAG = "Gazetteer";
+    // Said of nearly every address here, so it never tells places apart
+    private static final String COUNTRY = "singapore";
+
+    private static Gazetteer instance;
+
+    /** A named place. */
+    public static class Place {
+        public final String name;
+        public final double latitude;
+        public final double longitude;
+
+        Place(String name, double latitude, double longitude) {
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    // Children are kept in parallel arrays sorted by character: a few bytes per edge
+    private static class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        // Places with a name or alias word-suffix ending here; the sign bit marks the first word
+        int[] entries = new int[0];
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrAdd(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) return children[i];
+            int at = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newKeys[at] = c;
+            newChildren[at] = new Node();
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[at];
+        }
+    }
+
+    private final Context context;
+    private final List<Place> places = new ArrayList<>();
+    private final Map<String, Place> byKey = new HashMap<>();
+    private final Node root = new Node();
+    private volatile boolean loaded;
+
+    public static synchronized Gazetteer getInstance(Context context) {
+        if (instance == null) {
+            instance = new Gazetteer(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private Gazetteer(Context context) {
+        this.context = context;
+    }
+
+    /** Read the place list in the background, so the first keystroke doesn't wait for it. */
+    public void preload() {
+        if (loaded) return;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.execute(() -> {
+            synchronized (this) {
+                ensureLoaded();
+            }
+        });
+        executor.shutdown();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * The place {@code address} names, or null. Matches a name or alias exactly once
+     * normalised, ignoring a trailing country and anything after the first comma.
+     */
+    public synchronized Place lookup(String address) {
+        ensureLoaded();
+        String key = AddressGeocoder.normalize(address);
+        Place place = byKey.get(key);
+        if (place == null && key.endsWith(" " + COUNTRY)) {
+            place = byKey.get(key.substring(0, key.length() - COUNTRY.length() - 1));
+        }
+        int comma = address.indexOf(',');
+        if (place == null && comma > 0) {
+            place = byKey.get(AddressGeocoder.normalize(address.substring(0, comma)));
+        }
+        return place;
+    }
+
+    /**
+     * Up to {@code limit} places with a word starting with {@code prefix}. Places whose name
+     * starts with it come first, then shorter names.
+     */
+    public synchronized List<Place> suggest(String prefix, int limit) {
+        ensureLoaded();
+        String key = AddressGeocoder.normalize(prefix);
+        List<Place> result = new ArrayList<>();
+        if (key.isEmpty()) return result;
+
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) return result;
+
+        Set<Integer> leading = new LinkedHashSet<>();
+        Set<Integer> inner = new LinkedHashSet<>();
+        collect(node, leading, inner);
+        inner.removeAll(leading);
+
+        List<Place> leadingPlaces = toPlaces(leading);
+        List<Place> innerPlaces = toPlaces(inner);
+        leadingPlaces.sort((a, b) -> a.name.length() - b.name.length());
+        innerPlaces.sort((a, b) -> a.name.length() - b.name.length());
+        for (Place place : leadingPlaces) {
+            if (result.size() >= limit) return result;
+            result.add(place);
+        }
+        for (Place place : innerPlaces) {
+            if (result.size() >= limit) return result;
+            result.add(place);
+        }
+        return result;
+    }
+
+    private void collect(Node node, Set<Integer> leading, Set<Integer> inner) {
+        for (int entry : node.entries) {
+            (entry < 0 ? leading : inner).add(entry & Integer.MAX_VALUE);
+        }
+        for (Node child : node.children) {
+            collect(child, leading, inner);
+        }
+    }
+
+    private List<Place> toPlaces(Set<Integer> ids) {
+        List<Place> list = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            list.add(places.get(id));
+        }
+        return list;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        long start = System.currentTimeMillis();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                context.getResources().openRawResource(R.raw.gazetteer_sg), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = line.split("\\|");
+                if (fields.length < 3) continue;
+                try {
+                    add(fields[0], Double.parseDouble(fields[1]), Double.parseDouble(fields[2]),
+                            fields.length > 3 ? fields[3].split(";") : new String[0]);
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "Skipping malformed place: " + line);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read gazetteer", e);
+        }
+        loaded = true;
+        Log.d(TAG, "Loaded " + places.size() + " places in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private void add(String name, double latitude, double longitude, String[] aliases) {
+        int id = places.size();
+        places.add(new Place(name, latitude, longitude));
+        index(name, id);
+        for (String alias : aliases) {
+            index(alias, id);
+        }
+    }
+
+    private void index(String label, int id) {
+        String key = AddressGeocoder.normalize(label);
+        if (key.isEmpty()) return;
+        byKey.putIfAbsent(key, places.get(id));
+        for (int start = 0; start < key.length(); start = key.indexOf(' ', start) + 1) {
+            Node node = root;
+            for (int i = start; i < key.length(); i++) {
+                node = node.childOrAdd(key.charAt(i));
+            }
+            int[] entries = Arrays.copyOf(node.entries, node.entries.length + 1);
+            entries[entries.length - 1] = start == 0 ? id | Integer.MIN_VALUE : id;
+            node.entries = entries;
+            if (key.indexOf(' ', start) < 0) break;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.beyondbinary.app.geocode;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+@Dao
+public interface GeocodeCacheDao {
+    @Query("SELECT * FROM geocode_cache WHERE addressKey = :addressKey")
+    GeocodedAddress get(String addressKey);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(GeocodedAddress address);
+
+    @Query("DELETE FROM geocode_cache WHERE resolvedAt < :before")
+    int deleteOlderThan(long before);
+}
@@ -0,0 +1,38 @@
+package com.beyondbinary.app.geocode;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * A geocoding result kept between runs, keyed by the normalised address (see
+ * {@link AddressGeocoder#normalize}). Addresses the geocoder could not place are stored too,
+ * with {@code found} false, so they aren't retried on every load.
+ */
+@Entity(tableName = "geocode_cache")
+public class GeocodedAddress {
+    @PrimaryKey
+    @NonNull
+    private String addressKey = "";
+
+    private boolean found;
+    private double latitude;
+    private double longitude;
+    private long resolvedAt;
+
+    @NonNull
+    public String getAddressKey() { return addressKey; }
+    public void setAddressKey(@NonNull String addressKey) { this.addressKey = addressKey; }
+
+    public boolean isFound() { return found; }
+    public void setFound(boolean found) { this.found = found; }
+
+    public double getLatitude() { return latitude; }
+    public void setLatitude(double latitude) { this.latitude = latitude; }
+
+    public double getLongitude() { return longitude; }
+    public void setLongitude(double longitude) { this.longitude = longitude; }
+
+    public long getResolvedAt() { return resolvedAt; }
+    public void setResolvedAt(long resolvedAt) { this.resolvedAt = resolvedAt; }
+}
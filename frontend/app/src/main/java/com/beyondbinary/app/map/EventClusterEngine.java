@@ -0,0 +1,221 @@
+package com.beyondbinary.app.map;
+
+import com.beyondbinary.app.Event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grid clustering of event locations, independent of the map view so it can run off the
+ * main thread.
+ *
+ * Points are projected once to Web Mercator world coordinates (0..1). For a zoom level the
+ * world is cut into square cells of about {@link #CELL_PX} screen pixels, and every cell
+ * holding more than one event becomes a cluster at the centroid of its events. Only cells
+ * overlapping the requested bounds are built, and each is built whole, so a cluster's count
+ * does not depend on where the viewport edge falls.
+ */
+public class EventClusterEngine {
+
+    private static final int TILE_PX = 256;
+    private static final int CELL_PX = 80;
+    // Past this zoom every event gets its own marker, even at the same address
+    public static final int MAX_CLUSTER_ZOOM = 16;
+    // Cell coordinates stay below 2^18 up to MAX_CLUSTER_ZOOM; sort keys put the cell above
+    // the point index, which leaves room for 2^20 events
+    private static final int CELL_BITS = 18;
+    private static final int POINT_BITS = 20;
+    private static final long POINT_MASK = (1L << POINT_BITS) - 1;
+
+    /** A marker to draw: one event, or several sharing a cell. */
+    public static class Cluster {
+        /** Stable across runs: a lone event keeps its key at every zoom. */
+        public final long key;
+        public final double latitude;
+        public final double longitude;
+        public final int count;
+        /** Emoji of the most common category in the cluster. */
+        public final String emoji;
+        /** The event when {@code count} is 1, otherwise null. */
+        public final Event event;
+
+        Cluster(long key, double latitude, double longitude, int count, String emoji, Event event) {
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.count = count;
+            this.emoji = emoji;
+            this.event = event;
+        }
+
+        boolean looksSame(Cluster other) {
+            return other.count == count && other.emoji.equals(emoji)
+                    && other.latitude == latitude && other.longitude == longitude;
+        }
+    }
+
+    private final Map<Integer, Integer> indexById = new HashMap<>();
+    // Emoji are interned to small ints so counting them per cluster needs no map
+    private final Map<String, Integer> emojiIds = new HashMap<>();
+    private final List<String> emojiNames = new ArrayList<>();
+    private double[] xs = new double[256];
+    private double[] ys = new double[256];
+    private int[] emojiOf = new int[256];
+    private Event[] events = new Event[256];
+    private int size;
+
+    /** Add {@code event}, or move it if it is already here. Events without coordinates are skipped. */
+    public synchronized void add(Event event, String emoji) {
+        if (event.getLatitude() == null || event.getLongitude() == null) return;
+        Integer index = indexById.get(event.getId());
+        if (index == null) {
+            if (size == xs.length) grow();
+            index = size++;
+            indexById.put(event.getId(), index);
+        }
+        Integer emojiId = emojiIds.get(emoji);
+        if (emojiId == null) {
+            emojiId = emojiNames.size();
+            emojiIds.put(emoji, emojiId);
+            emojiNames.add(emoji);
+        }
+        xs[index] = worldX(event.getLongitude());
+        ys[index] = worldY(event.getLatitude());
+        emojiOf[index] = emojiId;
+        events[index] = event;
+    }
+
+    /** Remove an event if it is here. */
+    public synchronized void remove(int eventId) {
+        Integer index = indexById.remove(eventId);
+        if (index == null) return;
+        // Move the last event into the gap so the arrays stay dense
+        int last = --size;
+        if (index != last) {
+            xs[index] = xs[last];
+            ys[index] = ys[last];
+            emojiOf[index] = emojiOf[last];
+            events[index] = events[last];
+            indexById.put(events[index].getId(), index);
+        }
+        events[last] = null;
+    }
+
+    public synchronized void clear() {
+        indexById.clear();
+        Arrays.fill(events, 0, size, null);
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Clusters for the map at {@code zoom} within the given bounds (degrees). */
+    public synchronized List<Cluster> cluster(float zoom, double south, double west, double north, double east) {
+        int level = (int) Math.floor(zoom);
+        double minX = worldX(west);
+        double maxX = worldX(east);
+        if (west > east) {
+            // The bounds cross the antimeridian; taking the full width is simpler and still cheap
+            minX = 0;
+            maxX = 1;
+        }
+        double minY = worldY(north);
+        double maxY = worldY(south);
+
+        List<Cluster> clusters = new ArrayList<>();
+        if (level > MAX_CLUSTER_ZOOM) {
+            for (int i = 0; i < size; i++) {
+                if (xs[i] >= minX && xs[i] <= maxX && ys[i] >= minY && ys[i] <= maxY) {
+                    clusters.add(single(i));
+                }
+            }
+            return clusters;
+        }
+
+        double cellsPerSide = TILE_PX * Math.pow(2, level) / CELL_PX;
+        long minCellX = (long) Math.floor(minX * cellsPerSide);
+        long maxCellX = (long) Math.floor(maxX * cellsPerSide);
+        long minCellY = (long) Math.floor(minY * cellsPerSide);
+        long maxCellY = (long) Math.floor(maxY * cellsPerSide);
+
+        // Sort (cell, point) pairs packed into longs so each cell is a run: no per-cell objects
+        // or boxing, which is what keeps 50k points in the low milliseconds
+        long[] packed = new long[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            long cx = (long) Math.floor(xs[i] * cellsPerSide);
+            long cy = (long) Math.floor(ys[i] * cellsPerSide);
+            if (cx < minCellX || cx > maxCellX || cy < minCellY || cy > maxCellY) continue;
+            packed[n++] = (((cx << CELL_BITS) | cy) << POINT_BITS) | i;
+        }
+        Arrays.sort(packed, 0, n);
+
+        int[] emojiCounts = new int[emojiNames.size()];
+        int runStart = 0;
+        while (runStart < n) {
+            long cell = packed[runStart] >>> POINT_BITS;
+            int runEnd = runStart + 1;
+            while (runEnd < n && packed[runEnd] >>> POINT_BITS == cell) runEnd++;
+
+            int first = (int) (packed[runStart] & POINT_MASK);
+            if (runEnd - runStart == 1) {
+                clusters.add(single(first));
+            } else {
+                double sumX = 0;
+                double sumY = 0;
+                int bestEmoji = emojiOf[first];
+                for (int r = runStart; r < runEnd; r++) {
+                    int i = (int) (packed[r] & POINT_MASK);
+                    sumX += xs[i];
+                    sumY += ys[i];
+                    if (++emojiCounts[emojiOf[i]] > emojiCounts[bestEmoji]) bestEmoji = emojiOf[i];
+                }
+                for (int r = runStart; r < runEnd; r++) {
+                    emojiCounts[emojiOf[(int) (packed[r] & POINT_MASK)]] = 0;
+                }
+                int count = runEnd - runStart;
+                clusters.add(new Cluster(((long) level << 56) | cell, latitude(sumY / count),
+                        longitude(sumX / count), count, emojiNames.get(bestEmoji), null));
+            }
+            runStart = runEnd;
+        }
+        return clusters;
+    }
+
+    private Cluster single(int i) {
+        Event event = events[i];
+        // Negative keys never collide with cell keys, which are non-negative
+        return new Cluster(-1L - event.getId(), event.getLatitude(), event.getLongitude(), 1,
+                emojiNames.get(emojiOf[i]), event);
+    }
+
+    private void grow() {
+        int capacity = xs.length * 2;
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        emojiOf = Arrays.copyOf(emojiOf, capacity);
+        events = Arrays.copyOf(events, capacity);
+    }
+
+    private static double worldX(double longitude) {
+        return (longitude + 180) / 360;
+    }
+
+    private static double worldY(double latitude) {
+        double sin = Math.sin(Math.toRadians(Math.max(-85.05112878, Math.min(85.05112878, latitude))));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    private static double longitude(double x) {
+        return x * 360 - 180;
+    }
+
+    private static double latitude(double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    }
+}
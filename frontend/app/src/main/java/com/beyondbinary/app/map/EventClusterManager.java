@@ -0,0 +1,286 @@
+package com.beyondbinary.app.map;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.beyondbinary.app.Event;
+import com.google.android.gms.maps.CameraUpdateFactory;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shows events on a {@link GoogleMap} as clustered markers.
+ *
+ * Clustering runs on a background thread whenever the camera comes to rest, and shortly after
+ * events are added; while events stream in, those runs are coalesced. Only markers whose
+ * cluster changed are touched: the rest stay on the map as they are. Icons are cached by
+ * emoji and count bucket, so thousands of events share a few dozen bitmaps.
+ */
+public class EventClusterManager {
+
+    private static final String TAG = "EventClusterManager";
+    private static final long ADD_DELAY_MS = 150;
+    // Cluster a margin around the viewport so short pans reveal markers that are already there
+    private static final double VIEWPORT_MARGIN = 0.5;
+    private static final int ICON_CACHE_SIZE = 64;
+
+    private final GoogleMap map;
+    private final EventClusterEngine engine = new EventClusterEngine();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable reclusterRunnable = this::recluster;
+    private final LruCache<String, BitmapDescriptor> icons = new LruCache<>(ICON_CACHE_SIZE);
+
+    private final Map<Long, Marker> markers = new HashMap<>();
+    private final Map<Long, EventClusterEngine.Cluster> shown = new HashMap<>();
+    // Results from before the latest request or clear() are dropped
+    private int generation;
+    private Runnable onRendered;
+
+    public EventClusterManager(GoogleMap map) {
+        this.map = map;
+    }
+
+    /** Called on the main thread after each set of markers is applied. */
+    public void setOnRenderedListener(Runnable onRendered) {
+        this.onRendered = onRendered;
+    }
+
+    /** Add or move an event; the map updates shortly. */
+    public void add(Event event, String emoji) {
+        executor.execute(() -> engine.add(event, emoji));
+        mainHandler.removeCallbacks(reclusterRunnable);
+        mainHandler.postDelayed(reclusterRunnable, ADD_DELAY_MS);
+    }
+
+    /** Remove events, e.g. ones that scrolled far out of view; the map updates shortly. */
+    public void remove(Collection<Integer> eventIds) {
+        if (eventIds.isEmpty()) return;
+        List<Integer> ids = new ArrayList<>(eventIds);
+        executor.execute(() -> {
+            for (int id : ids) {
+                engine.remove(id);
+            }
+        });
+        mainHandler.removeCallbacks(reclusterRunnable);
+        mainHandler.postDelayed(reclusterRunnable, ADD_DELAY_MS);
+    }
+
+    /** Remove every event and marker. */
+    public void clear() {
+        generation++;
+        mainHandler.removeCallbacks(reclusterRunnable);
+        executor.execute(engine::clear);
+        for (Marker marker : markers.values()) {
+            marker.remove();
+        }
+        markers.clear();
+        shown.clear();
+    }
+
+    /** Hook for {@link GoogleMap#setOnCameraIdleListener}. */
+    public void onCameraIdle() {
+        mainHandler.removeCallbacks(reclusterRunnable);
+        recluster();
+    }
+
+    /** The event behind a single-event marker, or null for a cluster. */
+    public Event eventFor(Marker marker) {
+        Object tag = marker.getTag();
+        return tag instanceof EventClusterEngine.Cluster ? ((EventClusterEngine.Cluster) tag).event : null;
+    }
+
+    public boolean isCluster(Marker marker) {
+        Object tag = marker.getTag();
+        return tag instanceof EventClusterEngine.Cluster && ((EventClusterEngine.Cluster) tag).count > 1;
+    }
+
+    /** The marker currently showing {@code eventId} on its own, or null. */
+    public Marker markerFor(int eventId) {
+        return markers.get(-1L - eventId);
+    }
+
+    /** Zoom in on a cluster marker far enough to start splitting it. */
+    public void zoomInto(Marker marker) {
+        float zoom = Math.min(map.getCameraPosition().zoom + 2, EventClusterEngine.MAX_CLUSTER_ZOOM + 1);
+        map.animateCamera(CameraUpdateFactory.newLatLngZoom(marker.getPosition(), zoom));
+    }
+
+    public void shutdown() {
+        mainHandler.removeCallbacks(reclusterRunnable);
+        executor.shutdown();
+    }
+
+    private void recluster() {
+        float zoom = map.getCameraPosition().zoom;
+        LatLngBounds bounds = map.getProjection().getVisibleRegion().latLngBounds;
+        double latMargin = (bounds.northeast.latitude - bounds.southwest.latitude) * VIEWPORT_MARGIN;
+        double lngSpan = bounds.northeast.longitude - bounds.southwest.longitude;
+        double lngMargin = (lngSpan >= 0 ? lngSpan : lngSpan + 360) * VIEWPORT_MARGIN;
+        double south = Math.max(-90, bounds.southwest.latitude - latMargin);
+        double north = Math.min(90, bounds.northeast.latitude + latMargin);
+        double west = bounds.southwest.longitude - lngMargin;
+        double east = bounds.northeast.longitude + lngMargin;
+        if (west < -180 || east > 180) {
+            west = -180;
+            east = 180;
+        }
+
+        int requested = ++generation;
+        double w = west;
+        double e = east;
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            List<EventClusterEngine.Cluster> clusters = engine.cluster(zoom, south, w, north, e);
+            long elapsedUs = (System.nanoTime() - start) / 1000;
+            mainHandler.post(() -> {
+                if (requested != generation) return;
+                apply(clusters);
+                Log.d(TAG, engine.size() + " events -> " + clusters.size() + " markers at zoom "
+                        + (int) zoom + " in " + elapsedUs + "us");
+                if (onRendered != null) onRendered.run();
+            });
+        });
+    }
+
+    private void apply(List<EventClusterEngine.Cluster> clusters) {
+        Set<Long> keep = new HashSet<>();
+        for (EventClusterEngine.Cluster cluster : clusters) {
+            keep.add(cluster.key);
+        }
+        Iterator<Map.Entry<Long, Marker>> it = markers.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Marker> entry = it.next();
+            if (!keep.contains(entry.getKey())) {
+                entry.getValue().remove();
+                shown.remove(entry.getKey());
+                it.remove();
+            }
+        }
+
+        for (EventClusterEngine.Cluster cluster : clusters) {
+            Marker marker = markers.get(cluster.key);
+            EventClusterEngine.Cluster previous = shown.get(cluster.key);
+            LatLng position = new LatLng(cluster.latitude, cluster.longitude);
+            if (marker == null) {
+                MarkerOptions options = new MarkerOptions()
+                        .position(position)
+                        .icon(iconFor(cluster))
+                        .infoWindowAnchor(0.5f, 0.9f); // Position info window closer to marker
+                if (cluster.event != null) {
+                    options.title(cluster.event.getTitle());
+                }
+                marker = map.addMarker(options);
+                if (marker == null) continue;
+                markers.put(cluster.key, marker);
+            } else if (previous != null && !previous.looksSame(cluster)) {
+                marker.setPosition(position);
+                marker.setIcon(iconFor(cluster));
+            }
+            marker.setTag(cluster);
+            shown.put(cluster.key, cluster);
+        }
+    }
+
+    private BitmapDescriptor iconFor(EventClusterEngine.Cluster cluster) {
+        String label = cluster.count > 1 ? countLabel(cluster.count) : null;
+        String key = cluster.emoji + "|" + label;
+        BitmapDescriptor icon = icons.get(key);
+        if (icon == null) {
+            icon = BitmapDescriptorFactory.fromBitmap(drawIcon(cluster.emoji, label));
+            icons.put(key, icon);
+        }
+        return icon;
+    }
+
+    // Bucketed so that clusters of 1,234 and 1,300 share one bitmap
+    private static String countLabel(int count) {
+        if (count < 10) return String.valueOf(count);
+        int[] buckets = {10000, 5000, 1000, 500, 100, 50, 20, 10};
+        for (int bucket : buckets) {
+            if (count >= bucket) {
+                return (bucket >= 1000 ? (bucket / 1000) + "k" : String.valueOf(bucket)) + "+";
+            }
+        }
+        return String.valueOf(count);
+    }
+
+    /** The emoji in a white circle; clusters are larger and carry a count badge. */
+    private static Bitmap drawIcon(String emoji, String countLabel) {
+        int size = countLabel == null ? 100 : 130;
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        float radius = (countLabel == null ? size : size - 24) / 2f - 3;
+        float center = countLabel == null ? size / 2f : (size - 24) / 2f + 12;
+
+        // Draw white circle background
+        Paint backgroundPaint = new Paint();
+        backgroundPaint.setColor(Color.WHITE);
+        backgroundPaint.setStyle(Paint.Style.FILL);
+        backgroundPaint.setAntiAlias(true);
+        canvas.drawCircle(center, center, radius, backgroundPaint);
+
+        // Draw subtle border
+        Paint borderPaint = new Paint();
+        borderPaint.setColor(Color.parseColor("#E0E0E0"));
+        borderPaint.setStyle(Paint.Style.STROKE);
+        borderPaint.setStrokeWidth(2);
+        borderPaint.setAntiAlias(true);
+        canvas.drawCircle(center, center, radius, borderPaint);
+
+        // Draw emoji
+        Paint textPaint = new Paint();
+        textPaint.setTextSize(50);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setTypeface(Typeface.DEFAULT);
+        textPaint.setAntiAlias(true);
+        Paint.FontMetrics fontMetrics = textPaint.getFontMetrics();
+        float textOffset = (fontMetrics.bottom - fontMetrics.top) / 2 - fontMetrics.bottom;
+        canvas.drawText(emoji, center, center + textOffset, textPaint);
+
+        if (countLabel != null) {
+            // Count badge in the top-right corner
+            Paint badgePaint = new Paint();
+            badgePaint.setColor(Color.parseColor("#343149"));
+            badgePaint.setStyle(Paint.Style.FILL);
+            badgePaint.setAntiAlias(true);
+            Paint countPaint = new Paint();
+            countPaint.setColor(Color.WHITE);
+            countPaint.setTextSize(countLabel.length() > 3 ? 22 : 28);
+            countPaint.setTextAlign(Paint.Align.CENTER);
+            countPaint.setTypeface(Typeface.DEFAULT_BOLD);
+            countPaint.setAntiAlias(true);
+            float badgeRadius = 26;
+            float badgeX = size - badgeRadius - 2;
+            float badgeY = badgeRadius + 2;
+            canvas.drawCircle(badgeX, badgeY, badgeRadius, badgePaint);
+            Paint.FontMetrics countMetrics = countPaint.getFontMetrics();
+            float countOffset = (countMetrics.bottom - countMetrics.top) / 2 - countMetrics.bottom;
+            canvas.drawText(countLabel, badgeX, badgeY + countOffset, countPaint);
+        }
+        return bitmap;
+    }
+}
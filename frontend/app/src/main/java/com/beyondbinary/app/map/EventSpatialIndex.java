@@ -0,0 +1,256 @@
+package com.beyondbinary.app.map;
+
+import com.beyondbinary.app.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Radius and k-nearest queries over event locations, in memory.
+ *
+ * Locations are stored as points on the unit sphere in a k-d tree laid out implicitly in
+ * arrays. The straight-line (chord) distance between two such points grows with their
+ * great-circle distance, so the tree prunes on chords and the reported distance is exact on
+ * a spherical earth: no projection, and no distortion far from the equator. Build once per
+ * change of the event set; each query then visits only a few dozen nodes.
+ */
+public class EventSpatialIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    /** An event and its distance from the query point. */
+    public static class Hit {
+        public final Event event;
+        public final double distanceKm;
+
+        Hit(Event event, double distanceKm) {
+            this.event = event;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+    private final Event[] events;
+    // Unit vectors, in tree order: node of [lo, hi) is at the middle, split on depth % 3
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+
+    /** Index the events that have coordinates; the rest are left out. */
+    public EventSpatialIndex(List<Event> source) {
+        List<Event> located = new ArrayList<>(source.size());
+        for (Event event : source) {
+            if (event.getLatitude() != null && event.getLongitude() != null) {
+                located.add(event);
+            }
+        }
+        int n = located.size();
+        events = located.toArray(new Event[0]);
+        xs = new double[n];
+        ys = new double[n];
+        zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double lat = Math.toRadians(events[i].getLatitude());
+            double lng = Math.toRadians(events[i].getLongitude());
+            xs[i] = Math.cos(lat) * Math.cos(lng);
+            ys[i] = Math.cos(lat) * Math.sin(lng);
+            zs[i] = Math.sin(lat);
+        }
+        build(0, n, 0);
+    }
+
+    public int size() {
+        return events.length;
+    }
+
+    /** Events within {@code radiusKm} of the point, nearest first. */
+    public List<Hit> withinRadius(double latitude, double longitude, double radiusKm) {
+        double[] q = unitVector(latitude, longitude);
+        double chord = chordFor(radiusKm);
+        List<Hit> hits = new ArrayList<>();
+        collectWithin(0, events.length, 0, q, chord * chord, hits);
+        Collections.sort(hits, Comparator.comparingDouble(h -> h.distanceKm));
+        return hits;
+    }
+
+    /** The {@code k} events nearest to the point, nearest first. */
+    public List<Hit> nearest(double latitude, double longitude, int k) {
+        int limit = Math.min(k, events.length);
+        if (limit <= 0) return new ArrayList<>();
+        double[] q = unitVector(latitude, longitude);
+        // Max-heap on squared chord, so the worst of the best k is at the root
+        int[] heap = new int[limit];
+        double[] heapDist = new double[limit];
+        int heapSize = searchNearest(0, events.length, 0, q, heap, heapDist, 0);
+
+        List<Hit> hits = new ArrayList<>(heapSize);
+        for (int i = 0; i < heapSize; i++) {
+            hits.add(new Hit(events[heap[i]], kmForChord(Math.sqrt(heapDist[i]))));
+        }
+        Collections.sort(hits, Comparator.comparingDouble(h -> h.distanceKm));
+        return hits;
+    }
+
+    /** A copy of {@code events} sorted nearest first; events without coordinates go last. */
+    public static List<Event> sortByDistance(List<Event> events, double latitude, double longitude) {
+        List<Event> sorted = new ArrayList<>(events);
+        Collections.sort(sorted, Comparator.comparingDouble(event -> event.getLatitude() == null
+                || event.getLongitude() == null
+                ? Double.POSITIVE_INFINITY
+                : distanceKm(latitude, longitude, event.getLatitude(), event.getLongitude())));
+        return sorted;
+    }
+
+    /** Great-circle distance in kilometres (haversine). */
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private void collectWithin(int lo, int hi, int depth, double[] q, double maxChord2, List<Hit> hits) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        double d2 = chord2(mid, q);
+        if (d2 <= maxChord2) {
+            hits.add(new Hit(events[mid], kmForChord(Math.sqrt(d2))));
+        }
+        double diff = q[depth % 3] - coordinate(mid, depth % 3);
+        if (diff <= 0) {
+            collectWithin(lo, mid, depth + 1, q, maxChord2, hits);
+            if (diff * diff <= maxChord2) collectWithin(mid + 1, hi, depth + 1, q, maxChord2, hits);
+        } else {
+            collectWithin(mid + 1, hi, depth + 1, q, maxChord2, hits);
+            if (diff * diff <= maxChord2) collectWithin(lo, mid, depth + 1, q, maxChord2, hits);
+        }
+    }
+
+    private int searchNearest(int lo, int hi, int depth, double[] q, int[] heap, double[] heapDist, int heapSize) {
+        if (lo >= hi) return heapSize;
+        int mid = (lo + hi) >>> 1;
+        double d2 = chord2(mid, q);
+        if (heapSize < heap.length) {
+            heap[heapSize] = mid;
+            heapDist[heapSize] = d2;
+            siftUp(heap, heapDist, heapSize++);
+        } else if (d2 < heapDist[0]) {
+            heap[0] = mid;
+            heapDist[0] = d2;
+            siftDown(heap, heapDist, heapSize);
+        }
+        double diff = q[depth % 3] - coordinate(mid, depth % 3);
+        int nearLo = diff <= 0 ? lo : mid + 1;
+        int nearHi = diff <= 0 ? mid : hi;
+        heapSize = searchNearest(nearLo, nearHi, depth + 1, q, heap, heapDist, heapSize);
+        if (heapSize < heap.length || diff * diff < heapDist[0]) {
+            int farLo = diff <= 0 ? mid + 1 : lo;
+            int farHi = diff <= 0 ? hi : mid;
+            heapSize = searchNearest(farLo, farHi, depth + 1, q, heap, heapDist, heapSize);
+        }
+        return heapSize;
+    }
+
+    // Quickselect the median of [lo, hi) on this level's axis into the middle, then recurse
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) return;
+        int axis = depth % 3;
+        int mid = (lo + hi) >>> 1;
+        int left = lo;
+        int right = hi - 1;
+        while (left < right) {
+            double pivot = coordinate((left + right) >>> 1, axis);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate(i, axis) < pivot) i++;
+                while (coordinate(j, axis) > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (mid <= j) {
+                right = j;
+            } else if (mid >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    private double coordinate(int i, int axis) {
+        return axis == 0 ? xs[i] : axis == 1 ? ys[i] : zs[i];
+    }
+
+    private double chord2(int i, double[] q) {
+        double dx = xs[i] - q[0];
+        double dy = ys[i] - q[1];
+        double dz = zs[i] - q[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private void swap(int a, int b) {
+        Event event = events[a];
+        events[a] = events[b];
+        events[b] = event;
+        double t = xs[a];
+        xs[a] = xs[b];
+        xs[b] = t;
+        t = ys[a];
+        ys[a] = ys[b];
+        ys[b] = t;
+        t = zs[a];
+        zs[a] = zs[b];
+        zs[b] = t;
+    }
+
+    private static void siftUp(int[] heap, double[] dist, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (dist[parent] >= dist[i]) return;
+            swapHeap(heap, dist, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, double[] dist, int size) {
+        int i = 0;
+        while (true) {
+            int largest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && dist[left] > dist[largest]) largest = left;
+            if (right < size && dist[right] > dist[largest]) largest = right;
+            if (largest == i) return;
+            swapHeap(heap, dist, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swapHeap(int[] heap, double[] dist, int a, int b) {
+        int h = heap[a];
+        heap[a] = heap[b];
+        heap[b] = h;
+        double d = dist[a];
+        dist[a] = dist[b];
+        dist[b] = d;
+    }
+
+    private static double[] unitVector(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lng = Math.toRadians(longitude);
+        return new double[]{Math.cos(lat) * Math.cos(lng), Math.cos(lat) * Math.sin(lng), Math.sin(lat)};
+    }
+
+    private static double chordFor(double km) {
+        return 2 * Math.sin(Math.min(Math.PI, km / EARTH_RADIUS_KM) / 2);
+    }
+
+    private static double kmForChord(double chord) {
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, chord / 2));
+    }
+}
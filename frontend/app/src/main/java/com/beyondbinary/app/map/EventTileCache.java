@@ -0,0 +1,215 @@
+package com.beyondbinary.app.map;
+
+import com.beyondbinary.app.Event;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which parts of the map have had their events loaded, as Web Mercator tiles.
+ *
+ * The tile zoom follows the camera ({@link #tileZoomFor}), a couple of levels coarser, so a
+ * screen plus the ring of tiles around it is a few dozen tiles at most. A tile counts as
+ * loaded if it or any coarser tile covering it was fetched. Up to {@link #MAX_TILES} tiles
+ * are kept, least recently viewed first out; events that no kept tile holds any more are
+ * handed back so the map can drop them.
+ */
+public class EventTileCache {
+
+    private static final int MAX_TILE_ZOOM = 13;
+    // A tile is this many zoom levels coarser than the camera: about 2x3 tiles per screen
+    private static final int TILE_ZOOM_OFFSET = 2;
+    // Ring of tiles around the viewport loaded ahead of a pan
+    private static final int PREFETCH_RING = 1;
+    private static final int MAX_TILES = 64;
+
+    /** A rectangle of tiles at one zoom, and the box in degrees that covers it. */
+    public static class Region {
+        final int zoom;
+        final int minX;
+        final int maxX;
+        final int minY;
+        final int maxY;
+        public final double south;
+        public final double west;
+        public final double north;
+        public final double east;
+
+        Region(int zoom, int minX, int maxX, int minY, int maxY) {
+            this.zoom = zoom;
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.south = tileLatitude(maxY + 1, zoom);
+            this.north = tileLatitude(minY, zoom);
+            this.west = tileLongitude(minX, zoom);
+            this.east = tileLongitude(maxX + 1, zoom);
+        }
+
+        public int tileCount() {
+            return (maxX - minX + 1) * (maxY - minY + 1);
+        }
+    }
+
+    // Access-ordered, so iteration starts at the least recently viewed tile
+    private final LinkedHashMap<Long, int[]> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    // How many kept tiles hold each event; events at 0 are dropped
+    private final Map<Integer, Integer> holders = new HashMap<>();
+    // Events without coordinates belong to no tile and stay until reset
+    private final Set<Integer> unlocated = new HashSet<>();
+    private boolean unlocatedLoaded;
+
+    public static int tileZoomFor(float cameraZoom) {
+        return Math.max(0, Math.min(MAX_TILE_ZOOM, (int) Math.floor(cameraZoom) - TILE_ZOOM_OFFSET));
+    }
+
+    /**
+     * The smallest rectangle of tiles covering every tile in and around the viewport that
+     * isn't loaded, or null if all are. Loaded tiles in view are marked as recently viewed.
+     */
+    public synchronized Region missing(float cameraZoom, double south, double west, double north, double east) {
+        int zoom = tileZoomFor(cameraZoom);
+        int last = (1 << zoom) - 1;
+        int minX = Math.max(0, tileX(west, zoom) - PREFETCH_RING);
+        int maxX = Math.min(last, tileX(east, zoom) + PREFETCH_RING);
+        if (west > east) {
+            // Across the antimeridian only the western side of the screen is loaded
+            maxX = last;
+        }
+        int minY = Math.max(0, tileY(north, zoom) - PREFETCH_RING);
+        int maxY = Math.min(last, tileY(south, zoom) + PREFETCH_RING);
+
+        int missMinX = Integer.MAX_VALUE, missMaxX = -1, missMinY = Integer.MAX_VALUE, missMaxY = -1;
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                if (!touchLoaded(zoom, x, y)) {
+                    missMinX = Math.min(missMinX, x);
+                    missMaxX = Math.max(missMaxX, x);
+                    missMinY = Math.min(missMinY, y);
+                    missMaxY = Math.max(missMaxY, y);
+                }
+            }
+        }
+        return missMaxX < 0 ? null : new Region(zoom, missMinX, missMaxX, missMinY, missMaxY);
+    }
+
+    /** True until the first {@link #markLoaded} since the last {@link #reset}. */
+    public synchronized boolean needsUnlocated() {
+        return !unlocatedLoaded;
+    }
+
+    /**
+     * Record {@code events} as the contents of {@code region}. Returns the ids of events that
+     * no kept tile holds once the oldest tiles are evicted.
+     */
+    public synchronized List<Integer> markLoaded(Region region, List<Event> events, boolean includedUnlocated) {
+        Map<Long, List<Integer>> byTile = new HashMap<>();
+        for (int x = region.minX; x <= region.maxX; x++) {
+            for (int y = region.minY; y <= region.maxY; y++) {
+                byTile.put(key(region.zoom, x, y), new ArrayList<>());
+            }
+        }
+        for (Event event : events) {
+            if (event.getLatitude() == null || event.getLongitude() == null) {
+                unlocated.add(event.getId());
+                continue;
+            }
+            // Events on a shared edge come back for both tiles; clamping puts each in one
+            int x = clamp(tileX(event.getLongitude(), region.zoom), region.minX, region.maxX);
+            int y = clamp(tileY(event.getLatitude(), region.zoom), region.minY, region.maxY);
+            byTile.get(key(region.zoom, x, y)).add(event.getId());
+        }
+        if (includedUnlocated) unlocatedLoaded = true;
+
+        List<Integer> dropped = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> entry : byTile.entrySet()) {
+            int[] previous = tiles.remove(entry.getKey());
+            if (previous != null) release(previous, dropped);
+            int[] ids = new int[entry.getValue().size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = entry.getValue().get(i);
+                holders.merge(ids[i], 1, Integer::sum);
+            }
+            tiles.put(entry.getKey(), ids);
+        }
+
+        Iterator<int[]> oldest = tiles.values().iterator();
+        while (tiles.size() > MAX_TILES && oldest.hasNext()) {
+            int[] ids = oldest.next();
+            oldest.remove();
+            release(ids, dropped);
+        }
+        // A refetched tile can re-add an event released above
+        dropped.removeIf(id -> holders.containsKey(id) || unlocated.contains(id));
+        return dropped;
+    }
+
+    /** Forget everything, e.g. when the events may have changed on the server. */
+    public synchronized void reset() {
+        tiles.clear();
+        holders.clear();
+        unlocated.clear();
+        unlocatedLoaded = false;
+    }
+
+    public synchronized int tileCount() {
+        return tiles.size();
+    }
+
+    private boolean touchLoaded(int zoom, int x, int y) {
+        for (int z = zoom; z >= 0; z--, x >>= 1, y >>= 1) {
+            // get() on an access-ordered map marks the tile as recently viewed
+            if (tiles.get(key(z, x, y)) != null) return true;
+        }
+        return false;
+    }
+
+    private void release(int[] ids, List<Integer> dropped) {
+        for (int id : ids) {
+            Integer count = holders.get(id);
+            if (count == null) continue;
+            if (count <= 1) {
+                holders.remove(id);
+                dropped.add(id);
+            } else {
+                holders.put(id, count - 1);
+            }
+        }
+    }
+
+    private static long key(int zoom, int x, int y) {
+        return ((long) zoom << 56) | ((long) x << 28) | y;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static int tileX(double longitude, int zoom) {
+        int n = 1 << zoom;
+        return clamp((int) Math.floor((longitude + 180) / 360 * n), 0, n - 1);
+    }
+
+    private static int tileY(double latitude, int zoom) {
+        int n = 1 << zoom;
+        double sin = Math.sin(Math.toRadians(Math.max(-85.05112878, Math.min(85.05112878, latitude))));
+        double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+        return clamp((int) Math.floor(y * n), 0, n - 1);
+    }
+
+    private static double tileLongitude(int x, int zoom) {
+        return x / (double) (1 << zoom) * 360 - 180;
+    }
+
+    private static double tileLatitude(int y, int zoom) {
+        double n = Math.PI * (1 - 2 * y / (double) (1 << zoom));
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+}
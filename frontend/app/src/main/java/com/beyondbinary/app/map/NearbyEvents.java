@@ -0,0 +1,116 @@
+package com.beyondbinary.app.map;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.EventDao;
+import com.beyondbinary.app.EventDatabase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Nearby queries over every event known on the device, without network calls.
+ *
+ * The {@link EventSpatialIndex} covers the events in Room plus any the map has loaded that
+ * Room doesn't hold. It is rebuilt on the next query after {@link #invalidate} or
+ * {@link #remember}; queries in between only walk the tree.
+ */
+public class NearbyEvents {
+
+    private static final String TAG = "NearbyEvents";
+
+    private static NearbyEvents instance;
+
+    public interface Callback {
+        /** Main thread. {@code indexed} is how many events were searched; 0 means none are cached. */
+        void onResult(List<EventSpatialIndex.Hit> hits, int indexed);
+    }
+
+    private final EventDao eventDao;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Written from the main thread, read on the executor
+    private final Map<Integer, Event> remembered = new HashMap<>();
+    private volatile boolean dirty = true;
+    private EventSpatialIndex index;
+
+    public static synchronized NearbyEvents getInstance(Context context) {
+        if (instance == null) {
+            instance = new NearbyEvents(EventDatabase.getInstance(context).eventDao());
+        }
+        return instance;
+    }
+
+    private NearbyEvents(EventDao eventDao) {
+        this.eventDao = eventDao;
+    }
+
+    /** The stored events changed, e.g. after a sync. */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /** Include events loaded elsewhere, such as by the map; a later copy replaces an earlier one. */
+    public void remember(List<Event> events) {
+        synchronized (remembered) {
+            for (Event event : events) {
+                remembered.put(event.getId(), event);
+            }
+        }
+        dirty = true;
+    }
+
+    /** Events within {@code radiusKm} of the point, nearest first. */
+    public void withinRadius(double latitude, double longitude, double radiusKm, Callback callback) {
+        executor.execute(() -> {
+            EventSpatialIndex current = index();
+            long start = System.nanoTime();
+            List<EventSpatialIndex.Hit> hits = current.withinRadius(latitude, longitude, radiusKm);
+            Log.d(TAG, hits.size() + " of " + current.size() + " events within " + radiusKm + " km in "
+                    + (System.nanoTime() - start) / 1000 + "us");
+            mainHandler.post(() -> callback.onResult(hits, current.size()));
+        });
+    }
+
+    /** The {@code k} events nearest to the point, nearest first. */
+    public void nearest(double latitude, double longitude, int k, Callback callback) {
+        executor.execute(() -> {
+            EventSpatialIndex current = index();
+            List<EventSpatialIndex.Hit> hits = current.nearest(latitude, longitude, k);
+            mainHandler.post(() -> callback.onResult(hits, current.size()));
+        });
+    }
+
+    private EventSpatialIndex index() {
+        if (index != null && !dirty) return index;
+        dirty = false;
+        long start = System.currentTimeMillis();
+        Map<Integer, Event> byId = new HashMap<>();
+        synchronized (remembered) {
+            byId.putAll(remembered);
+        }
+        try {
+            for (Event event : eventDao.getAllEvents()) {
+                // The loaded copy is the fresher one, unless Room has coordinates it lacks
+                Event loaded = byId.get(event.getId());
+                if (loaded == null || loaded.getLatitude() == null) {
+                    byId.put(event.getId(), event);
+                }
+            }
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to read stored events, indexing loaded ones only", e);
+        }
+        index = new EventSpatialIndex(new ArrayList<>(byId.values()));
+        Log.d(TAG, "Indexed " + index.size() + " events in " + (System.currentTimeMillis() - start) + "ms");
+        return index;
+    }
+}
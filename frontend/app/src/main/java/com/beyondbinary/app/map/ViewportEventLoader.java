@@ -0,0 +1,127 @@
+package com.beyondbinary.app.map;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.api.EventsResponse;
+import com.beyondbinary.app.api.RetrofitClient;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Loads the events in and around the visible part of the map, as the camera moves.
+ *
+ * Each time the camera settles, after a short pause so a fling followed by a pinch makes one
+ * request, the tiles not yet in {@link EventTileCache} are fetched as a single bounding box.
+ * One request runs at a time; when it finishes the current viewport is checked again. Events
+ * whose tiles are evicted from the cache are reported so the map can drop them.
+ */
+public class ViewportEventLoader {
+
+    private static final String TAG = "ViewportEventLoader";
+    private static final long FETCH_DELAY_MS = 300;
+
+    public interface Listener {
+        void onEvents(List<Event> events);
+
+        void onEvicted(List<Integer> eventIds);
+
+        void onError(Throwable t);
+    }
+
+    private final EventTileCache tiles = new EventTileCache();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable fetchRunnable = this::fetchMissing;
+    private final Listener listener;
+
+    private Call<EventsResponse> inFlight;
+    // Responses from before the latest reload() or cancel() are dropped
+    private int generation;
+    private boolean hasViewport;
+    private float zoom;
+    private LatLngBounds bounds;
+
+    public ViewportEventLoader(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Hook for camera idle; fetches what the new viewport is missing shortly. */
+    public void onCameraIdle(float zoom, LatLngBounds bounds) {
+        this.zoom = zoom;
+        this.bounds = bounds;
+        hasViewport = true;
+        mainHandler.removeCallbacks(fetchRunnable);
+        mainHandler.postDelayed(fetchRunnable, FETCH_DELAY_MS);
+    }
+
+    /** Forget what was loaded and fetch the current viewport again. */
+    public void reload() {
+        cancel();
+        tiles.reset();
+        if (hasViewport) fetchMissing();
+    }
+
+    /** Stop fetching until the next camera idle or reload. */
+    public void cancel() {
+        generation++;
+        mainHandler.removeCallbacks(fetchRunnable);
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+    }
+
+    private void fetchMissing() {
+        // A running request checks the viewport again when it finishes
+        if (!hasViewport || inFlight != null) return;
+        EventTileCache.Region region = tiles.missing(zoom, bounds.southwest.latitude,
+                bounds.southwest.longitude, bounds.northeast.latitude, bounds.northeast.longitude);
+        if (region == null) return;
+
+        boolean includeUnlocated = tiles.needsUnlocated();
+        int requested = generation;
+        long start = System.currentTimeMillis();
+        Call<EventsResponse> call = RetrofitClient.getApiService().getEventsInBounds(
+                region.south, region.west, region.north, region.east, includeUnlocated);
+        inFlight = call;
+        call.enqueue(new Callback<EventsResponse>() {
+            @Override
+            public void onResponse(@NonNull Call<EventsResponse> call,
+                                   @NonNull Response<EventsResponse> response) {
+                if (requested != generation) return;
+                inFlight = null;
+                if (!response.isSuccessful() || response.body() == null) {
+                    listener.onError(new IOException("HTTP " + response.code()));
+                    return;
+                }
+                List<Event> events = response.body().getEvents() != null
+                        ? response.body().getEvents() : new ArrayList<>();
+                List<Integer> evicted = tiles.markLoaded(region, events, includeUnlocated);
+                Log.d(TAG, "Loaded " + events.size() + " events for " + region.tileCount() + " tiles in "
+                        + (System.currentTimeMillis() - start) + "ms, " + tiles.tileCount()
+                        + " tiles held, " + evicted.size() + " events evicted");
+                listener.onEvents(events);
+                if (!evicted.isEmpty()) listener.onEvicted(evicted);
+                fetchMissing();
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<EventsResponse> call, @NonNull Throwable t) {
+                if (requested != generation) return;
+                inFlight = null;
+                listener.onError(t);
+            }
+        });
+    }
+}
@@ -17,7 +17,7 @@ import com.beyondbinary.app.R;
 import com.beyondbinary.app.api.ApiService;
 import com.beyondbinary.app.api.MessagesResponse;
 import com.beyondbinary.app.api.RetrofitClient;
-import com.beyondbinary.app.api.SendMessageResponse;
+import com.beyondbinary.app.sync.Outbox;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
 import java.util.ArrayList;
@@ -186,25 +186,13 @@ public class ChatActivity extends AppCompatActivity {
         scrollToBottom();
         messageInput.setText("");
 
-        // Send to API
+        // Send to API through the outbox so the message is not lost offline
         Map<String, Object> body = new HashMap<>();
         body.put("sender_id", currentUserId);
         body.put("receiver_id", receiverId);
         body.put("text", messageText);
 
-        apiService.sendMessage(body).enqueue(new Callback<SendMessageResponse>() {
-            @Override
-            public void onResponse(Call<SendMessageResponse> call, Response<SendMessageResponse> response) {
-                if (!response.isSuccessful()) {
-                    Log.w(TAG, "Failed to send message: " + response.code());
-                }
-            }
-
-            @Override
-            public void onFailure(Call<SendMessageResponse> call, Throwable t) {
-                Log.e(TAG, "Error sending message", t);
-            }
-        });
+        Outbox.getInstance(this).sendMessage(body);
     }
 
     private void scrollToBottom() {
@@ -0,0 +1,113 @@
+package com.beyondbinary.app.similarity;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.agents.LexicalRanker;
+import com.beyondbinary.app.utils.EventCategoryHelper;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Turns events and free text into compact vectors without a model.
+ *
+ * Words, adjacent word pairs, word trigrams ("hik", "iki", ...) and the event's category are
+ * hashed into {@link #DIMENSIONS} buckets with a random sign, so texts sharing vocabulary or
+ * word stems end up close. The unit-length result is quantized to one signed byte per
+ * dimension with a per-vector scale.
+ */
+public final class EventEmbedder {
+
+    public static final int DIMENSIONS = 128;
+
+    // Bump when the features change so stored vectors are rebuilt
+    private static final int VERSION = 1;
+
+    private static final float TITLE_WEIGHT = 2f;
+    private static final float TYPE_WEIGHT = 2f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float BIGRAM_WEIGHT = 0.5f;
+    private static final float TRIGRAM_WEIGHT = 0.25f;
+
+    private EventEmbedder() {}
+
+    /** Identifies what {@link #embed(Event)} would produce, to tell whether a stored row is stale. */
+    public static int contentHash(Event event) {
+        return Objects.hash(VERSION, event.getTitle(), event.getEventType(), event.getDescription());
+    }
+
+    public static EventEmbedding embed(Event event) {
+        float[] v = new float[DIMENSIONS];
+        addText(v, event.getTitle(), TITLE_WEIGHT);
+        addText(v, event.getEventType(), TYPE_WEIGHT);
+        addText(v, event.getDescription(), 1f);
+        if (event.getEventType() != null) {
+            add(v, "cat:" + EventCategoryHelper.getCategoryForEventType(event.getEventType()), CATEGORY_WEIGHT);
+        }
+        EventEmbedding embedding = quantize(v);
+        embedding.setEventId(event.getId());
+        embedding.setContentHash(contentHash(event));
+        return embedding;
+    }
+
+    /** Embeds a query such as the user's bio; null if it has no usable words. */
+    public static EventEmbedding embedText(String text) {
+        float[] v = new float[DIMENSIONS];
+        if (!addText(v, text, 1f)) return null;
+        return quantize(v);
+    }
+
+    private static boolean addText(float[] v, String text, float weight) {
+        List<String> terms = LexicalRanker.terms(text);
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            add(v, term, weight);
+            if (i > 0) {
+                add(v, terms.get(i - 1) + ' ' + term, weight * BIGRAM_WEIGHT);
+            }
+            String padded = '<' + term + '>';
+            for (int j = 0; j + 3 <= padded.length(); j++) {
+                add(v, padded.substring(j, j + 3), weight * TRIGRAM_WEIGHT);
+            }
+        }
+        return !terms.isEmpty();
+    }
+
+    private static void add(float[] v, String feature, float weight) {
+        int h = mix(feature.hashCode());
+        // Low bits pick the bucket, the top bit the sign, so collisions tend to cancel out
+        v[h & (DIMENSIONS - 1)] += h < 0 ? -weight : weight;
+    }
+
+    // Murmur3 finalizer: String.hashCode alone clusters similar strings in the low bits
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static EventEmbedding quantize(float[] v) {
+        double norm = 0;
+        float max = 0;
+        for (float x : v) {
+            norm += x * x;
+            max = Math.max(max, Math.abs(x));
+        }
+        byte[] q = new byte[DIMENSIONS];
+        float scale = 0;
+        if (max > 0) {
+            // Unit length after scaling; the largest component maps to +/-127
+            float step = max / 127f;
+            for (int i = 0; i < DIMENSIONS; i++) {
+                q[i] = (byte) Math.round(v[i] / step);
+            }
+            scale = (float) (step / Math.sqrt(norm));
+        }
+        EventEmbedding embedding = new EventEmbedding();
+        embedding.setVector(q);
+        embedding.setScale(scale);
+        return embedding;
+    }
+}
@@ -0,0 +1,48 @@
+package com.beyondbinary.app.similarity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * An event's embedding as stored next to it: {@link EventEmbedder#DIMENSIONS} signed bytes
+ * that, multiplied by {@code scale}, give the unit-length vector.
+ */
+@Entity(tableName = "event_embeddings")
+public class EventEmbedding {
+    @PrimaryKey
+    private int eventId;
+
+    // Of the embedded fields and the embedder version; a mismatch means the row is stale
+    private int contentHash;
+
+    @NonNull
+    private byte[] vector = new byte[0];
+
+    private float scale;
+
+    public int getEventId() { return eventId; }
+    public void setEventId(int eventId) { this.eventId = eventId; }
+
+    public int getContentHash() { return contentHash; }
+    public void setContentHash(int contentHash) { this.contentHash = contentHash; }
+
+    @NonNull
+    public byte[] getVector() { return vector; }
+    public void setVector(@NonNull byte[] vector) { this.vector = vector; }
+
+    public float getScale() { return scale; }
+    public void setScale(float scale) { this.scale = scale; }
+
+    /** Cosine similarity with {@code other}, between -1 and 1. */
+    public float similarity(EventEmbedding other) {
+        byte[] a = vector;
+        byte[] b = other.vector;
+        if (a.length != b.length) return 0;
+        int dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot * scale * other.scale;
+    }
+}
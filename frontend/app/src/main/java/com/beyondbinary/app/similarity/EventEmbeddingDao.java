@@ -0,0 +1,24 @@
+package com.beyondbinary.app.similarity;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface EventEmbeddingDao {
+    @Query("SELECT * FROM event_embeddings")
+    List<EventEmbedding> getAll();
+
+    @Query("SELECT * FROM event_embeddings WHERE eventId IN (:eventIds)")
+    List<EventEmbedding> getByIds(List<Integer> eventIds);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertAll(List<EventEmbedding> embeddings);
+
+    // Rows of events the sync has since deleted
+    @Query("DELETE FROM event_embeddings WHERE eventId NOT IN (SELECT id FROM events)")
+    int deleteOrphans();
+}
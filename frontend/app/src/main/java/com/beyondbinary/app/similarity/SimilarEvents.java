@@ -0,0 +1,189 @@
+package com.beyondbinary.app.similarity;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.EventDao;
+import com.beyondbinary.app.EventDatabase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Semantic matching over the events in Room, without network calls.
+ *
+ * Embeddings are stored in {@code event_embeddings} and only recomputed for events whose
+ * content changed; the {@link VectorIndex} over them is rebuilt when the set of events does,
+ * in the background after a sync ({@link #rebuild}) or before a lookup that needs it.
+ * Scoring candidates for a ranking never rebuilds: it reads whatever index is built and the
+ * stored embeddings of the candidates it lacks.
+ */
+public class SimilarEvents {
+
+    private static final String TAG = "SimilarEvents";
+    // Ids per IN (...) query, below SQLite's limit on bound parameters
+    private static final int MAX_IDS_PER_QUERY = 500;
+
+    private static SimilarEvents instance;
+
+    public interface Callback {
+        /** Main thread. Empty when nothing similar is stored locally. */
+        void onResult(List<Event> events);
+    }
+
+    private final EventDao eventDao;
+    private final EventEmbeddingDao embeddingDao;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private volatile VectorIndex index;
+    private Map<Integer, Event> indexedEvents = new HashMap<>();
+    private String indexFingerprint;
+
+    public static synchronized SimilarEvents getInstance(Context context) {
+        if (instance == null) {
+            EventDatabase database = EventDatabase.getInstance(context);
+            instance = new SimilarEvents(database.eventDao(), database.embeddingDao());
+        }
+        return instance;
+    }
+
+    private SimilarEvents(EventDao eventDao, EventEmbeddingDao embeddingDao) {
+        this.eventDao = eventDao;
+        this.embeddingDao = embeddingDao;
+    }
+
+    /** The stored events changed, e.g. after a sync: re-embed and re-index in the background. */
+    public void rebuild() {
+        executor.execute(() -> {
+            try {
+                index();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Similar events index rebuild failed", e);
+            }
+        });
+    }
+
+    /** Up to {@code limit} stored events most like {@code event}, most similar first. */
+    public void findSimilar(Event event, int limit, Callback callback) {
+        executor.execute(() -> {
+            List<Event> similar = new ArrayList<>();
+            try {
+                VectorIndex current = index();
+                EventEmbedding query = current.get(event.getId());
+                if (query == null || query.getContentHash() != EventEmbedder.contentHash(event)) {
+                    query = EventEmbedder.embed(event);
+                }
+                for (VectorIndex.Hit hit : current.search(query, limit, event.getId())) {
+                    Event match = indexedEvents.get(hit.eventId);
+                    if (match != null && hit.similarity > 0) {
+                        similar.add(match);
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Similar events lookup failed", e);
+            }
+            mainHandler.post(() -> callback.onResult(similar));
+        });
+    }
+
+    /**
+     * Cosine similarity of each of {@code candidates} to {@code text}, 0 when the text has no
+     * usable words. Only the candidates' embeddings are read: from the index if one is built,
+     * else from Room, else computed. Blocks; call from a background thread.
+     */
+    public double[] similarities(String text, List<Event> candidates) {
+        double[] similarities = new double[candidates.size()];
+        EventEmbedding query = EventEmbedder.embedText(text);
+        if (query == null) return similarities;
+
+        VectorIndex current = index;
+        EventEmbedding[] embeddings = new EventEmbedding[candidates.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            Event candidate = candidates.get(i);
+            embeddings[i] = current != null ? current.get(candidate.getId()) : null;
+            if (!isCurrent(embeddings[i], candidate)) {
+                missing.add(candidate.getId());
+            }
+        }
+        Map<Integer, EventEmbedding> stored = load(missing);
+
+        for (int i = 0; i < candidates.size(); i++) {
+            Event candidate = candidates.get(i);
+            EventEmbedding embedding = embeddings[i];
+            if (!isCurrent(embedding, candidate)) {
+                embedding = stored.get(candidate.getId());
+            }
+            if (!isCurrent(embedding, candidate)) {
+                embedding = EventEmbedder.embed(candidate);
+            }
+            similarities[i] = query.similarity(embedding);
+        }
+        return similarities;
+    }
+
+    private Map<Integer, EventEmbedding> load(List<Integer> eventIds) {
+        Map<Integer, EventEmbedding> byId = new HashMap<>();
+        for (int from = 0; from < eventIds.size(); from += MAX_IDS_PER_QUERY) {
+            List<Integer> chunk = eventIds.subList(from, Math.min(eventIds.size(), from + MAX_IDS_PER_QUERY));
+            for (EventEmbedding embedding : embeddingDao.getByIds(chunk)) {
+                byId.put(embedding.getEventId(), embedding);
+            }
+        }
+        return byId;
+    }
+
+    private static boolean isCurrent(EventEmbedding embedding, Event event) {
+        return embedding != null && embedding.getContentHash() == EventEmbedder.contentHash(event);
+    }
+
+    /** The index over the events currently in Room, embedding any that are new or changed. */
+    private synchronized VectorIndex index() {
+        List<Event> events = eventDao.getAllEvents();
+        StringBuilder fingerprint = new StringBuilder();
+        for (Event event : events) {
+            fingerprint.append(event.getId()).append(':').append(EventEmbedder.contentHash(event)).append(',');
+        }
+        String current = fingerprint.toString();
+        if (index != null && current.equals(indexFingerprint)) {
+            return index;
+        }
+
+        long start = System.currentTimeMillis();
+        Map<Integer, EventEmbedding> stored = new HashMap<>();
+        for (EventEmbedding embedding : embeddingDao.getAll()) {
+            stored.put(embedding.getEventId(), embedding);
+        }
+        List<EventEmbedding> embeddings = new ArrayList<>(events.size());
+        List<EventEmbedding> changed = new ArrayList<>();
+        Map<Integer, Event> byId = new HashMap<>();
+        for (Event event : events) {
+            EventEmbedding embedding = stored.get(event.getId());
+            if (embedding == null || embedding.getContentHash() != EventEmbedder.contentHash(event)) {
+                embedding = EventEmbedder.embed(event);
+                changed.add(embedding);
+            }
+            embeddings.add(embedding);
+            byId.put(event.getId(), event);
+        }
+        if (!changed.isEmpty()) {
+            embeddingDao.upsertAll(changed);
+        }
+        int removed = embeddingDao.deleteOrphans();
+
+        index = new VectorIndex(embeddings);
+        indexedEvents = byId;
+        indexFingerprint = current;
+        Log.d(TAG, "Indexed " + embeddings.size() + " events (" + changed.size() + " embedded, "
+                + removed + " removed) in " + (System.currentTimeMillis() - start) + "ms");
+        return index;
+    }
+}
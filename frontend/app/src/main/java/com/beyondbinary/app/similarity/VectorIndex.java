@@ -0,0 +1,189 @@
+package com.beyondbinary.app.similarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Approximate nearest-neighbour search over {@link EventEmbedding}s (an inverted-file index).
+ *
+ * The vectors are split into about sqrt(n) clusters with k-means; a query only scores the
+ * members of the {@link #PROBES} clusters whose centroids are closest to it. Small catalogs
+ * are kept in a single cluster, which is an exact scan.
+ */
+public class VectorIndex {
+
+    private static final int PROBES = 3;
+    private static final int EXACT_SCAN_LIMIT = 64;
+    private static final int KMEANS_ITERATIONS = 8;
+
+    public static class Hit {
+        public final int eventId;
+        public final float similarity;
+
+        Hit(int eventId, float similarity) {
+            this.eventId = eventId;
+            this.similarity = similarity;
+        }
+    }
+
+    private final List<EventEmbedding> embeddings;
+    private final Map<Integer, EventEmbedding> byEventId = new HashMap<>();
+    private final float[][] centroids;
+    private final int[][] lists;
+
+    public VectorIndex(List<EventEmbedding> embeddings) {
+        this.embeddings = new ArrayList<>(embeddings);
+        for (EventEmbedding embedding : this.embeddings) {
+            byEventId.put(embedding.getEventId(), embedding);
+        }
+
+        int n = this.embeddings.size();
+        int clusters = n <= EXACT_SCAN_LIMIT ? 1 : (int) Math.round(Math.sqrt(n));
+        float[][] points = new float[n][];
+        for (int i = 0; i < n; i++) {
+            points[i] = toFloats(this.embeddings.get(i));
+        }
+        this.centroids = kMeans(points, clusters);
+
+        int[] assignment = new int[n];
+        int[] sizes = new int[clusters];
+        for (int i = 0; i < n; i++) {
+            assignment[i] = nearest(points[i]);
+            sizes[assignment[i]]++;
+        }
+        this.lists = new int[clusters][];
+        for (int c = 0; c < clusters; c++) {
+            lists[c] = new int[sizes[c]];
+        }
+        int[] filled = new int[clusters];
+        for (int i = 0; i < n; i++) {
+            lists[assignment[i]][filled[assignment[i]]++] = i;
+        }
+    }
+
+    public int size() {
+        return embeddings.size();
+    }
+
+    /** The stored embedding of {@code eventId}, or null if it isn't indexed. */
+    public EventEmbedding get(int eventId) {
+        return byEventId.get(eventId);
+    }
+
+    /** Up to {@code limit} events most similar to {@code query}, best first, without {@code excludeId}. */
+    public List<Hit> search(EventEmbedding query, int limit, int excludeId) {
+        if (embeddings.isEmpty() || limit <= 0) return Collections.emptyList();
+
+        float[] q = toFloats(query);
+        Integer[] order = new Integer[centroids.length];
+        float[] closeness = new float[centroids.length];
+        for (int c = 0; c < centroids.length; c++) {
+            order[c] = c;
+            closeness[c] = dot(q, centroids[c]);
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(closeness[b], closeness[a]));
+
+        // Min-heap of the best hits so far
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(a.similarity, b.similarity));
+        for (int p = 0; p < Math.min(PROBES, order.length); p++) {
+            for (int i : lists[order[p]]) {
+                EventEmbedding candidate = embeddings.get(i);
+                if (candidate.getEventId() == excludeId) continue;
+                float similarity = query.similarity(candidate);
+                if (best.size() < limit) {
+                    best.add(new Hit(candidate.getEventId(), similarity));
+                } else if (similarity > best.peek().similarity) {
+                    best.poll();
+                    best.add(new Hit(candidate.getEventId(), similarity));
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        Collections.sort(hits, (a, b) -> Float.compare(b.similarity, a.similarity));
+        return hits;
+    }
+
+    private static float[][] kMeans(float[][] points, int k) {
+        int dims = EventEmbedder.DIMENSIONS;
+        float[][] centers = new float[k][];
+        if (points.length == 0) {
+            centers[0] = new float[dims];
+            return centers;
+        }
+        // Seeded so the same catalog always clusters the same way
+        Random random = new Random(points.length);
+        for (int c = 0; c < k; c++) {
+            centers[c] = points[random.nextInt(points.length)].clone();
+        }
+        if (k == 1) return centers;
+
+        for (int iteration = 0; iteration < KMEANS_ITERATIONS; iteration++) {
+            float[][] sums = new float[k][dims];
+            int[] counts = new int[k];
+            for (float[] point : points) {
+                int c = nearest(centers, point);
+                counts[c]++;
+                for (int d = 0; d < dims; d++) {
+                    sums[c][d] += point[d];
+                }
+            }
+            for (int c = 0; c < k; c++) {
+                if (counts[c] == 0) {
+                    // Re-seed an empty cluster instead of leaving a dead list
+                    centers[c] = points[random.nextInt(points.length)].clone();
+                    continue;
+                }
+                for (int d = 0; d < dims; d++) {
+                    sums[c][d] /= counts[c];
+                }
+                centers[c] = sums[c];
+            }
+        }
+        return centers;
+    }
+
+    private int nearest(float[] point) {
+        return nearest(centroids, point);
+    }
+
+    private static int nearest(float[][] centers, float[] point) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < centers.length; c++) {
+            float distance = 0;
+            for (int d = 0; d < point.length; d++) {
+                float diff = point[d] - centers[c][d];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private static float[] toFloats(EventEmbedding embedding) {
+        byte[] q = embedding.getVector();
+        float[] v = new float[EventEmbedder.DIMENSIONS];
+        for (int i = 0; i < Math.min(q.length, v.length); i++) {
+            v[i] = q[i] * embedding.getScale();
+        }
+        return v;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
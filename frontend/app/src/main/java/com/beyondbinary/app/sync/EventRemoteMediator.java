@@ -0,0 +1,103 @@
+package com.beyondbinary.app.sync;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
+import androidx.paging.ExperimentalPagingApi;
+import androidx.paging.LoadType;
+import androidx.paging.PagingState;
+import androidx.paging.ListenableFutureRemoteMediator;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.EventDao;
+import com.beyondbinary.app.api.ApiService;
+import com.beyondbinary.app.api.EventsResponse;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import retrofit2.Response;
+
+/**
+ * Fills the local event table one page at a time when the feed scrolls past what is stored.
+ *
+ * After a completed {@link EventSyncManager} sync the table already holds the whole catalog
+ * and APPEND ends after one empty page. On a cold first launch this lets the first screen
+ * render from a single small page instead of waiting for the full sync.
+ */
+@OptIn(markerClass = ExperimentalPagingApi.class)
+public class EventRemoteMediator extends ListenableFutureRemoteMediator<Integer, Event> {
+
+    private static final String TAG = "EventRemoteMediator";
+
+    private final ApiService apiService;
+    private final EventDao eventDao;
+    private final Executor executor;
+    private final int pageSize;
+
+    public EventRemoteMediator(ApiService apiService, EventDao eventDao, Executor executor, int pageSize) {
+        this.apiService = apiService;
+        this.eventDao = eventDao;
+        this.executor = executor;
+        this.pageSize = pageSize;
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<InitializeAction> initializeFuture() {
+        ListenableFutureTask<InitializeAction> task = ListenableFutureTask.create(() ->
+                eventDao.count() > 0
+                        ? InitializeAction.SKIP_INITIAL_REFRESH
+                        : InitializeAction.LAUNCH_INITIAL_REFRESH);
+        executor.execute(task);
+        return task;
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<MediatorResult> loadFuture(@NonNull LoadType loadType,
+                                                       @NonNull PagingState<Integer, Event> state) {
+        int cursor;
+        switch (loadType) {
+            case REFRESH:
+                cursor = 0;
+                break;
+            case PREPEND:
+                // Pages are newest first and a refresh always starts at the newest
+                return Futures.immediateFuture(new MediatorResult.Success(true));
+            case APPEND:
+            default:
+                Event last = state.lastItemOrNull();
+                if (last == null) {
+                    return Futures.immediateFuture(new MediatorResult.Success(true));
+                }
+                cursor = last.getId();
+                break;
+        }
+
+        ListenableFutureTask<MediatorResult> task = ListenableFutureTask.create(() -> {
+            try {
+                Response<EventsResponse> response = apiService.getEventsPage(cursor, pageSize).execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    return new MediatorResult.Error(
+                            new IllegalStateException("Event page failed: HTTP " + response.code()));
+                }
+
+                List<Event> events = response.body().getEvents();
+                if (events != null && !events.isEmpty()) {
+                    eventDao.upsertAll(events);
+                }
+                return new MediatorResult.Success(response.body().getNextCursor() == null);
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to load event page after cursor " + cursor, e);
+                return new MediatorResult.Error(e);
+            }
+        });
+        executor.execute(task);
+        return task;
+    }
+}
@@ -0,0 +1,264 @@
+package com.beyondbinary.app.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.EventDao;
+import com.beyondbinary.app.EventDatabase;
+import com.beyondbinary.app.api.EventStreamReader;
+import com.beyondbinary.app.api.RetrofitClient;
+import com.beyondbinary.app.map.NearbyEvents;
+import com.beyondbinary.app.similarity.SimilarEvents;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+/**
+ * Keeps the local {@link EventDatabase} in step with the server using delta sync.
+ *
+ * Each sync asks for changes above the last applied cursor and applies upserts and
+ * tombstones page by page, so refresh cost is proportional to churn rather than catalog
+ * size. Concurrent callers share the sync already running, and a caller arriving within
+ * {@link #FRESH_MS} of a finished sync is answered without a request; {@link #invalidate()}
+ * closes that window after a write.
+ */
+public class EventSyncManager {
+
+    private static final String TAG = "EventSyncManager";
+    private static final String PREFS_NAME = "beyondbinary_prefs";
+    private static final String KEY_CURSOR = "event_sync_cursor";
+    private static final int PAGE_SIZE = 500;
+    /** How long a finished sync answers later callers without another request. */
+    private static final long FRESH_MS = 5_000;
+
+    public interface Callback {
+        /** Called on the main thread. {@code changed} counts upserts plus deletions applied. */
+        void onSynced(int changed);
+
+        /** Called on the main thread. The local database still holds the last synced state. */
+        void onError(Throwable t);
+    }
+
+    public interface LoadCallback {
+        /**
+         * Called on the main thread with the local events after a sync attempt.
+         * {@code syncError} is non-null when the sync failed and the events may be stale.
+         */
+        void onLoaded(List<Event> events, Throwable syncError);
+    }
+
+    private static EventSyncManager instance;
+
+    private final EventDao eventDao;
+    private final SharedPreferences prefs;
+    private final NearbyEvents nearbyEvents;
+    private final SimilarEvents similarEvents;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final List<Callback> waiters = new ArrayList<>();
+    private boolean syncing = false;
+    private long syncedAt = 0;
+    // Bumped by invalidate() so a sync already running when a write lands isn't taken as fresh
+    private int generation = 0;
+    private int hits = 0;
+    private int misses = 0;
+
+    public static synchronized EventSyncManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new EventSyncManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private EventSyncManager(Context context) {
+        this.eventDao = EventDatabase.getInstance(context).eventDao();
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.nearbyEvents = NearbyEvents.getInstance(context);
+        this.similarEvents = SimilarEvents.getInstance(context);
+    }
+
+    public EventDao getEventDao() {
+        return eventDao;
+    }
+
+    /**
+     * Pull changes since the last sync into the local database. Joining the sync in flight or
+     * arriving while the last one is still fresh counts as a hit; starting a sync is a miss.
+     */
+    public void sync(Callback callback) {
+        final int startedGeneration;
+        synchronized (this) {
+            if (!syncing && syncedAt > 0 && SystemClock.elapsedRealtime() - syncedAt < FRESH_MS) {
+                hits++;
+                if (callback != null) {
+                    mainHandler.post(() -> callback.onSynced(0));
+                }
+                return;
+            }
+            if (callback != null) {
+                waiters.add(callback);
+            }
+            if (syncing) {
+                hits++;
+                return;
+            }
+            misses++;
+            syncing = true;
+            startedGeneration = generation;
+        }
+
+        executor.execute(() -> {
+            int changed = 0;
+            Throwable error = null;
+            try {
+                changed = pullChanges();
+                if (changed > 0) {
+                    nearbyEvents.invalidate();
+                    // Rebuilt here so rankings never wait on embedding or clustering
+                    similarEvents.rebuild();
+                }
+            } catch (Exception e) {
+                error = e;
+                Log.w(TAG, "Event sync failed", e);
+            }
+
+            List<Callback> done;
+            synchronized (this) {
+                done = new ArrayList<>(waiters);
+                waiters.clear();
+                syncing = false;
+                if (error == null && generation == startedGeneration) {
+                    syncedAt = SystemClock.elapsedRealtime();
+                }
+                Log.d(TAG, "Sync shared by " + done.size() + " caller(s); hits=" + hits
+                        + ", misses=" + misses);
+            }
+
+            final int changedCount = changed;
+            final Throwable failure = error;
+            mainHandler.post(() -> {
+                for (Callback c : done) {
+                    if (failure != null) {
+                        c.onError(failure);
+                    } else {
+                        c.onSynced(changedCount);
+                    }
+                }
+            });
+        });
+    }
+
+    /** Callers answered by a shared or still-fresh sync. */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /** Callers that started a sync of their own. */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Call after a write to events succeeds, so the next sync goes to the server instead of
+     * answering from a sync that predates the write.
+     */
+    public synchronized void invalidate() {
+        syncedAt = 0;
+        generation++;
+    }
+
+    /**
+     * Sync, then hand back the full local event set. A failed sync still delivers whatever
+     * the database holds, so screens keep working offline.
+     */
+    public void syncAndLoad(LoadCallback callback) {
+        sync(new Callback() {
+            @Override
+            public void onSynced(int changed) {
+                loadLocal(callback, null);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                loadLocal(callback, t);
+            }
+        });
+    }
+
+    private void loadLocal(LoadCallback callback, Throwable syncError) {
+        executor.execute(() -> {
+            List<Event> events = eventDao.getAllEventsNewestFirst();
+            mainHandler.post(() -> callback.onLoaded(events, syncError));
+        });
+    }
+
+    /** Forget the cursor so the next sync is a full one. */
+    public void reset() {
+        prefs.edit().remove(KEY_CURSOR).apply();
+    }
+
+    private int pullChanges() throws IOException {
+        long cursor = prefs.getLong(KEY_CURSOR, 0);
+
+        // The database can be wiped by a destructive migration while the cursor survives
+        if (cursor > 0 && eventDao.count() == 0) {
+            Log.i(TAG, "Local events empty, falling back to a full sync");
+            cursor = 0;
+        }
+
+        int changed = 0;
+        boolean hasMore = true;
+        while (hasMore) {
+            Response<ResponseBody> response = RetrofitClient.getApiService()
+                    .streamEventsSince(cursor, PAGE_SIZE)
+                    .execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("Event sync failed: HTTP " + response.code());
+            }
+
+            // A full sync over existing rows must swap the table in one transaction, so that
+            // page is collected. Otherwise upserts are written batch by batch as they are
+            // decoded, letting the paged feed show the first rows of a cold start early.
+            boolean fullResync = cursor == 0 && eventDao.count() > 0;
+            List<Event> collected = new ArrayList<>();
+            EventStreamReader.Summary page;
+            try (ResponseBody body = response.body()) {
+                page = EventStreamReader.read(body.charStream(), EventStreamReader.DEFAULT_BATCH_SIZE,
+                        batch -> {
+                            if (fullResync) {
+                                collected.addAll(batch);
+                            } else {
+                                eventDao.upsertAll(batch);
+                            }
+                        });
+            }
+
+            List<Integer> deleted = page.getDeleted();
+            if (fullResync) {
+                eventDao.replaceAll(collected);
+            } else if (!deleted.isEmpty()) {
+                eventDao.deleteByIds(deleted);
+            }
+
+            changed += page.getEventsRead() + deleted.size();
+            cursor = page.getCursor();
+            prefs.edit().putLong(KEY_CURSOR, cursor).apply();
+            hasMore = page.hasMore();
+        }
+
+        Log.d(TAG, "Event sync applied " + changed + " change(s), cursor=" + cursor);
+        return changed;
+    }
+}
@@ -0,0 +1,154 @@
+package com.beyondbinary.app.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.beyondbinary.app.Event;
+import com.beyondbinary.app.agents.EventRankingAgent;
+import com.beyondbinary.app.agents.RankingPipeline;
+import com.beyondbinary.app.api.RetrofitClient;
+import com.beyondbinary.app.api.UserEventsResponse;
+import com.beyondbinary.app.data.database.AppDatabaseHelper;
+import com.beyondbinary.app.data.models.User;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import retrofit2.Response;
+
+/**
+ * Periodically syncs the catalog and ranks both home feeds in the background, saving the
+ * results as {@link FeedSnapshot}s so the next launch opens on a ranked feed.
+ *
+ * Runs every {@link #REPEAT_HOURS} hours on a network while the battery is not low. The
+ * period matches the ranking cache's TTL, so a feed opened after a run usually finds its
+ * Gemini ranking cached as well.
+ */
+public class FeedPrecomputeWorker extends Worker {
+
+    private static final String TAG = "FeedPrecomputeWorker";
+    private static final String WORK_NAME = "feed_precompute";
+    private static final long REPEAT_HOURS = 6;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    public FeedPrecomputeWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /** Schedule the periodic run; keeps an existing schedule as is. */
+    public static void schedule(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                FeedPrecomputeWorker.class, REPEAT_HOURS, TimeUnit.HOURS)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .setRequiresBatteryNotLow(true)
+                        .build())
+                .build();
+        WorkManager.getInstance(context.getApplicationContext())
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        SharedPreferences prefs = context.getSharedPreferences("beyondbinary_prefs", Context.MODE_PRIVATE);
+        int userId = prefs.getInt("user_id", -1);
+        long start = System.currentTimeMillis();
+
+        try {
+            CompletableFuture<List<Event>> loaded = new CompletableFuture<>();
+            EventSyncManager.getInstance(context).syncAndLoad((events, syncError) -> {
+                if (syncError != null) {
+                    Log.w(TAG, "Sync failed, ranking the events already stored", syncError);
+                }
+                loaded.complete(events);
+            });
+            List<Event> events = loaded.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (events.isEmpty() || isStopped()) {
+                return Result.success();
+            }
+
+            User user = userId != -1 ? AppDatabaseHelper.getInstance(context).getUserById(userId) : null;
+            FeedSnapshot snapshots = FeedSnapshot.getInstance(context);
+
+            snapshots.save(FeedSnapshot.RECOMMENDED, userId,
+                    rank(EventRankingAgent.recommended(context, userId, events), user, events));
+
+            // Discover hides the user's own events; without that list its snapshot would be wrong
+            Set<Integer> userEventIds = userEventIds(userId);
+            if (userEventIds != null && !isStopped()) {
+                snapshots.save(FeedSnapshot.DISCOVER, userId,
+                        rank(EventRankingAgent.discover(context, userId, userEventIds, events), user, events));
+            }
+
+            Log.i(TAG, "Precomputed feeds for " + events.size() + " events in "
+                    + (System.currentTimeMillis() - start) + "ms");
+            return Result.success();
+        } catch (TimeoutException e) {
+            Log.w(TAG, "Precompute timed out, will retry", e);
+            return Result.retry();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Precompute failed", e);
+            return Result.failure();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+    }
+
+    private static List<Event> rank(RankingPipeline pipeline, User user, List<Event> events)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        CompletableFuture<List<Event>> ranked = new CompletableFuture<>();
+        pipeline.run(user, events, null, new RankingPipeline.Listener() {
+            @Override
+            public void onProgress(List<Event> partial) {
+            }
+
+            @Override
+            public void onResult(List<Event> result, boolean refined) {
+                ranked.complete(result);
+            }
+        });
+        return ranked.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /** Ids of events the user created or joined; empty when signed out, null if the fetch failed. */
+    private static Set<Integer> userEventIds(int userId) {
+        if (userId == -1) return Collections.emptySet();
+        try {
+            Response<UserEventsResponse> response = RetrofitClient.getApiService().getUserEvents(userId).execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                Log.w(TAG, "User events failed: HTTP " + response.code());
+                return null;
+            }
+            Set<Integer> ids = new HashSet<>();
+            if (response.body().getEvents() != null) {
+                for (UserEventsResponse.UserEvent event : response.body().getEvents()) {
+                    ids.add(event.getId());
+                }
+            }
+            return ids;
+        } catch (IOException e) {
+            Log.w(TAG, "User events failed", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.beyondbinary.app.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.beyondbinary.app.Event;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The last ranked order of each home feed, per user, so a cold start can render the feed in
+ * its first frame and revalidate behind it.
+ *
+ * Written by {@link FeedPrecomputeWorker} and after every live ranking. Only the top
+ * {@link #MAX_EVENTS} events are kept, as full rows, so showing a snapshot needs no query.
+ */
+public class FeedSnapshot {
+
+    private static final String TAG = "FeedSnapshot";
+    private static final int MAX_EVENTS = 50;
+    // Older than this, a feed is more likely to mislead than help
+    private static final long MAX_AGE_MS = 24 * 60 * 60 * 1000L;
+
+    public static final String DISCOVER = "discover";
+    public static final String RECOMMENDED = "recommended";
+
+    private static FeedSnapshot instance;
+
+    private static class Stored {
+        long savedAt;
+        List<Event> events;
+    }
+
+    private final File dir;
+    private final Gson gson = new Gson();
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    // Null values mean "read, nothing on disk"
+    private final Map<String, Stored> memory = new HashMap<>();
+
+    public static synchronized FeedSnapshot getInstance(Context context) {
+        if (instance == null) {
+            instance = new FeedSnapshot(new File(context.getApplicationContext().getFilesDir(), "feed_snapshots"));
+        }
+        return instance;
+    }
+
+    private FeedSnapshot(File dir) {
+        this.dir = dir;
+    }
+
+    /** Read both feeds of {@code userId} in the background so {@link #get} finds them in memory. */
+    public void preload(int userId) {
+        diskExecutor.execute(() -> {
+            get(DISCOVER, userId);
+            get(RECOMMENDED, userId);
+        });
+    }
+
+    /**
+     * The snapshot of {@code feed} for {@code userId}, or null if there is none or it is too
+     * old. Reads the file if {@link #preload} hasn't; that is a single small file, cheaper
+     * than the frame it saves.
+     */
+    public synchronized List<Event> get(String feed, int userId) {
+        String key = key(feed, userId);
+        if (!memory.containsKey(key)) {
+            memory.put(key, read(new File(dir, key + ".json")));
+        }
+        Stored stored = memory.get(key);
+        if (stored == null || stored.events == null || stored.events.isEmpty()
+                || System.currentTimeMillis() - stored.savedAt > MAX_AGE_MS) {
+            return null;
+        }
+        return new ArrayList<>(stored.events);
+    }
+
+    /** Keep the top of {@code ranked} as the snapshot of {@code feed}. */
+    public void save(String feed, int userId, List<Event> ranked) {
+        Stored stored = new Stored();
+        stored.savedAt = System.currentTimeMillis();
+        stored.events = new ArrayList<>(ranked.subList(0, Math.min(ranked.size(), MAX_EVENTS)));
+        String key = key(feed, userId);
+        synchronized (this) {
+            memory.put(key, stored);
+        }
+        diskExecutor.execute(() -> write(new File(dir, key + ".json"), stored));
+    }
+
+    private Stored read(File file) {
+        if (!file.exists()) return null;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, Stored.class);
+        } catch (IOException | JsonParseException e) {
+            Log.w(TAG, "Unreadable snapshot " + file.getName() + ", ignoring", e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private void write(File file, Stored stored) {
+        if (!dir.exists() && !dir.mkdirs()) return;
+        // Write then rename, so a crash mid-write never leaves half a snapshot behind
+        File tmp = new File(dir, file.getName() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            gson.toJson(stored, writer);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write snapshot " + file.getName(), e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.w(TAG, "Failed to replace snapshot " + file.getName());
+            tmp.delete();
+        }
+    }
+
+    private static String key(String feed, int userId) {
+        return feed + "_" + userId;
+    }
+}
@@ -0,0 +1,99 @@
+package com.beyondbinary.app.sync;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.ProcessLifecycleOwner;
+
+import com.beyondbinary.app.agents.InterestProfile;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records user interactions (joined, left, attended, created, ...) for the server and the
+ * local {@link InterestProfile}.
+ *
+ * Each interaction is written to the {@link Outbox} right away, so it survives the process
+ * dying, but the drain is held back for a short window so that a burst of taps reaches
+ * {@link OutboxWorker} together and goes out as one batch write instead of one request per
+ * tap. The window is cut short once {@link #MAX_BATCH} interactions are waiting and when the
+ * app goes to the background. Each interaction keeps the time it happened, so the server
+ * records the real order regardless of when it is sent.
+ */
+public class InteractionAggregator {
+
+    private static final long WINDOW_MS = 2_000;
+    private static final int MAX_BATCH = 20;
+
+    private static InteractionAggregator instance;
+
+    private final Outbox outbox;
+    private final InterestProfile interestProfile;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flush = this::flush;
+
+    // Interactions queued since the last flush
+    private int buffered = 0;
+
+    public static synchronized InteractionAggregator getInstance(Context context) {
+        if (instance == null) {
+            instance = new InteractionAggregator(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private InteractionAggregator(Context context) {
+        this.outbox = Outbox.getInstance(context);
+        this.interestProfile = InterestProfile.getInstance(context);
+        mainHandler.post(() -> ProcessLifecycleOwner.get().getLifecycle()
+                .addObserver(new DefaultLifecycleObserver() {
+                    @Override
+                    public void onStop(@NonNull LifecycleOwner owner) {
+                        flush();
+                    }
+                }));
+    }
+
+    public void record(int userId, int eventId, String interactionType) {
+        record(userId, eventId, interactionType, null);
+    }
+
+    /** As above, with the event's type for events not in the local catalog yet (e.g. just created). */
+    public void record(int userId, int eventId, String interactionType, @Nullable String eventType) {
+        Map<String, Object> interaction = new HashMap<>();
+        interaction.put("user_id", userId);
+        interaction.put("event_id", eventId);
+        interaction.put("interaction_type", interactionType);
+        interaction.put("occurred_at", System.currentTimeMillis());
+
+        // A repeat of the interaction already queued for this event, like a double tap, is
+        // dropped there and not counted
+        outbox.createInteraction(interaction, () -> {
+            interestProfile.record(userId, eventId, interactionType, eventType);
+            onQueued();
+        });
+    }
+
+    /** Let the outbox send whatever interactions are waiting now instead of at the window's end. */
+    public synchronized void flush() {
+        mainHandler.removeCallbacks(flush);
+        if (buffered == 0) return;
+        buffered = 0;
+        outbox.scheduleDrain();
+    }
+
+    private synchronized void onQueued() {
+        buffered++;
+        if (buffered >= MAX_BATCH) {
+            flush();
+        } else if (buffered == 1) {
+            mainHandler.postDelayed(flush, WINDOW_MS);
+        }
+    }
+}
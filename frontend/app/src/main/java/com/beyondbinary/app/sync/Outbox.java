@@ -0,0 +1,142 @@
+package com.beyondbinary.app.sync;
+
+import android.content.Context;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import com.beyondbinary.app.EventDatabase;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable queue for writes the UI has already applied optimistically.
+ *
+ * Mutations are stored in Room before anything touches the network and drained in order by
+ * {@link OutboxWorker} once a connection is available, so a join, attendance mark or chat
+ * message survives flaky networks and process death. Interactions are queued one by one as
+ * they happen, but {@link InteractionAggregator} decides when they are drained, and the worker
+ * merges them into batch writes. Each mutation carries a
+ * client-generated request id that the server uses as its Idempotency-Key.
+ */
+public class Outbox {
+
+    private static final String WORK_NAME = "outbox-drain";
+    private static final long INITIAL_BACKOFF_SECONDS = 10;
+
+    private static Outbox instance;
+
+    private final Context appContext;
+    private final OutboxDao outboxDao;
+    private final Gson gson = new Gson();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    public static synchronized Outbox getInstance(Context context) {
+        if (instance == null) {
+            instance = new Outbox(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private Outbox(Context context) {
+        this.appContext = context;
+        this.outboxDao = EventDatabase.getInstance(context).outboxDao();
+    }
+
+    /**
+     * Join ({@code delta} 1) or leave ({@code delta} -1) an event. Only the change is sent and
+     * the server applies it to its current count, so a stale local copy can't overwrite it.
+     */
+    public void changeParticipants(int eventId, int delta) {
+        JsonObject body = new JsonObject();
+        body.addProperty("delta", delta);
+        enqueue("POST", "events/" + eventId + "/participants", body, null);
+    }
+
+    /**
+     * Queue one interaction, unless the latest one still queued between the same user and
+     * event is the same, e.g. a double tap. {@code onQueued} runs on a background thread once
+     * it is stored. No drain is scheduled; the caller calls {@link #scheduleDrain()} when the
+     * interactions should go out.
+     */
+    public void createInteraction(Map<String, Object> interaction, Runnable onQueued) {
+        JsonObject body = gson.toJsonTree(interaction).getAsJsonObject();
+        executor.execute(() -> {
+            if (repeatsQueued(body)) return;
+            outboxDao.enqueue(newMutation("POST", "interactions", body, null));
+            onQueued.run();
+        });
+    }
+
+    public void sendMessage(Map<String, Object> body) {
+        enqueue("POST", "messages", gson.toJsonTree(body), null);
+    }
+
+    /** Make sure a drain is scheduled, e.g. for anything left over from a previous run. */
+    public void scheduleDrain() {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(OutboxWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, INITIAL_BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+        // Appending keeps a drain that is already running from missing rows queued after it
+        WorkManager.getInstance(appContext)
+                .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+    }
+
+    private void enqueue(String method, String path, JsonElement body, String coalesceKey) {
+        OutboxMutation mutation = newMutation(method, path, body, coalesceKey);
+        executor.execute(() -> {
+            outboxDao.enqueue(mutation);
+            scheduleDrain();
+        });
+    }
+
+    private static OutboxMutation newMutation(String method, String path, JsonElement body, String coalesceKey) {
+        OutboxMutation mutation = new OutboxMutation();
+        mutation.setRequestId(UUID.randomUUID().toString());
+        mutation.setMethod(method);
+        mutation.setPath(path);
+        mutation.setBody(body.toString());
+        mutation.setCoalesceKey(coalesceKey);
+        mutation.setCreatedAt(System.currentTimeMillis());
+        return mutation;
+    }
+
+    // Only the latest queued interaction between the same user and event counts: join,
+    // leave, join is three interactions, not a repeat
+    private boolean repeatsQueued(JsonObject interaction) {
+        JsonObject latest = null;
+        for (OutboxMutation queued : outboxDao.queuedInteractions()) {
+            JsonObject body = JsonParser.parseString(queued.getBody()).getAsJsonObject();
+            JsonArray batch = body.getAsJsonArray("interactions");
+            if (batch == null) {
+                if (isSameTarget(body, interaction)) latest = body;
+                continue;
+            }
+            for (JsonElement element : batch) {
+                JsonObject other = element.getAsJsonObject();
+                if (isSameTarget(other, interaction)) latest = other;
+            }
+        }
+        return latest != null && latest.get("interaction_type").equals(interaction.get("interaction_type"));
+    }
+
+    private static boolean isSameTarget(JsonObject a, JsonObject b) {
+        return a.get("user_id").equals(b.get("user_id")) && a.get("event_id").equals(b.get("event_id"));
+    }
+}
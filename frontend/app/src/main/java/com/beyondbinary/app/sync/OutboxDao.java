@@ -0,0 +1,69 @@
+package com.beyondbinary.app.sync;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+import androidx.room.Update;
+
+import java.util.List;
+
+@Dao
+public interface OutboxDao {
+    @Insert
+    long insert(OutboxMutation mutation);
+
+    @Query("SELECT * FROM outbox ORDER BY id ASC LIMIT :limit")
+    List<OutboxMutation> oldest(int limit);
+
+    @Query("SELECT COUNT(*) FROM outbox")
+    int count();
+
+    @Query("SELECT COUNT(*) FROM outbox WHERE id > :after AND id <= :upTo")
+    int countBetween(long after, long upTo);
+
+    // Single interactions and the batches they were merged into, oldest first
+    @Query("SELECT * FROM outbox WHERE method = 'POST' AND path IN ('interactions', 'interactions/batch') ORDER BY id ASC")
+    List<OutboxMutation> queuedInteractions();
+
+    @Update
+    void update(OutboxMutation mutation);
+
+    @Query("DELETE FROM outbox WHERE id IN (:ids)")
+    void deleteByIds(List<Long> ids);
+
+    @Query("DELETE FROM outbox WHERE coalesceKey = :coalesceKey")
+    void deleteByCoalesceKey(String coalesceKey);
+
+    @Query("UPDATE outbox SET attempts = attempts + 1 WHERE id IN (:ids)")
+    void incrementAttempts(List<Long> ids);
+
+    // A newer full-object write makes any queued one for the same target redundant
+    @Transaction
+    default long enqueue(OutboxMutation mutation) {
+        if (mutation.getCoalesceKey() != null) {
+            deleteByCoalesceKey(mutation.getCoalesceKey());
+        }
+        return insert(mutation);
+    }
+
+    // The batch is written over the first merged row, so it keeps that row's place in the queue
+    @Transaction
+    default void replaceWithBatch(OutboxMutation batch, List<Long> mergedIds) {
+        update(batch);
+        if (!mergedIds.isEmpty()) {
+            deleteByIds(mergedIds);
+        }
+    }
+
+    // The first part is written over the batch row and the rest are inserted at the ids that
+    // follow it. The batch was merged from a run of adjacent rows, so those ids were freed by
+    // the merge and sort before anything queued after the run
+    @Transaction
+    default void splitBatch(OutboxMutation first, List<OutboxMutation> rest) {
+        update(first);
+        for (OutboxMutation part : rest) {
+            insert(part);
+        }
+    }
+}
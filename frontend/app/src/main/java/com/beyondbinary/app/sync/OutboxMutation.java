@@ -0,0 +1,55 @@
+package com.beyondbinary.app.sync;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * A write queued while it waits to reach the server. Rows are sent in id order and deleted
+ * once the server has answered for them.
+ */
+@Entity(tableName = "outbox", indices = {@Index("coalesceKey")})
+public class OutboxMutation {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    // Client-generated, sent as the Idempotency-Key so a resend is applied at most once
+    @NonNull
+    private String requestId = "";
+
+    private String method;   // "POST" or "PUT"
+    private String path;     // Relative to the API base, e.g. "events/42"
+    private String body;     // JSON
+
+    // Mutations with the same key supersede each other while still queued (null = never)
+    private String coalesceKey;
+
+    private long createdAt;
+    private int attempts;
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    @NonNull
+    public String getRequestId() { return requestId; }
+    public void setRequestId(@NonNull String requestId) { this.requestId = requestId; }
+
+    public String getMethod() { return method; }
+    public void setMethod(String method) { this.method = method; }
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+
+    public String getCoalesceKey() { return coalesceKey; }
+    public void setCoalesceKey(String coalesceKey) { this.coalesceKey = coalesceKey; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+}
@@ -0,0 +1,231 @@
+package com.beyondbinary.app.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.beyondbinary.app.EventDatabase;
+import com.beyondbinary.app.api.OutboxBatchRequest;
+import com.beyondbinary.app.api.OutboxBatchResponse;
+import com.beyondbinary.app.api.RetrofitClient;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import retrofit2.Response;
+
+/**
+ * Sends queued {@link OutboxMutation}s to the server in batches, oldest first.
+ *
+ * A mutation leaves the queue once the server has answered it with anything but a retryable
+ * status. Otherwise the worker returns {@link Result#retry()} and WorkManager backs off
+ * exponentially. Order is preserved because the server stops a batch at the first mutation
+ * that needs a retry.
+ *
+ * Interactions are queued one at a time. Before each batch, every run of adjacent single
+ * interactions is merged into one interactions/batch write in the run's place, so nothing
+ * moves ahead of the mutations queued before it. The batch is stored with its own request id;
+ * a single interaction is never sent as such, so none can be applied twice under two ids. The
+ * server records each interaction's own time, so merging doesn't change its order. A merged
+ * batch the server rejects is split back into one batch per interaction, so one bad
+ * interaction only drops itself.
+ */
+public class OutboxWorker extends Worker {
+
+    private static final String TAG = "OutboxWorker";
+    private static final int BATCH_SIZE = 20;
+    // After this many failed attempts a mutation is dropped so it cannot block the queue
+    private static final int MAX_ATTEMPTS = 8;
+    // The server's limit for one interactions/batch write, also how far ahead merging looks
+    private static final int MAX_MERGED_INTERACTIONS = 100;
+
+    public OutboxWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        OutboxDao outboxDao = EventDatabase.getInstance(getApplicationContext()).outboxDao();
+
+        while (!isStopped()) {
+            mergeInteractions(outboxDao);
+            List<OutboxMutation> pending = outboxDao.oldest(BATCH_SIZE);
+            if (pending.isEmpty()) {
+                return Result.success();
+            }
+
+            // An interaction queued since the merge waits for the next one, with all after it
+            List<OutboxBatchRequest.Mutation> mutations = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                OutboxMutation m = pending.get(i);
+                if (isSingleInteraction(m)) {
+                    pending = pending.subList(0, i);
+                    break;
+                }
+                mutations.add(new OutboxBatchRequest.Mutation(m.getRequestId(), m.getMethod(),
+                        m.getPath(), JsonParser.parseString(m.getBody())));
+            }
+            if (mutations.isEmpty()) {
+                continue;
+            }
+
+            Response<OutboxBatchResponse> response;
+            try {
+                response = RetrofitClient.getApiService()
+                        .applyOutboxBatch(new OutboxBatchRequest(mutations))
+                        .execute();
+            } catch (IOException e) {
+                Log.w(TAG, "Outbox batch failed, will retry", e);
+                return Result.retry();
+            }
+            if (!response.isSuccessful()) {
+                Log.w(TAG, "Outbox batch rejected: HTTP " + response.code());
+                return Result.retry();
+            }
+
+            // A mutation missing from the answer counts as a failed attempt, so an answer the
+            // server keeps getting wrong cannot hold the queue forever
+            Map<String, Integer> statusById = new HashMap<>();
+            if (response.body() != null && response.body().getResults() != null) {
+                for (OutboxBatchResponse.Result result : response.body().getResults()) {
+                    statusById.put(result.getId(), result.getStatus());
+                }
+            }
+
+            List<Long> done = new ArrayList<>();
+            List<Long> failed = new ArrayList<>();
+            boolean split = false;
+            boolean eventsChanged = false;
+            for (OutboxMutation m : pending) {
+                Integer status = statusById.get(m.getRequestId());
+                if (status != null && status == 0) {
+                    // Not attempted, stays queued without using up an attempt
+                    continue;
+                }
+                if (status == null || isRetryable(status)) {
+                    if (m.getAttempts() + 1 >= MAX_ATTEMPTS) {
+                        Log.w(TAG, "Dropping " + m.getMethod() + " " + m.getPath()
+                                + " after " + MAX_ATTEMPTS + " attempts, last "
+                                + (status != null ? "HTTP " + status : "answer without it"));
+                        done.add(m.getId());
+                    } else {
+                        failed.add(m.getId());
+                    }
+                    continue;
+                }
+                if (status >= 400 && splitBatch(outboxDao, m)) {
+                    Log.w(TAG, "Interaction batch rejected with HTTP " + status + ", splitting it");
+                    split = true;
+                    continue;
+                }
+                if (status >= 400) {
+                    Log.w(TAG, m.getMethod() + " " + m.getPath() + " rejected with HTTP " + status);
+                }
+                done.add(m.getId());
+                eventsChanged |= m.getPath().startsWith("events");
+            }
+
+            if (!done.isEmpty()) {
+                outboxDao.deleteByIds(done);
+            }
+            if (eventsChanged) {
+                RetrofitClient.invalidateEvents();
+                EventSyncManager.getInstance(getApplicationContext()).invalidate();
+            }
+            if (!failed.isEmpty() || (done.isEmpty() && !split)) {
+                if (!failed.isEmpty()) {
+                    outboxDao.incrementAttempts(failed);
+                }
+                return Result.retry();
+            }
+        }
+        return Result.retry();
+    }
+
+    private static void mergeInteractions(OutboxDao outboxDao) {
+        List<OutboxMutation> run = new ArrayList<>();
+        for (OutboxMutation m : outboxDao.oldest(MAX_MERGED_INTERACTIONS)) {
+            if (isSingleInteraction(m)) {
+                run.add(m);
+            } else {
+                mergeRun(outboxDao, run);
+                run.clear();
+            }
+        }
+        mergeRun(outboxDao, run);
+    }
+
+    private static void mergeRun(OutboxDao outboxDao, List<OutboxMutation> run) {
+        if (run.isEmpty()) return;
+
+        JsonArray interactions = new JsonArray();
+        List<Long> mergedIds = new ArrayList<>();
+        for (OutboxMutation m : run) {
+            interactions.add(JsonParser.parseString(m.getBody()));
+            mergedIds.add(m.getId());
+        }
+
+        OutboxMutation batch = run.get(0);
+        mergedIds.remove(0);
+        batch.setRequestId(UUID.randomUUID().toString());
+        batch.setPath("interactions/batch");
+        batch.setBody(batchBody(interactions).toString());
+        outboxDao.replaceWithBatch(batch, mergedIds);
+    }
+
+    /** Split a rejected batch of several interactions; false if there is nothing to split. */
+    private static boolean splitBatch(OutboxDao outboxDao, OutboxMutation m) {
+        if (!"interactions/batch".equals(m.getPath())) return false;
+        JsonArray interactions = JsonParser.parseString(m.getBody()).getAsJsonObject()
+                .getAsJsonArray("interactions");
+        if (interactions == null || interactions.size() < 2) return false;
+        // Only a batch merged from adjacent rows leaves the ids after it free
+        if (outboxDao.countBetween(m.getId(), m.getId() + interactions.size() - 1) > 0) return false;
+
+        List<OutboxMutation> rest = new ArrayList<>();
+        for (int i = 1; i < interactions.size(); i++) {
+            JsonArray one = new JsonArray();
+            one.add(interactions.get(i));
+            OutboxMutation part = new OutboxMutation();
+            part.setId(m.getId() + i);
+            part.setRequestId(UUID.randomUUID().toString());
+            part.setMethod(m.getMethod());
+            part.setPath(m.getPath());
+            part.setBody(batchBody(one).toString());
+            part.setCreatedAt(m.getCreatedAt());
+            rest.add(part);
+        }
+
+        JsonArray first = new JsonArray();
+        first.add(interactions.get(0));
+        m.setRequestId(UUID.randomUUID().toString());
+        m.setBody(batchBody(first).toString());
+        outboxDao.splitBatch(m, rest);
+        return true;
+    }
+
+    private static JsonObject batchBody(JsonArray interactions) {
+        JsonObject body = new JsonObject();
+        body.add("interactions", interactions);
+        return body;
+    }
+
+    private static boolean isSingleInteraction(OutboxMutation m) {
+        return "POST".equals(m.getMethod()) && "interactions".equals(m.getPath());
+    }
+
+    private static boolean isRetryable(int status) {
+        return status >= 500 || status == 408 || status == 409 || status == 429;
+    }
+}